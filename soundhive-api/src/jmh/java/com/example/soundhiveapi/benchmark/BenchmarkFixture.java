@@ -0,0 +1,85 @@
+package com.example.soundhiveapi.benchmark;
+
+import com.example.soundhiveapi.model.Song;
+import com.example.soundhiveapi.model.Tag;
+import com.example.soundhiveapi.repository.BulkReadRepository;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import com.example.soundhiveapi.repository.TagRepository;
+import com.example.soundhiveapi.service.CatalogCache;
+import com.example.soundhiveapi.service.MyJdbcService;
+import com.example.soundhiveapi.service.RecentPlaysCache;
+import com.example.soundhiveapi.service.UserProfileStore;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// The services under benchmark wired by hand, the way the unit tests do it: bulk reads go to an
+// embedded H2 database holding the synthetic dataset, repositories that would need JPA are
+// Mockito stubs answering from the dataset. Caches are warmed, so the measured paths are the
+// steady-state ones that don't reach the database.
+class BenchmarkFixture {
+
+    final SyntheticDataset dataset;
+    final List<Tag> tags;
+    final SingleConnectionDataSource dataSource;
+    final BulkReadRepository bulkReadRepository;
+    final UserProfileStore userProfileStore;
+    final MyJdbcService myJdbcService;
+
+    BenchmarkFixture(SyntheticDataset dataset, String databaseName) {
+        this.dataset = dataset;
+        this.tags = dataset.tags();
+        this.dataSource = new SingleConnectionDataSource("jdbc:h2:mem:" + databaseName + ";MODE=MySQL", true);
+        dataset.loadInto(new JdbcTemplate(dataSource));
+
+        bulkReadRepository = new BulkReadRepository();
+        ReflectionTestUtils.setField(bulkReadRepository, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(bulkReadRepository, "pageSize", 5000);
+
+        TagRepository tagRepository = mock(TagRepository.class);
+        when(tagRepository.findAllByOrderByTagIdAsc()).thenReturn(tags);
+        userProfileStore = new UserProfileStore();
+        ReflectionTestUtils.setField(userProfileStore, "tagRepository", tagRepository);
+        ReflectionTestUtils.setField(userProfileStore, "readQueryRepository", mock(ReadQueryRepository.class));
+        ReflectionTestUtils.setField(userProfileStore, "bulkReadRepository", bulkReadRepository);
+        ReflectionTestUtils.setField(userProfileStore, "eventPublisher", mock(ApplicationEventPublisher.class));
+        userProfileStore.resync();
+
+        RecentPlaysCache recentPlaysCache = new RecentPlaysCache(dataset.numUsers(), dataset.numUsers());
+        for (int u = 0; u < dataset.numUsers(); u++) {
+            recentPlaysCache.put(dataset.userId(u), dataset.recentSongIds(u, RecentPlaysCache.CAPACITY));
+        }
+        CatalogCache catalogCache = new CatalogCache(dataset.numSongs(), Duration.ofHours(1),
+                dataset.numUsers(), Duration.ofHours(1), Duration.ofHours(1), Duration.ofMinutes(1));
+        List<Integer> songIds = new ArrayList<>(dataset.numSongs());
+        for (int s = 1; s <= dataset.numSongs(); s++) {
+            songIds.add(s);
+        }
+        catalogCache.getSongs(songIds, missing -> {
+            Map<Integer, Song> songs = new HashMap<>();
+            for (int songId : missing) {
+                songs.put(songId, dataset.song(songId, tags));
+            }
+            return songs;
+        });
+
+        myJdbcService = new MyJdbcService();
+        ReflectionTestUtils.setField(myJdbcService, "userProfileStore", userProfileStore);
+        ReflectionTestUtils.setField(myJdbcService, "recentPlaysCache", recentPlaysCache);
+        ReflectionTestUtils.setField(myJdbcService, "catalogCache", catalogCache);
+    }
+
+    void close() {
+        dataSource.destroy();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.soundhiveapi.benchmark;
+
+import com.example.soundhiveapi.index.FactorModel;
+import com.example.soundhiveapi.index.ImplicitAlsTrainer;
+import com.example.soundhiveapi.index.InteractionMatrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// One implicit ALS training run on the common ForkJoin pool over a synthetic play matrix with
+// skewed song popularity: `iterations` ALS iterations plus the per-user candidate pass.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class FactorTrainingBenchmark {
+
+    @Param({"1000000"})
+    public int plays;
+
+    @Param({"50000"})
+    public int users;
+
+    @Param({"20000"})
+    public int songs;
+
+    @Param({"32"})
+    public int factors;
+
+    @Param({"3"})
+    public int iterations;
+
+    @Param({"200"})
+    public int candidatesPerUser;
+
+    private InteractionMatrix matrix;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(5);
+        InteractionMatrix.Builder builder = new InteractionMatrix.Builder(plays);
+        for (int i = 0; i < plays; i++) {
+            int song = (int) (songs * Math.pow(random.nextDouble(), 2));
+            builder.add("user" + random.nextInt(users), song);
+        }
+        matrix = builder.build();
+    }
+
+    @Benchmark
+    public FactorModel train() {
+        return new ImplicitAlsTrainer(factors, iterations, 0.1, 10, 1, candidatesPerUser)
+                .train(matrix, ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.soundhiveapi.benchmark;
+
+import com.example.soundhiveapi.index.SongTagIndex;
+import com.example.soundhiveapi.index.TagIndex;
+import com.example.soundhiveapi.index.UserTagMatrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Full rebuilds: the user x tag matrix from rows already in memory (builder cost only) and
+// streamed from the embedded database through BulkReadRepository (keyset pages + builder),
+// plus the song tag index used for recommendations.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MatrixBuildBenchmark {
+
+    @Param({"small", "medium"})
+    public String scale;
+
+    private BenchmarkFixture fixture;
+    private TagIndex tagIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(SyntheticDataset.ofScale(scale), "matrix-" + scale);
+        tagIndex = new TagIndex(fixture.tags);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public UserTagMatrix buildFromMemory() {
+        UserTagMatrix.Builder builder = new UserTagMatrix.Builder(tagIndex, (int) fixture.dataset.numWeights());
+        fixture.dataset.forEachWeight(builder::add);
+        return builder.build();
+    }
+
+    @Benchmark
+    public UserTagMatrix loadFromDatabase() {
+        UserTagMatrix.Builder builder = new UserTagMatrix.Builder(tagIndex,
+                (int) fixture.bulkReadRepository.countUserTagWeights());
+        fixture.bulkReadRepository.forEachUserTagWeight(builder::add);
+        return builder.build();
+    }
+
+    @Benchmark
+    public SongTagIndex buildSongTagIndex() {
+        SongTagIndex.Builder builder = new SongTagIndex.Builder(tagIndex);
+        fixture.dataset.forEachSongTag(builder::add);
+        return builder.build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.soundhiveapi.benchmark;
+
+import com.example.soundhiveapi.index.FactorModel;
+import com.example.soundhiveapi.index.ImplicitAlsTrainer;
+import com.example.soundhiveapi.index.InteractionMatrix;
+import com.example.soundhiveapi.index.SongScorer;
+import com.example.soundhiveapi.index.SongTagIndex;
+import com.example.soundhiveapi.index.TagIndex;
+import com.example.soundhiveapi.index.TopK;
+import com.example.soundhiveapi.index.UserProfile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Candidate scoring for one recommendation request: the tag index walk (SongScorer) and the
+// factor model's precomputed per-user candidates, both excluding the user's played songs.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RecommendationBenchmark {
+
+    @Param({"small", "medium"})
+    public String scale;
+
+    @Param({"10"})
+    public int k;
+
+    @Param({"10"})
+    public int maxQueryTags;
+
+    private BenchmarkFixture fixture;
+    private TagIndex tags;
+    private SongTagIndex songIndex;
+    private FactorModel factorModel;
+    private UserProfile[] profiles;
+    private int[][] played;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticDataset dataset = SyntheticDataset.ofScale(scale);
+        fixture = new BenchmarkFixture(dataset, "recommend-" + scale);
+        tags = fixture.userProfileStore.getTags();
+        SongTagIndex.Builder songs = new SongTagIndex.Builder(tags);
+        dataset.forEachSongTag(songs::add);
+        songIndex = songs.build();
+
+        InteractionMatrix.Builder plays = new InteractionMatrix.Builder();
+        dataset.forEachPlay((userId, songId, time) -> plays.add(userId, songId));
+        factorModel = new ImplicitAlsTrainer(32, 2, 0.1, 10, 1, 200).train(plays.build(), ForkJoinPool.commonPool());
+
+        // a fixed sample of users, with their played songs sorted as the service passes them
+        int sample = Math.min(1000, dataset.numUsers());
+        profiles = new UserProfile[sample];
+        played = new int[sample][];
+        for (int u = 0; u < sample; u++) {
+            profiles[u] = fixture.userProfileStore.getProfile(dataset.userId(u));
+            played[u] = dataset.recentSongIds(u, Integer.MAX_VALUE);
+            Arrays.sort(played[u]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Scratch {
+        SongScorer scorer;
+        TopK top;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(RecommendationBenchmark benchmark) {
+            scorer = new SongScorer(benchmark.songIndex);
+            top = new TopK(benchmark.k);
+        }
+
+        int nextUser(int users) {
+            next = next + 1 == users ? 0 : next + 1;
+            top.reset();
+            return next;
+        }
+    }
+
+    @Benchmark
+    public TopK tagScoring(Scratch scratch) {
+        int u = scratch.nextUser(profiles.length);
+        scratch.scorer.score(profiles[u], tags, maxQueryTags, played[u], scratch.top);
+        return scratch.top;
+    }
+
+    @Benchmark
+    public TopK factorScoring(Scratch scratch) {
+        int u = scratch.nextUser(profiles.length);
+        int row = factorModel.userRowOf(profiles[u].getIdNumber());
+        factorModel.topSongs(row, played[u], scratch.top);
+        return scratch.top;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.soundhiveapi.benchmark;
+
+import com.example.soundhiveapi.index.SongSearchIndex;
+import com.example.soundhiveapi.index.TopK;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// SongSearchIndex typeahead queries over a synthetic catalog whose words follow a skewed
+// distribution, so short prefixes match most songs (walk path) and long ones few (gather path).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SongSearchBenchmark {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    @Param({"1000000"})
+    public int songs;
+
+    @Param({"10"})
+    public int limit;
+
+    private SongSearchIndex index;
+    private String[][] shortQueries;
+    private String[][] longQueries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(1);
+        String[] vocabulary = new String[50_000];
+        for (int w = 0; w < vocabulary.length; w++) {
+            StringBuilder word = new StringBuilder();
+            for (int i = 0, n = 3 + random.nextInt(7); i < n; i++) {
+                word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            }
+            vocabulary[w] = word.toString();
+        }
+        SongSearchIndex.Builder builder = new SongSearchIndex.Builder();
+        for (int s = 0; s < songs; s++) {
+            builder.add(s, skewedWord(random, vocabulary) + " " + skewedWord(random, vocabulary),
+                    skewedWord(random, vocabulary), random.nextInt(10_000));
+        }
+        index = builder.build();
+
+        shortQueries = new String[1024][];
+        longQueries = new String[1024][];
+        for (int q = 0; q < 1024; q++) {
+            shortQueries[q] = new String[] {skewedWord(random, vocabulary).substring(0, 1)};
+            String word = skewedWord(random, vocabulary);
+            longQueries[q] = new String[] {word.substring(0, Math.min(word.length(), 4)),
+                    skewedWord(random, vocabulary).substring(0, 2)};
+        }
+    }
+
+    // Zipf-like: low word numbers are much more common.
+    private static String skewedWord(SplittableRandom random, String[] vocabulary) {
+        return vocabulary[(int) Math.min(vocabulary.length - 1, Math.floor(Math.pow(vocabulary.length, random.nextDouble())) - 1)];
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        TopK top;
+
+        @Setup(Level.Trial)
+        public void setUp(SongSearchBenchmark benchmark) {
+            top = new TopK(benchmark.limit);
+        }
+
+        String[] nextQuery(String[][] queries) {
+            next = (next + 1) & (queries.length - 1);
+            top.reset();
+            return queries[next];
+        }
+    }
+
+    @Benchmark
+    public TopK shortPrefix(Cursor cursor) {
+        index.search(cursor.nextQuery(shortQueries), limit, null, cursor.top);
+        return cursor.top;
+    }
+
+    @Benchmark
+    public TopK twoWordPrefix(Cursor cursor) {
+        index.search(cursor.nextQuery(longQueries), limit, null, cursor.top);
+        return cursor.top;
+    }
+}
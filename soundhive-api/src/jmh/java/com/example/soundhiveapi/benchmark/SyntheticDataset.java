@@ -0,0 +1,243 @@
+package com.example.soundhiveapi.benchmark;
+
+import com.example.soundhiveapi.model.Song;
+import com.example.soundhiveapi.model.Tag;
+import com.example.soundhiveapi.repository.BulkReadRepository.PlayEventRowHandler;
+import com.example.soundhiveapi.repository.BulkReadRepository.SongTagRowHandler;
+import com.example.soundhiveapi.repository.BulkReadRepository.TagWeightRowHandler;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Deterministic SoundHive data at a configurable scale. Nothing is stored: every row is derived
+// from (seed, user) or (seed, song), so rows can be regenerated in the same order at any time and
+// a dataset of any size costs no memory until it is consumed.
+// Tag and song popularity are skewed (squared uniform), like real listening data.
+public class SyntheticDataset {
+
+    public static final int TAGS_PER_SONG = 5;
+
+    private static final long BASE_TIME_MILLIS = 1_700_000_000_000L;
+
+    private final int users;
+    private final int tags;
+    private final int songs;
+    private final int tagsPerUser;
+    private final int playsPerUser;
+    private final long seed;
+
+    public SyntheticDataset(int users, int tags, int songs, int tagsPerUser, int playsPerUser, long seed) {
+        this.users = users;
+        this.tags = tags;
+        this.songs = songs;
+        this.tagsPerUser = Math.min(tagsPerUser, tags);
+        this.playsPerUser = Math.min(playsPerUser, songs);
+        this.seed = seed;
+    }
+
+    // Named scales for @Param: small (unit-test sized), medium, large (production-like).
+    public static SyntheticDataset ofScale(String scale) {
+        switch (scale) {
+            case "small":
+                return new SyntheticDataset(1_000, 100, 5_000, 20, 50, 1);
+            case "medium":
+                return new SyntheticDataset(20_000, 300, 50_000, 40, 100, 1);
+            case "large":
+                return new SyntheticDataset(100_000, 500, 200_000, 60, 100, 1);
+            default:
+                throw new IllegalArgumentException("Unknown scale " + scale);
+        }
+    }
+
+    public int numUsers() {
+        return users;
+    }
+
+    public int numTags() {
+        return tags;
+    }
+
+    public int numSongs() {
+        return songs;
+    }
+
+    public long numWeights() {
+        return (long) users * tagsPerUser;
+    }
+
+    public String userId(int user) {
+        return String.format("%09d", user);
+    }
+
+    // Tag IDs are 1..tags; song IDs are 1..songs.
+    public List<Tag> tags() {
+        List<Tag> result = new ArrayList<>(tags);
+        for (int t = 1; t <= tags; t++) {
+            result.add(new Tag(t, "tag" + t));
+        }
+        return result;
+    }
+
+    public Song song(int songId, List<Tag> tagList) {
+        int[] tagIds = songTagIds(songId);
+        Tag[] songTags = new Tag[TAGS_PER_SONG];
+        for (int p = 0; p < TAGS_PER_SONG; p++) {
+            songTags[p] = tagList.get(tagIds[p] - 1);
+        }
+        return new Song(songId, "Song " + songId, "Artist " + (songId % 997), songTags);
+    }
+
+    // Rows in (id_number, tag_id) order, like the keyset scan over user_tagweights.
+    public void forEachWeight(TagWeightRowHandler handler) {
+        for (int u = 0; u < users; u++) {
+            SplittableRandom random = new SplittableRandom(seed * 31 + u);
+            int[] tagIds = distinctSorted(random, tagsPerUser, tags);
+            String id = userId(u);
+            for (int tagId : tagIds) {
+                handler.accept(id, tagId, random.nextDouble() * 10);
+            }
+        }
+    }
+
+    // Rows in (song_id, tag_position) order.
+    public void forEachSongTag(SongTagRowHandler handler) {
+        for (int s = 1; s <= songs; s++) {
+            for (int tagId : songTagIds(s)) {
+                handler.accept(s, tagId);
+            }
+        }
+    }
+
+    // One play per (user, song), in (user_id, song_id) order.
+    public void forEachPlay(PlayEventRowHandler handler) {
+        for (int u = 0; u < users; u++) {
+            SplittableRandom random = new SplittableRandom(seed * 17 + u);
+            int[] songIds = distinctSorted(random, playsPerUser, songs);
+            String id = userId(u);
+            for (int songId : songIds) {
+                handler.accept(id, songId, BASE_TIME_MILLIS + random.nextInt(30 * 24 * 3600) * 1000L);
+            }
+        }
+    }
+
+    // The user's most recent song IDs, most recent first.
+    public int[] recentSongIds(int user, int limit) {
+        long[] byTime = new long[playsPerUser];
+        int n = 0;
+        SplittableRandom random = new SplittableRandom(seed * 17 + user);
+        for (int songId : distinctSorted(random, playsPerUser, songs)) {
+            long time = BASE_TIME_MILLIS + random.nextInt(30 * 24 * 3600) * 1000L;
+            byTime[n++] = (time << 20) | songId; // sorts by time, then song
+        }
+        Arrays.sort(byTime);
+        int count = Math.min(limit, playsPerUser);
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = (int) (byTime[playsPerUser - 1 - i] & 0xFFFFF);
+        }
+        return result;
+    }
+
+    // Creates the SoundHive tables this dataset covers in an embedded (H2, MySQL mode) database
+    // and fills them.
+    public void loadInto(JdbcTemplate jdbc) {
+        jdbc.execute("CREATE TABLE tags (tag_id INT PRIMARY KEY, tag_name VARCHAR(50))");
+        jdbc.execute("CREATE TABLE user_tagweights (id_number VARCHAR(20) NOT NULL, tag_id INT NOT NULL,"
+                + " weight DOUBLE NOT NULL, PRIMARY KEY (id_number, tag_id))");
+        jdbc.execute("CREATE TABLE user_playevents (user_id VARCHAR(20) NOT NULL, song_id INT NOT NULL,"
+                + " play_time TIMESTAMP, song_title VARCHAR(100), PRIMARY KEY (user_id, song_id))");
+        jdbc.execute("CREATE TABLE song_tags (song_id INT NOT NULL, tag_position TINYINT NOT NULL,"
+                + " tag_id INT NOT NULL, PRIMARY KEY (song_id, tag_position))");
+
+        List<Object[]> batch = new ArrayList<>();
+        for (Tag tag : tags()) {
+            batch.add(new Object[] {tag.getTagId(), tag.getTagName()});
+        }
+        jdbc.batchUpdate("INSERT INTO tags VALUES (?, ?)", batch);
+
+        Batcher weights = new Batcher(jdbc, "INSERT INTO user_tagweights VALUES (?, ?, ?)");
+        forEachWeight((id, tagId, weight) -> weights.add(id, tagId, weight));
+        weights.flush();
+
+        Batcher plays = new Batcher(jdbc, "INSERT INTO user_playevents VALUES (?, ?, ?, NULL)");
+        forEachPlay((id, songId, time) -> plays.add(id, songId, new Timestamp(time)));
+        plays.flush();
+
+        Batcher songTags = new Batcher(jdbc, "INSERT INTO song_tags VALUES (?, ?, ?)");
+        for (int s = 1; s <= songs; s++) {
+            int[] tagIds = songTagIds(s);
+            for (int p = 0; p < TAGS_PER_SONG; p++) {
+                songTags.add(s, p, tagIds[p]);
+            }
+        }
+        songTags.flush();
+    }
+
+    private int[] songTagIds(int songId) {
+        SplittableRandom random = new SplittableRandom(seed * 13 + songId);
+        int[] ids = new int[TAGS_PER_SONG];
+        int n = 0;
+        while (n < TAGS_PER_SONG) {
+            int tagId = skewed(random, tags) + 1;
+            boolean seen = false;
+            for (int i = 0; i < n; i++) {
+                seen |= ids[i] == tagId;
+            }
+            if (!seen) {
+                ids[n++] = tagId;
+            }
+        }
+        return ids;
+    }
+
+    // count distinct values in 1..max, popular (low) values more likely, ascending.
+    private static int[] distinctSorted(SplittableRandom random, int count, int max) {
+        int[] values = new int[count];
+        boolean[] taken = new boolean[max + 1];
+        int n = 0;
+        while (n < count) {
+            int value = skewed(random, max) + 1;
+            if (!taken[value]) {
+                taken[value] = true;
+                values[n++] = value;
+            }
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    private static int skewed(SplittableRandom random, int bound) {
+        double u = random.nextDouble();
+        return (int) (u * u * bound);
+    }
+
+    private static class Batcher {
+        private static final int SIZE = 10_000;
+        private final JdbcTemplate jdbc;
+        private final String sql;
+        private final List<Object[]> rows = new ArrayList<>(SIZE);
+
+        Batcher(JdbcTemplate jdbc, String sql) {
+            this.jdbc = jdbc;
+            this.sql = sql;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            if (rows.size() == SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!rows.isEmpty()) {
+                jdbc.batchUpdate(sql, rows);
+                rows.clear();
+            }
+        }
+    }
+}
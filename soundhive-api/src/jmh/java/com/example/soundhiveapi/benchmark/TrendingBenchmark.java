@@ -0,0 +1,64 @@
+package com.example.soundhiveapi.benchmark;
+
+import com.example.soundhiveapi.index.SlidingWindowCounts;
+import com.example.soundhiveapi.index.TopK;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// SlidingWindowCounts under concurrent plays: every thread counts plays of a skewed song
+// distribution (a few hot songs take most of them), the way a popular release concentrates
+// traffic. Run with -t to vary the thread count; throughput is per thread.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class TrendingBenchmark {
+
+    @Param({"500000"})
+    public int songs;
+
+    private SlidingWindowCounts counts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        counts = new SlidingWindowCounts(TimeUnit.MINUTES.toMillis(1), 24 * 60);
+    }
+
+    @State(Scope.Thread)
+    public static class Plays {
+        int[] songIds;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(TrendingBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+            songIds = new int[1 << 16];
+            for (int i = 0; i < songIds.length; i++) {
+                songIds[i] = (int) Math.floor(Math.pow(benchmark.songs, random.nextDouble())) - 1;
+            }
+        }
+
+        int nextSong() {
+            next = (next + 1) & (songIds.length - 1);
+            return songIds[next];
+        }
+    }
+
+    @Benchmark
+    public boolean recordPlay(Plays plays) {
+        long now = System.currentTimeMillis();
+        return counts.add(plays.nextSong(), now, now);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public TopK topOneHour() {
+        TopK top = new TopK(100);
+        counts.top(60, System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1), top);
+        return top;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.soundhiveapi.benchmark;
+
+import com.example.soundhiveapi.model.Song;
+import com.example.soundhiveapi.service.MyJdbcService.TagWeight;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Per-request MyJdbcService paths on a warm UserProfileStore and warm caches. Each invocation
+// picks the next user, so the benchmark doesn't just re-read one row from L1.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserQueryBenchmark {
+
+    @Param({"small", "medium"})
+    public String scale;
+
+    @Param({"5"})
+    public int k;
+
+    private BenchmarkFixture fixture;
+    private String[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BenchmarkFixture(SyntheticDataset.ofScale(scale), "query-" + scale);
+        userIds = new String[fixture.dataset.numUsers()];
+        for (int u = 0; u < userIds.length; u++) {
+            userIds[u] = fixture.dataset.userId(u);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        String nextUser(String[] userIds) {
+            next = next + 1 == userIds.length ? 0 : next + 1;
+            return userIds[next];
+        }
+    }
+
+    @Benchmark
+    public double[] userTagWeightsArray(Cursor cursor) {
+        return fixture.myJdbcService.getUserTagWeightsArray(cursor.nextUser(userIds));
+    }
+
+    @Benchmark
+    public List<TagWeight> userTopTags(Cursor cursor) {
+        return fixture.myJdbcService.getUserTopTags(cursor.nextUser(userIds), k);
+    }
+
+    @Benchmark
+    public List<Song> recentPlays(Cursor cursor) {
+        return fixture.myJdbcService.getUserPlayEvents(cursor.nextUser(userIds));
+    }
+}
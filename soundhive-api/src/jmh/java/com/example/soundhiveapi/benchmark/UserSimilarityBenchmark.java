@@ -0,0 +1,112 @@
+package com.example.soundhiveapi.benchmark;
+
+import com.example.soundhiveapi.index.SyntheticProfiles;
+import com.example.soundhiveapi.index.TopK;
+import com.example.soundhiveapi.index.UserProfile;
+import com.example.soundhiveapi.index.UserSimilarityIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// UserSimilarityIndex (LSH) queries against exact cosine search on clustered synthetic users, over
+// a sweep of table / bit / multi-probe configurations. Next to the query time, every approximate
+// query counts how many of the exact top k it found, so the secondary results give
+// recall@k = hits / (hits + misses) for each configuration.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserSimilarityBenchmark {
+
+    private static final int TAGS = 200;
+    private static final int QUERIES = 256;
+
+    @Param({"20000"})
+    public int users;
+
+    @Param({"4", "8", "16"})
+    public int tables;
+
+    @Param({"10", "12"})
+    public int bits;
+
+    @Param({"false", "true"})
+    public boolean multiProbe;
+
+    @Param({"10"})
+    public int k;
+
+    private UserSimilarityIndex index;
+    private UserProfile[] queries;
+    private int[][] exactHandles;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        UserProfile[] profiles = SyntheticProfiles.clustered(users, TAGS, 50, new Random(7));
+        index = new UserSimilarityIndex(TAGS, tables, bits, 42);
+        for (UserProfile profile : profiles) {
+            index.put(profile);
+        }
+        queries = new UserProfile[QUERIES];
+        exactHandles = new int[QUERIES][];
+        TopK exact = new TopK(k);
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = profiles[q * (users / QUERIES)];
+            exact.reset();
+            index.exactQuery(queries[q], exact);
+            exactHandles[q] = new int[exact.size()];
+            for (int i = 0; i < exact.size(); i++) {
+                exactHandles[q][i] = exact.idAt(i);
+            }
+            Arrays.sort(exactHandles[q]);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Recall {
+        public long hits;
+        public long misses;
+        int next;
+        TopK top;
+
+        @Setup(Level.Iteration)
+        public void setUp(UserSimilarityBenchmark benchmark) {
+            hits = 0;
+            misses = 0;
+            top = new TopK(benchmark.k);
+        }
+
+        int nextQuery() {
+            next = (next + 1) & (QUERIES - 1);
+            top.reset();
+            return next;
+        }
+    }
+
+    @Benchmark
+    public TopK approximate(Recall recall) {
+        int q = recall.nextQuery();
+        index.query(queries[q], multiProbe, recall.top);
+        int found = 0;
+        for (int i = 0; i < recall.top.size(); i++) {
+            if (Arrays.binarySearch(exactHandles[q], recall.top.idAt(i)) >= 0) {
+                found++;
+            }
+        }
+        recall.hits += found;
+        recall.misses += exactHandles[q].length - found;
+        return recall.top;
+    }
+
+    // Does not depend on the LSH parameters; run with -p tables=8 -p bits=12 -p multiProbe=true
+    // to measure it once.
+    @Benchmark
+    public TopK exact(Recall recall) {
+        index.exactQuery(queries[recall.nextQuery()], recall.top);
+        return recall.top;
+    }
+}
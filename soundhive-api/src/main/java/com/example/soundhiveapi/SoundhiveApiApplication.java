@@ -9,11 +9,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.List;
-import java.util.PriorityQueue;
 
 @SpringBootApplication
+@EnableScheduling
 public class SoundhiveApiApplication implements CommandLineRunner {
 
 	@Autowired
@@ -38,14 +39,10 @@ public class SoundhiveApiApplication implements CommandLineRunner {
 			return;
 		}
 
-		// Build the user x tag weights matrix.
-		double[][] matrix = myJdbcService.getUserTagWeightsMatrix();
-		// Retrieve distinct user IDs.
-		List<String> distinctUserIds = myJdbcService.getDistinctUserIds();
-		// Retrieve all tags (order must match matrix columns).
+		// Retrieve all tags (ordered by tag ID, same as the vector positions).
 		List<Tag> allTags = myJdbcService.getAllTags();
 
-		//Retrieve user tag - weight vector
+		//Retrieve user tag - weight vector (the first profile read loads the in-memory matrix)
 		double[] vec = myJdbcService.getUserTagWeightsArray(user.getIdNumber());
 		for (int i = 0; i < allTags.size(); i++) {
 			System.out.println(
@@ -55,13 +52,13 @@ public class SoundhiveApiApplication implements CommandLineRunner {
 			);
 		}
 
-		// Retrieve a max-heap (priority queue) of tag weights for the user.
-		PriorityQueue<TagWeight> maxHeap = myJdbcService.getUserTagMaxHeap(user.getIdNumber(), matrix, distinctUserIds, allTags);
+		// Retrieve the user's TOP_N tags by weight.
+		List<TagWeight> topTags = myJdbcService.getUserTopTags(user.getIdNumber(), TOP_N);
 
 		// Print the top TOP_N tags by weight.
 		System.out.println("Top " + TOP_N + " tags for user " + user.getUsername() + ":");
-//		for (int i = 0; i < TOP_N && !maxHeap.isEmpty(); i++) {
-//			System.out.println(maxHeap.poll());
-//		}
+		for (TagWeight tagWeight : topTags) {
+			System.out.println(tagWeight);
+		}
 	}
 }
@@ -2,12 +2,23 @@ package com.example.soundhiveapi.controller;
 
 import com.example.soundhiveapi.model.Tag;
 import com.example.soundhiveapi.model.Song;
+import com.example.soundhiveapi.repository.PlayLogRepository.SongDayPlays;
+import com.example.soundhiveapi.service.CatalogCache;
 import com.example.soundhiveapi.service.MyJdbcService;
+import com.example.soundhiveapi.service.RelatedTagsService;
+import com.example.soundhiveapi.service.RelatedTagsService.RelatedTag;
+import com.example.soundhiveapi.service.SongSearchService;
+import com.example.soundhiveapi.service.TrendingService;
+import com.example.soundhiveapi.service.TrendingService.TrendingSong;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -16,6 +27,21 @@ public class DataController {
     @Autowired
     private MyJdbcService myJdbcService;
 
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private RelatedTagsService relatedTagsService;
+
+    @Autowired
+    private SongSearchService songSearchService;
+
+    @Value("${soundhive.search.max-limit:100}")
+    private int maxSearchLimit;
+
+    @Autowired
+    private TrendingService trendingService;
+
     // Endpoint to get all tags
     @GetMapping("/tags")
     public ResponseEntity<List<Tag>> getAllTags() {
@@ -23,6 +49,31 @@ public class DataController {
         return ResponseEntity.ok(tags);
     }
 
+    // Endpoint to get the k tags most related to a tag (shared songs and shared listeners)
+    @GetMapping("/tags/{id}/related")
+    public ResponseEntity<List<RelatedTag>> getRelatedTags(@PathVariable int id,
+                                                           @RequestParam(defaultValue = "10") int k) {
+        if (k <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<RelatedTag> related = relatedTagsService.findRelated(id, k);
+        if (related == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(related);
+    }
+
+    // Endpoint for typeahead search: songs whose title/artist words start with the query's words,
+    // most played first
+    @GetMapping("/songs/search")
+    public ResponseEntity<List<Song>> searchSongs(@RequestParam(defaultValue = "") String q,
+                                                  @RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(songSearchService.search(q, Math.min(limit, maxSearchLimit)));
+    }
+
     // Endpoint to get a song by its ID
     @GetMapping("/songs/{id}")
     public ResponseEntity<Song> getSongById(@PathVariable int id) {
@@ -33,4 +84,36 @@ public class DataController {
         return ResponseEntity.notFound().build();
     }
 
+    // Endpoint to get a song's plays per day over the last `days` days
+    @GetMapping("/songs/{id}/plays")
+    public ResponseEntity<List<SongDayPlays>> getSongDailyPlays(@PathVariable int id,
+                                                                @RequestParam(defaultValue = "30") int days) {
+        if (days <= 0 || days > 366) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(myJdbcService.getSongDailyPlays(id, days));
+    }
+
+    // Endpoint to get the k songs played most over a recent window (e.g. 15m, 1h, 1d)
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingSong>> getTrending(@RequestParam(defaultValue = "1h") String window,
+                                                          @RequestParam(defaultValue = "10") int k) {
+        Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (k <= 0 || k > trendingService.getMaxK() || duration.isNegative() || duration.isZero()
+                || duration.compareTo(trendingService.getMaxWindow()) > 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(trendingService.trending(duration, k));
+    }
+
+    // Endpoint to get hit / miss / eviction counters of the catalog caches
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Map<String, Number>>> getCacheStats() {
+        return ResponseEntity.ok(catalogCache.stats());
+    }
 }
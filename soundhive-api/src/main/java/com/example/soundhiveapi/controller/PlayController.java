@@ -0,0 +1,105 @@
+package com.example.soundhiveapi.controller;
+
+import com.example.soundhiveapi.service.MyJdbcService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api")
+public class PlayController {
+
+    // Seconds a client should wait before retrying when the ingestion queue is full.
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    // Accepted range of playedAt around the time the request is received.
+    private static final long MAX_PLAY_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final long MAX_CLOCK_SKEW_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    @Autowired
+    private MyJdbcService myJdbcService;
+
+    // Endpoint to record a single play
+    @PostMapping("/plays")
+    public ResponseEntity<Map<String, Integer>> recordPlay(@RequestBody PlayRequest play) {
+        if (!isValid(play, System.currentTimeMillis())) {
+            return ResponseEntity.badRequest().build();
+        }
+        return accepted(record(play) ? 1 : 0, 1);
+    }
+
+    // Endpoint to record many plays at once. Plays are queued in order; if the queue fills up,
+    // the response says how many were accepted so the client can resend the rest.
+    @PostMapping("/plays/batch")
+    public ResponseEntity<Map<String, Integer>> recordPlays(@RequestBody List<PlayRequest> plays) {
+        long now = System.currentTimeMillis();
+        for (PlayRequest play : plays) {
+            if (!isValid(play, now)) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        int accepted = 0;
+        while (accepted < plays.size() && record(plays.get(accepted))) {
+            accepted++;
+        }
+        return accepted(accepted, plays.size());
+    }
+
+    // A user and a song are required; playedAt, when given, must be within the last
+    // MAX_PLAY_AGE_MILLIS and not ahead of the server clock by more than MAX_CLOCK_SKEW_MILLIS.
+    private static boolean isValid(PlayRequest play, long now) {
+        if (play == null || play.getUserId() == null || play.getUserId().isEmpty()
+                || play.getSongId() == null || play.getSongId() <= 0) {
+            return false;
+        }
+        Long playedAt = play.getPlayedAt();
+        return playedAt == null || (playedAt >= now - MAX_PLAY_AGE_MILLIS && playedAt <= now + MAX_CLOCK_SKEW_MILLIS);
+    }
+
+    private boolean record(PlayRequest play) {
+        long playedAt = play.getPlayedAt() != null ? play.getPlayedAt() : System.currentTimeMillis();
+        return myJdbcService.recordPlay(play.getUserId(), play.getSongId(), playedAt);
+    }
+
+    private static ResponseEntity<Map<String, Integer>> accepted(int accepted, int total) {
+        Map<String, Integer> body = Map.of("accepted", accepted);
+        if (accepted < total) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body(body);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+    }
+}
+
+// DTO class for a recorded play
+class PlayRequest {
+    private String userId;
+    private Integer songId;
+    private Long playedAt; // epoch milliseconds, defaults to the time the request is received
+
+    public String getUserId() {
+        return userId;
+    }
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    public Integer getSongId() {
+        return songId;
+    }
+    public void setSongId(Integer songId) {
+        this.songId = songId;
+    }
+    public Long getPlayedAt() {
+        return playedAt;
+    }
+    public void setPlayedAt(Long playedAt) {
+        this.playedAt = playedAt;
+    }
+}
@@ -1,12 +1,23 @@
 package com.example.soundhiveapi.controller;
 
+import com.example.soundhiveapi.model.Song;
 import com.example.soundhiveapi.model.User;
+import com.example.soundhiveapi.service.HomeService;
+import com.example.soundhiveapi.service.HomeService.HomeScreen;
 import com.example.soundhiveapi.service.MyJdbcService;
+import com.example.soundhiveapi.service.MyJdbcService.TagWeight;
+import com.example.soundhiveapi.service.RecommendationCache;
+import com.example.soundhiveapi.service.RecommendationService.Recommendation;
+import com.example.soundhiveapi.service.SimilarUsersService;
+import com.example.soundhiveapi.service.SimilarUsersService.SimilarUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api")
 public class UserController {
@@ -14,6 +25,21 @@ public class UserController {
     @Autowired
     private MyJdbcService myJdbcService;
 
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Autowired
+    private SimilarUsersService similarUsersService;
+
+    @Autowired
+    private HomeService homeService;
+
+    @Value("${soundhive.recommend.max-k:200}")
+    private int maxRecommendations;
+
+    @Value("${soundhive.similar-users.max-k:100}")
+    private int maxSimilarUsers;
+
     // Login endpoint
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
@@ -23,6 +49,53 @@ public class UserController {
         }
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid credentials");
     }
+
+    // Endpoint to get a user's k highest-weighted tags
+    @GetMapping("/users/{id}/top-tags")
+    public ResponseEntity<List<TagWeight>> getTopTags(@PathVariable String id,
+                                                      @RequestParam(defaultValue = "5") int k) {
+        if (k <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(myJdbcService.getUserTopTags(id, k));
+    }
+
+    // Endpoint to get the user's last 20 played songs, most recent first
+    @GetMapping("/users/{id}/recent")
+    public ResponseEntity<List<Song>> getRecentSongs(@PathVariable String id) {
+        return ResponseEntity.ok(myJdbcService.getUserPlayEvents(id));
+    }
+
+    // Endpoint to get k recommended songs the user has not played yet
+    @GetMapping("/users/{id}/recommendations")
+    public ResponseEntity<List<Recommendation>> getRecommendations(@PathVariable String id,
+                                                                   @RequestParam(defaultValue = "10") int k) {
+        if (k <= 0 || k > maxRecommendations) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(recommendationCache.get(id, k));
+    }
+
+    // Endpoint to get everything the home screen shows (profile, top tags, recent plays,
+    // recommendations) in one call; sections that were too slow are listed in "missing"
+    @GetMapping("/users/{id}/home")
+    public ResponseEntity<HomeScreen> getHome(@PathVariable String id) {
+        HomeScreen home = homeService.getHome(id);
+        if (home == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(home);
+    }
+
+    // Endpoint to get the k users with the most similar tag weights
+    @GetMapping("/users/{id}/similar")
+    public ResponseEntity<List<SimilarUser>> getSimilarUsers(@PathVariable String id,
+                                                             @RequestParam(defaultValue = "10") int k) {
+        if (k <= 0 || k > maxSimilarUsers) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(similarUsersService.findSimilar(id, k));
+    }
 }
 
 // DTO class for login request
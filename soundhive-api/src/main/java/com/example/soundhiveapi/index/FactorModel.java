@@ -0,0 +1,171 @@
+package com.example.soundhiveapi.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+// Trained latent factors: one float vector per user and per song, stored row-major in flat arrays.
+// The predicted affinity of a user for a song is the dot product of their vectors.
+// Next to the factors it keeps each user's best candidatesPerUser songs they had not played at
+// training time (song positions, best first, padded with -1), so a request scores that short
+// list instead of the whole catalog.
+//
+// File format (big-endian): "SHMF", format version, factors, user count, song count, each user ID
+// (modified UTF-8), each song ID (int, ascending), user factors, song factors (floats),
+// candidates per user, candidate song positions (ints).
+public class FactorModel {
+
+    private static final int MAGIC = 0x53484D46; // "SHMF"
+    private static final int FORMAT_VERSION = 2;
+
+    private final int factors;
+    private final IdDictionary users;
+    private final int[] songIds;
+    private final float[] userFactors;
+    private final float[] songFactors;
+    private final int candidatesPerUser;
+    private final int[] candidates;
+
+    public FactorModel(int factors, IdDictionary users, int[] songIds, float[] userFactors, float[] songFactors,
+                       int candidatesPerUser, int[] candidates) {
+        if (userFactors.length != users.size() * factors || songFactors.length != songIds.length * factors) {
+            throw new IllegalArgumentException("factor arrays do not match the user and song counts");
+        }
+        if (candidates.length != users.size() * candidatesPerUser) {
+            throw new IllegalArgumentException("candidate array does not match the user count");
+        }
+        this.factors = factors;
+        this.users = users;
+        this.songIds = songIds;
+        this.userFactors = userFactors;
+        this.songFactors = songFactors;
+        this.candidatesPerUser = candidatesPerUser;
+        this.candidates = candidates;
+    }
+
+    public int getFactors() {
+        return factors;
+    }
+
+    public int getCandidatesPerUser() {
+        return candidatesPerUser;
+    }
+
+    public int numUsers() {
+        return users.size();
+    }
+
+    public int numSongs() {
+        return songIds.length;
+    }
+
+    // Row of the user, or -1 if they had no plays when the model was trained.
+    public int userRowOf(String userId) {
+        return users.indexOf(userId);
+    }
+
+    // Position of the song, or -1 if it had no plays when the model was trained.
+    public int songPositionOf(int songId) {
+        int pos = Arrays.binarySearch(songIds, songId);
+        return pos >= 0 ? pos : -1;
+    }
+
+    public int songIdAt(int pos) {
+        return songIds[pos];
+    }
+
+    public double score(int userRow, int songPos) {
+        int u = userRow * factors;
+        int s = songPos * factors;
+        double sum = 0;
+        for (int f = 0; f < factors; f++) {
+            sum += userFactors[u + f] * songFactors[s + f];
+        }
+        return sum;
+    }
+
+    // Offers the user's precomputed candidates except the sorted excludedSongIds to top; leaves top
+    // sorted best first. Costs candidatesPerUser dot products whatever the catalog size.
+    public void topSongs(int userRow, int[] excludedSongIds, TopK top) {
+        int end = (userRow + 1) * candidatesPerUser;
+        for (int i = userRow * candidatesPerUser; i < end && candidates[i] >= 0; i++) {
+            int pos = candidates[i];
+            if (excludedSongIds == null || Arrays.binarySearch(excludedSongIds, songIds[pos]) < 0) {
+                top.offer(pos, score(userRow, pos));
+            }
+        }
+        top.sortDescending();
+    }
+
+    // Writes to a temporary file next to path and renames it, so readers never see a partial file.
+    public void write(Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(factors);
+            out.writeInt(users.size());
+            out.writeInt(songIds.length);
+            for (int u = 0; u < users.size(); u++) {
+                out.writeUTF(users.get(u));
+            }
+            for (int songId : songIds) {
+                out.writeInt(songId);
+            }
+            for (float v : userFactors) {
+                out.writeFloat(v);
+            }
+            for (float v : songFactors) {
+                out.writeFloat(v);
+            }
+            out.writeInt(candidatesPerUser);
+            for (int pos : candidates) {
+                out.writeInt(pos);
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static FactorModel read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a factor model file");
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported factor model version " + version + " in " + path);
+            }
+            int factors = in.readInt();
+            int numUsers = in.readInt();
+            int numSongs = in.readInt();
+            IdDictionary users = new IdDictionary(numUsers);
+            for (int u = 0; u < numUsers; u++) {
+                users.intern(in.readUTF());
+            }
+            int[] songIds = new int[numSongs];
+            for (int s = 0; s < numSongs; s++) {
+                songIds[s] = in.readInt();
+            }
+            float[] userFactors = new float[numUsers * factors];
+            for (int i = 0; i < userFactors.length; i++) {
+                userFactors[i] = in.readFloat();
+            }
+            float[] songFactors = new float[numSongs * factors];
+            for (int i = 0; i < songFactors.length; i++) {
+                songFactors[i] = in.readFloat();
+            }
+            int candidatesPerUser = in.readInt();
+            int[] candidates = new int[numUsers * candidatesPerUser];
+            for (int i = 0; i < candidates.length; i++) {
+                candidates[i] = in.readInt();
+            }
+            return new FactorModel(factors, users, songIds, userFactors, songFactors, candidatesPerUser, candidates);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.soundhiveapi.index;
+
+import java.util.Arrays;
+
+// Interns String ids (e.g. a user's idNumber) into dense int handles 0..size-1.
+// Open addressing with linear probing, so a lookup is one hash plus a few array reads
+// and no boxed Integer is created per entry.
+public class IdDictionary implements IdLookup {
+
+    private String[] ids;   // handle -> id
+    private int[] slots;    // hash slot -> handle + 1 (0 = empty)
+    private int size;
+
+    public IdDictionary() {
+        this(16);
+    }
+
+    public IdDictionary(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        this.ids = new String[Math.max(4, expectedSize)];
+        this.slots = new int[capacity];
+    }
+
+    // Returns the handle of the id, adding it if it has not been seen yet.
+    public int intern(String id) {
+        int mask = slots.length - 1;
+        int slot = mix(id.hashCode()) & mask;
+        while (slots[slot] != 0) {
+            int handle = slots[slot] - 1;
+            if (ids[handle].equals(id)) {
+                return handle;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int handle = size++;
+        if (handle == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+        }
+        ids[handle] = id;
+        slots[slot] = handle + 1;
+        if (size * 2 > slots.length) {
+            rehash(slots.length << 1);
+        }
+        return handle;
+    }
+
+    @Override
+    public int indexOf(String id) {
+        if (id == null) {
+            return -1;
+        }
+        int mask = slots.length - 1;
+        int slot = mix(id.hashCode()) & mask;
+        while (slots[slot] != 0) {
+            int handle = slots[slot] - 1;
+            if (ids[handle].equals(id)) {
+                return handle;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public String get(int handle) {
+        if (handle < 0 || handle >= size) {
+            throw new IndexOutOfBoundsException("handle " + handle + " of " + size);
+        }
+        return ids[handle];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] newSlots = new int[newCapacity];
+        int mask = newCapacity - 1;
+        for (int handle = 0; handle < size; handle++) {
+            int slot = mix(ids[handle].hashCode()) & mask;
+            while (newSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newSlots[slot] = handle + 1;
+        }
+        slots = newSlots;
+    }
+
+    // Spreads String.hashCode() so sequential ids don't cluster in neighbouring slots.
+    // Also used for the slot table of snapshot files, so it must not change between versions.
+    static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.soundhiveapi.index;
+
+// Read side of a String id <-> dense int handle mapping: IdDictionary on the heap, or
+// MappedIdDictionary over a snapshot file.
+public interface IdLookup {
+
+    // Returns the handle of the id, or -1 if it is unknown.
+    int indexOf(String id);
+
+    String get(int handle);
+
+    int size();
+}
@@ -0,0 +1,289 @@
+package com.example.soundhiveapi.index;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+// Alternating least squares for implicit feedback (Hu, Koren & Volinsky): every play is a
+// positive with confidence 1 + alpha, every other (user, song) pair a weak negative.
+// Each half-iteration fixes one side and solves an independent factors x factors system per row,
+// so rows are split across a ForkJoin pool; all state is in flat float / double arrays.
+// Training ends by picking each user's best unplayed songs, so serving never has to scan the
+// catalog. Songs are visited in descending factor norm and a user's scan stops once |song| * |user|
+// cannot beat the user's current candidatesPerUser-th score (Cauchy-Schwarz), so the result is
+// exact without scoring every (user, song) pair.
+public class ImplicitAlsTrainer {
+
+    // Rows per ForkJoin leaf task.
+    private static final int LEAF_ROWS = 256;
+
+    private final int factors;
+    private final int iterations;
+    private final double regularization;
+    private final double alpha;
+    private final long seed;
+    private final int candidatesPerUser;
+
+    public ImplicitAlsTrainer(int factors, int iterations, double regularization, double alpha, long seed,
+                              int candidatesPerUser) {
+        this.factors = factors;
+        this.iterations = iterations;
+        this.regularization = regularization;
+        this.alpha = alpha;
+        this.seed = seed;
+        this.candidatesPerUser = candidatesPerUser;
+    }
+
+    public FactorModel train(InteractionMatrix plays, ForkJoinPool pool) {
+        int numUsers = plays.numUsers();
+        int numSongs = plays.numSongs();
+        float[] userFactors = new float[numUsers * factors];
+        float[] songFactors = new float[numSongs * factors];
+        Random random = new Random(seed);
+        double scale = 1.0 / Math.sqrt(factors);
+        for (int i = 0; i < songFactors.length; i++) {
+            songFactors[i] = (float) (random.nextGaussian() * scale * 0.1);
+        }
+        for (int it = 0; it < iterations; it++) {
+            solve(plays, true, userFactors, numUsers, songFactors, numSongs, pool);
+            solve(plays, false, songFactors, numSongs, userFactors, numUsers, pool);
+        }
+        int[] candidates = new int[numUsers * candidatesPerUser];
+        pool.invoke(new CandidateTask(plays, userFactors, new NormOrder(songFactors, numSongs), candidates, 0,
+                numUsers));
+        return new FactorModel(factors, plays.getUsers(), plays.getSongIds(), userFactors, songFactors,
+                candidatesPerUser, candidates);
+    }
+
+    // Recomputes every row of target with the other side held fixed.
+    private void solve(InteractionMatrix plays, boolean byUser, float[] target, int targetRows,
+                       float[] fixed, int fixedRows, ForkJoinPool pool) {
+        double[] gram = pool.invoke(new GramTask(fixed, 0, fixedRows));
+        pool.invoke(new SolveTask(plays, byUser, target, fixed, gram, 0, targetRows));
+    }
+
+    // Sum of y yT over the rows of the fixed side, shared by every row's system.
+    private class GramTask extends RecursiveTask<double[]> {
+        private final float[] vectors;
+        private final int from;
+        private final int to;
+
+        GramTask(float[] vectors, int from, int to) {
+            this.vectors = vectors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (to - from > LEAF_ROWS * 16) {
+                int mid = (from + to) >>> 1;
+                GramTask left = new GramTask(vectors, from, mid);
+                left.fork();
+                double[] right = new GramTask(vectors, mid, to).compute();
+                double[] sum = left.join();
+                for (int i = 0; i < sum.length; i++) {
+                    sum[i] += right[i];
+                }
+                return sum;
+            }
+            double[] gram = new double[factors * factors];
+            for (int row = from; row < to; row++) {
+                addOuter(gram, vectors, row * factors, 1.0);
+            }
+            return gram;
+        }
+    }
+
+    private class SolveTask extends RecursiveAction {
+        private final InteractionMatrix plays;
+        private final boolean byUser;
+        private final float[] target;
+        private final float[] fixed;
+        private final double[] gram;
+        private final int from;
+        private final int to;
+
+        SolveTask(InteractionMatrix plays, boolean byUser, float[] target, float[] fixed, double[] gram,
+                  int from, int to) {
+            this.plays = plays;
+            this.byUser = byUser;
+            this.target = target;
+            this.fixed = fixed;
+            this.gram = gram;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_ROWS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SolveTask(plays, byUser, target, fixed, gram, from, mid),
+                        new SolveTask(plays, byUser, target, fixed, gram, mid, to));
+                return;
+            }
+            double[] a = new double[factors * factors];
+            double[] b = new double[factors];
+            for (int row = from; row < to; row++) {
+                int start = byUser ? plays.userStart(row) : plays.songStart(row);
+                int end = byUser ? plays.userEnd(row) : plays.songEnd(row);
+                // A = YtY + alpha * sum(y yT) + lambda I, b = (1 + alpha) * sum(y) over played items
+                System.arraycopy(gram, 0, a, 0, a.length);
+                Arrays.fill(b, 0);
+                for (int i = start; i < end; i++) {
+                    int other = (byUser ? plays.userSongAt(i) : plays.songUserAt(i)) * factors;
+                    addOuter(a, fixed, other, alpha);
+                    for (int f = 0; f < factors; f++) {
+                        b[f] += (1 + alpha) * fixed[other + f];
+                    }
+                }
+                for (int f = 0; f < factors; f++) {
+                    a[f * factors + f] += regularization;
+                }
+                choleskySolve(a, b, factors);
+                for (int f = 0; f < factors; f++) {
+                    target[row * factors + f] = (float) b[f];
+                }
+            }
+        }
+    }
+
+    // Song factors copied in descending norm order, so the candidate scan reads them sequentially.
+    private class NormOrder {
+        final int[] positions;
+        final float[] vectors;
+        final double[] norms;
+
+        NormOrder(float[] songFactors, int numSongs) {
+            double[] norm = new double[numSongs];
+            for (int pos = 0; pos < numSongs; pos++) {
+                norm[pos] = Math.sqrt(dot(songFactors, pos * factors, songFactors, pos * factors));
+            }
+            positions = IntStream.range(0, numSongs).boxed()
+                    .sorted((a, b) -> Double.compare(norm[b], norm[a]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            vectors = new float[numSongs * factors];
+            norms = new double[numSongs];
+            for (int i = 0; i < numSongs; i++) {
+                System.arraycopy(songFactors, positions[i] * factors, vectors, i * factors, factors);
+                norms[i] = norm[positions[i]];
+            }
+        }
+    }
+
+    // Writes each user's candidatesPerUser best-scoring songs outside their plays into candidates,
+    // best first, padding with -1 when they have played nearly everything.
+    private class CandidateTask extends RecursiveAction {
+        private final InteractionMatrix plays;
+        private final float[] userFactors;
+        private final NormOrder songs;
+        private final int[] candidates;
+        private final int from;
+        private final int to;
+
+        CandidateTask(InteractionMatrix plays, float[] userFactors, NormOrder songs, int[] candidates,
+                      int from, int to) {
+            this.plays = plays;
+            this.userFactors = userFactors;
+            this.songs = songs;
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_ROWS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new CandidateTask(plays, userFactors, songs, candidates, from, mid),
+                        new CandidateTask(plays, userFactors, songs, candidates, mid, to));
+                return;
+            }
+            int numSongs = plays.numSongs();
+            // playedBy[pos] == row marks the songs of the current row, so it never needs clearing
+            int[] playedBy = new int[numSongs];
+            Arrays.fill(playedBy, -1);
+            TopK top = new TopK(Math.max(1, candidatesPerUser));
+            for (int row = from; row < to; row++) {
+                for (int i = plays.userStart(row); i < plays.userEnd(row); i++) {
+                    playedBy[plays.userSongAt(i)] = row;
+                }
+                top.reset();
+                int u = row * factors;
+                // a little slack so float rounding in the bound never stops the scan too early
+                double userNorm = Math.sqrt(dot(userFactors, u, userFactors, u)) * (1 + 1e-6);
+                for (int i = 0; i < numSongs; i++) {
+                    if (songs.norms[i] * userNorm < top.threshold()) {
+                        break;
+                    }
+                    int pos = songs.positions[i];
+                    if (playedBy[pos] != row) {
+                        top.offer(pos, dot(userFactors, u, songs.vectors, i * factors));
+                    }
+                }
+                top.sortDescending();
+                int base = row * candidatesPerUser;
+                for (int i = 0; i < candidatesPerUser; i++) {
+                    candidates[base + i] = i < top.size() ? top.idAt(i) : -1;
+                }
+            }
+        }
+    }
+
+    private double dot(float[] a, int aOffset, float[] b, int bOffset) {
+        double sum = 0;
+        for (int f = 0; f < factors; f++) {
+            sum += a[aOffset + f] * b[bOffset + f];
+        }
+        return sum;
+    }
+
+    // m += weight * v vT for the vector starting at offset; only the lower triangle is used.
+    private void addOuter(double[] m, float[] vectors, int offset, double weight) {
+        for (int i = 0; i < factors; i++) {
+            double vi = vectors[offset + i] * weight;
+            int rowStart = i * factors;
+            for (int j = 0; j <= i; j++) {
+                m[rowStart + j] += vi * vectors[offset + j];
+            }
+        }
+    }
+
+    // Solves A x = b for symmetric positive definite A (lower triangle), overwriting a and b.
+    static void choleskySolve(double[] a, double[] b, int n) {
+        for (int j = 0; j < n; j++) {
+            double diagonal = a[j * n + j];
+            for (int k = 0; k < j; k++) {
+                diagonal -= a[j * n + k] * a[j * n + k];
+            }
+            diagonal = Math.sqrt(diagonal);
+            a[j * n + j] = diagonal;
+            for (int i = j + 1; i < n; i++) {
+                double sum = a[i * n + j];
+                for (int k = 0; k < j; k++) {
+                    sum -= a[i * n + k] * a[j * n + k];
+                }
+                a[i * n + j] = sum / diagonal;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            double sum = b[i];
+            for (int k = 0; k < i; k++) {
+                sum -= a[i * n + k] * b[k];
+            }
+            b[i] = sum / a[i * n + i];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = b[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= a[k * n + i] * b[k];
+            }
+            b[i] = sum / a[i * n + i];
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.soundhiveapi.index;
+
+import java.util.Arrays;
+
+// Which songs each user has played, as two CSR adjacency lists (user -> song positions and
+// song -> user rows), for the factorization trainer. Users are rows of an IdDictionary, songs are
+// positions in the sorted songIds array.
+public class InteractionMatrix {
+
+    private final IdDictionary users;
+    private final int[] songIds;
+    private final int[] userPtr;
+    private final int[] userSongs;
+    private final int[] songPtr;
+    private final int[] songUsers;
+
+    private InteractionMatrix(IdDictionary users, int[] songIds, int[] userPtr, int[] userSongs,
+                              int[] songPtr, int[] songUsers) {
+        this.users = users;
+        this.songIds = songIds;
+        this.userPtr = userPtr;
+        this.userSongs = userSongs;
+        this.songPtr = songPtr;
+        this.songUsers = songUsers;
+    }
+
+    public int numUsers() {
+        return users.size();
+    }
+
+    public int numSongs() {
+        return songIds.length;
+    }
+
+    public long nnz() {
+        return userSongs.length;
+    }
+
+    public IdDictionary getUsers() {
+        return users;
+    }
+
+    public int[] getSongIds() {
+        return songIds;
+    }
+
+    public int userStart(int row) {
+        return userPtr[row];
+    }
+
+    public int userEnd(int row) {
+        return userPtr[row + 1];
+    }
+
+    public int userSongAt(int i) {
+        return userSongs[i];
+    }
+
+    public int songStart(int pos) {
+        return songPtr[pos];
+    }
+
+    public int songEnd(int pos) {
+        return songPtr[pos + 1];
+    }
+
+    public int songUserAt(int i) {
+        return songUsers[i];
+    }
+
+    // Collects (user, song) pairs in any order; duplicates are kept.
+    public static class Builder {
+        private final IdDictionary users;
+        private int[] rows;
+        private int[] songs;
+        private int size;
+
+        public Builder() {
+            this(1024);
+        }
+
+        public Builder(int expectedPairs) {
+            this.users = new IdDictionary();
+            this.rows = new int[Math.max(expectedPairs, 16)];
+            this.songs = new int[rows.length];
+        }
+
+        public Builder add(String userId, int songId) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                songs = Arrays.copyOf(songs, size * 2);
+            }
+            rows[size] = users.intern(userId);
+            songs[size] = songId;
+            size++;
+            return this;
+        }
+
+        public InteractionMatrix build() {
+            int[] songIds = Arrays.copyOf(songs, size);
+            Arrays.sort(songIds);
+            int distinct = 0;
+            for (int i = 0; i < songIds.length; i++) {
+                if (distinct == 0 || songIds[distinct - 1] != songIds[i]) {
+                    songIds[distinct++] = songIds[i];
+                }
+            }
+            songIds = Arrays.copyOf(songIds, distinct);
+
+            // replace song IDs with positions in place, then counting-sort both directions
+            for (int i = 0; i < size; i++) {
+                songs[i] = Arrays.binarySearch(songIds, songs[i]);
+            }
+            int numUsers = users.size();
+            int[] userPtr = new int[numUsers + 1];
+            int[] songPtr = new int[distinct + 1];
+            for (int i = 0; i < size; i++) {
+                userPtr[rows[i] + 1]++;
+                songPtr[songs[i] + 1]++;
+            }
+            for (int u = 0; u < numUsers; u++) {
+                userPtr[u + 1] += userPtr[u];
+            }
+            for (int s = 0; s < distinct; s++) {
+                songPtr[s + 1] += songPtr[s];
+            }
+            int[] userSongs = new int[size];
+            int[] songUsers = new int[size];
+            int[] userFill = Arrays.copyOf(userPtr, numUsers);
+            int[] songFill = Arrays.copyOf(songPtr, distinct);
+            for (int i = 0; i < size; i++) {
+                userSongs[userFill[rows[i]]++] = songs[i];
+                songUsers[songFill[songs[i]]++] = rows[i];
+            }
+            rows = null;
+            songs = null;
+            return new InteractionMatrix(users, songIds, userPtr, userSongs, songPtr, songUsers);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.soundhiveapi.index;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Read-only IdDictionary laid out in a snapshot file: UTF-8 id bytes, an offset per handle, and
+// the open-addressing slot table (hash slot -> handle + 1), probed the same way as IdDictionary.
+// Nothing is decoded up front; get() decodes one id on demand.
+class MappedIdDictionary implements IdLookup {
+
+    private final IntBuffer offsets; // size + 1 entries
+    private final ByteBuffer bytes;
+    private final IntBuffer slots;
+    private final int size;
+
+    MappedIdDictionary(IntBuffer offsets, ByteBuffer bytes, IntBuffer slots) {
+        this.offsets = offsets;
+        this.bytes = bytes;
+        this.slots = slots;
+        this.size = offsets.limit() - 1;
+    }
+
+    @Override
+    public int indexOf(String id) {
+        if (id == null) {
+            return -1;
+        }
+        byte[] wanted = id.getBytes(StandardCharsets.UTF_8);
+        int mask = slots.limit() - 1;
+        int slot = IdDictionary.mix(id.hashCode()) & mask;
+        int entry;
+        while ((entry = slots.get(slot)) != 0) {
+            int handle = entry - 1;
+            if (matches(handle, wanted)) {
+                return handle;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public String get(int handle) {
+        if (handle < 0 || handle >= size) {
+            throw new IndexOutOfBoundsException("handle " + handle + " of " + size);
+        }
+        int start = offsets.get(handle);
+        byte[] id = new byte[offsets.get(handle + 1) - start];
+        bytes.get(start, id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private boolean matches(int handle, byte[] wanted) {
+        int start = offsets.get(handle);
+        if (offsets.get(handle + 1) - start != wanted.length) {
+            return false;
+        }
+        for (int i = 0; i < wanted.length; i++) {
+            if (bytes.get(start + i) != wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
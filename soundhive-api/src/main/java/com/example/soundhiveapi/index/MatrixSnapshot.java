@@ -0,0 +1,298 @@
+package com.example.soundhiveapi.index;
+
+import com.example.soundhiveapi.model.Tag;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Binary snapshot of a UserTagMatrix with its tag and user dictionaries, written so that it can
+// be memory-mapped back and used in place: nothing is parsed or copied on load, pages are read
+// lazily by the OS and shared between processes mapping the same file.
+//
+// Layout (little-endian): a 64-byte header, then these sections, each padded to 8 bytes:
+//   tag ids int[tags], tag name offsets int[tags + 1], tag name bytes (UTF-8),
+//   user id offsets int[users + 1], user id bytes (UTF-8), user slot table int[slots],
+//   rowPtr int[users + 1], cols int[nnz], values double[nnz].
+// The header holds a format version, the counts, the data watermark and a CRC32C of the body.
+// Each section must stay under 2 GB (one mapping each).
+public class MatrixSnapshot {
+
+    private static final int MAGIC = 0x50554853; // "SHUP" read little-endian
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private final UserTagMatrix matrix;
+    private final long watermarkMillis;
+
+    private MatrixSnapshot(UserTagMatrix matrix, long watermarkMillis) {
+        this.matrix = matrix;
+        this.watermarkMillis = watermarkMillis;
+    }
+
+    public UserTagMatrix getMatrix() {
+        return matrix;
+    }
+
+    // Database time up to which the snapshot is known to be complete; rows updated after it
+    // must be caught up from the database.
+    public long getWatermarkMillis() {
+        return watermarkMillis;
+    }
+
+    // Writes to a temporary file next to path and renames it, so a crash never leaves a partial
+    // snapshot and processes that mapped the old file keep their (unlinked) copy.
+    public static void write(UserTagMatrix matrix, long watermarkMillis, Path path) throws IOException {
+        TagIndex tags = matrix.getTags();
+        int numTags = tags.size();
+        int numUsers = matrix.numUsers();
+        int nnz = matrix.nnz();
+        int slotCapacity = slotCapacity(numUsers);
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            SectionWriter out = new SectionWriter(channel, HEADER_SIZE);
+
+            byte[][] tagNames = new byte[numTags][];
+            int tagNameBytes = 0;
+            for (int c = 0; c < numTags; c++) {
+                tagNames[c] = tags.tagNameAt(c) == null ? new byte[0] : tags.tagNameAt(c).getBytes(StandardCharsets.UTF_8);
+                tagNameBytes += tagNames[c].length;
+            }
+            for (int c = 0; c < numTags; c++) {
+                out.putInt(tags.tagIdAt(c));
+            }
+            out.align();
+            int offset = 0;
+            for (int c = 0; c <= numTags; c++) {
+                out.putInt(offset);
+                offset += c < numTags ? tagNames[c].length : 0;
+            }
+            out.align();
+            for (byte[] name : tagNames) {
+                out.putBytes(name);
+            }
+            out.align();
+
+            // user ids: offsets, then bytes, then the slot table
+            int[] slots = new int[slotCapacity];
+            offset = 0;
+            out.putInt(0);
+            for (int r = 0; r < numUsers; r++) {
+                String id = matrix.userIdAt(r);
+                offset += id.getBytes(StandardCharsets.UTF_8).length;
+                out.putInt(offset);
+                int slot = IdDictionary.mix(id.hashCode()) & (slotCapacity - 1);
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & (slotCapacity - 1);
+                }
+                slots[slot] = r + 1;
+            }
+            int idBytes = offset;
+            out.align();
+            for (int r = 0; r < numUsers; r++) {
+                out.putBytes(matrix.userIdAt(r).getBytes(StandardCharsets.UTF_8));
+            }
+            out.align();
+            for (int slot : slots) {
+                out.putInt(slot);
+            }
+            out.align();
+
+            for (int r = 0; r <= numUsers; r++) {
+                out.putInt(matrix.rowPtrBuffer().get(r));
+            }
+            out.align();
+            for (int i = 0; i < nnz; i++) {
+                out.putInt(matrix.colAt(i));
+            }
+            out.align();
+            for (int i = 0; i < nnz; i++) {
+                out.putDouble(matrix.valueAt(i));
+            }
+            out.align();
+            long bodyLength = out.finish();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION)
+                    .putInt(numTags).putInt(numUsers).putInt(nnz).putInt(slotCapacity)
+                    .putInt(idBytes).putInt(tagNameBytes)
+                    .putLong(watermarkMillis).putLong(bodyLength)
+                    .putInt((int) out.checksum());
+            header.clear();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Maps the snapshot. With verifyChecksum the whole body is read once to check the CRC;
+    // without it only the header is read and pages are faulted in as rows are used.
+    public static MatrixSnapshot map(Path path, boolean verifyChecksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(path + " is too short to be a snapshot");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a user profile snapshot");
+            }
+            int version = header.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format " + version + " in " + path);
+            }
+            int numTags = header.getInt();
+            int numUsers = header.getInt();
+            int nnz = header.getInt();
+            int slotCapacity = header.getInt();
+            int idBytes = header.getInt();
+            int tagNameBytes = header.getInt();
+            long watermarkMillis = header.getLong();
+            long bodyLength = header.getLong();
+            int checksum = header.getInt();
+            if (channel.size() != HEADER_SIZE + bodyLength) {
+                throw new IOException(path + " is truncated: expected " + (HEADER_SIZE + bodyLength)
+                        + " bytes, found " + channel.size());
+            }
+            if (verifyChecksum && checksum != (int) checksum(channel, bodyLength)) {
+                throw new IOException("Checksum mismatch in " + path);
+            }
+
+            SectionReader in = new SectionReader(channel, HEADER_SIZE);
+            ByteBuffer tagIds = in.next(4L * numTags);
+            ByteBuffer tagNameOffsets = in.next(4L * (numTags + 1));
+            ByteBuffer tagNames = in.next(tagNameBytes);
+            List<Tag> tagList = new ArrayList<>(numTags);
+            for (int c = 0; c < numTags; c++) {
+                int start = tagNameOffsets.getInt(4 * c);
+                byte[] name = new byte[tagNameOffsets.getInt(4 * (c + 1)) - start];
+                tagNames.get(start, name);
+                tagList.add(new Tag(tagIds.getInt(4 * c), new String(name, StandardCharsets.UTF_8)));
+            }
+
+            MappedIdDictionary users = new MappedIdDictionary(
+                    in.next(4L * (numUsers + 1)).asIntBuffer(),
+                    in.next(idBytes),
+                    in.next(4L * slotCapacity).asIntBuffer());
+            UserTagMatrix matrix = new UserTagMatrix(new TagIndex(tagList), users,
+                    in.next(4L * (numUsers + 1)).asIntBuffer(),
+                    in.next(4L * nnz).asIntBuffer(),
+                    in.next(8L * nnz).asDoubleBuffer());
+            return new MatrixSnapshot(matrix, watermarkMillis);
+        }
+    }
+
+    private static int slotCapacity(int size) {
+        return Integer.highestOneBit(Math.max(4, size * 2 - 1)) << 1;
+    }
+
+    private static long checksum(FileChannel channel, long bodyLength) throws IOException {
+        CRC32C crc = new CRC32C();
+        long chunk = 1L << 30;
+        for (long pos = 0; pos < bodyLength; pos += chunk) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + pos, Math.min(chunk, bodyLength - pos)));
+        }
+        return crc.getValue();
+    }
+
+    private static long padding(long position) {
+        return (8 - (position & 7)) & 7;
+    }
+
+    // Maps consecutive 8-byte aligned sections.
+    private static class SectionReader {
+        private final FileChannel channel;
+        private long position;
+
+        SectionReader(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        ByteBuffer next(long length) throws IOException {
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot section of " + length + " bytes is too large to map");
+            }
+            MappedByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            position += length + padding(length);
+            return section.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    // Buffered sequential writer that keeps a running CRC32C of everything it writes.
+    private static class SectionWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32C crc = new CRC32C();
+        private long written;
+
+        SectionWriter(FileChannel channel, long start) throws IOException {
+            this.channel = channel;
+            channel.position(start);
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(4);
+            buffer.putInt(v);
+        }
+
+        void putDouble(double v) throws IOException {
+            ensure(8);
+            buffer.putDouble(v);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            for (int i = 0; i < bytes.length; ) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), bytes.length - i);
+                buffer.put(bytes, i, n);
+                i += n;
+            }
+        }
+
+        void align() throws IOException {
+            for (long pad = padding(written + buffer.position()); pad > 0; pad--) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        long finish() throws IOException {
+            flush();
+            return written;
+        }
+
+        long checksum() {
+            return crc.getValue();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            written += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.soundhiveapi.index;
+
+import java.util.Arrays;
+
+// Tag IDs of a batch of songs, TAGS_PER_SONG ints per song in one flat array.
+// Songs are kept in ascending ID order; a slot holding MISSING has no tag.
+public class PackedSongTags {
+
+    public static final int TAGS_PER_SONG = 5;
+    public static final int MISSING = -1;
+
+    private final int[] songIds;
+    private final int[] tagIds;
+
+    // songIds must be sorted ascending and distinct.
+    public PackedSongTags(int[] songIds) {
+        this.songIds = songIds;
+        this.tagIds = new int[songIds.length * TAGS_PER_SONG];
+        Arrays.fill(tagIds, MISSING);
+    }
+
+    public int size() {
+        return songIds.length;
+    }
+
+    // Sets the tag at position 0..TAGS_PER_SONG-1 of a song in the batch; unknown songs are ignored.
+    public void set(int songId, int position, int tagId) {
+        int i = Arrays.binarySearch(songIds, songId);
+        if (i >= 0 && position >= 0 && position < TAGS_PER_SONG) {
+            tagIds[i * TAGS_PER_SONG + position] = tagId;
+        }
+    }
+
+    // True when all TAGS_PER_SONG tags of the song are present.
+    public boolean isComplete(int songId) {
+        int i = Arrays.binarySearch(songIds, songId);
+        if (i < 0) {
+            return false;
+        }
+        for (int p = 0; p < TAGS_PER_SONG; p++) {
+            if (tagIds[i * TAGS_PER_SONG + p] == MISSING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int tagIdAt(int songId, int position) {
+        int i = Arrays.binarySearch(songIds, songId);
+        return i >= 0 ? tagIds[i * TAGS_PER_SONG + position] : MISSING;
+    }
+}
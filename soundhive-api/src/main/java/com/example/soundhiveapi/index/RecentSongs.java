@@ -0,0 +1,52 @@
+package com.example.soundhiveapi.index;
+
+// Fixed-capacity ring buffer of one user's most recently played song IDs.
+// A replayed song moves to the front instead of appearing twice, matching user_playevents,
+// which keeps one row per (user, song).
+public class RecentSongs {
+
+    private final int[] ring;
+    private int head; // index of the most recent entry
+    private int size;
+
+    public RecentSongs(int capacity) {
+        this.ring = new int[capacity];
+    }
+
+    // songIds ordered most recent first; anything beyond the capacity is dropped.
+    public static RecentSongs of(int capacity, int[] songIds) {
+        RecentSongs recent = new RecentSongs(capacity);
+        for (int i = Math.min(songIds.length, capacity) - 1; i >= 0; i--) {
+            recent.push(songIds[i]);
+        }
+        return recent;
+    }
+
+    public synchronized void push(int songId) {
+        int capacity = ring.length;
+        // drop an earlier occurrence by shifting the newer entries one slot towards the tail
+        for (int i = 0; i < size; i++) {
+            if (ring[(head + i) % capacity] == songId) {
+                for (int j = i; j > 0; j--) {
+                    ring[(head + j) % capacity] = ring[(head + j - 1) % capacity];
+                }
+                ring[head] = songId;
+                return;
+            }
+        }
+        head = (head - 1 + capacity) % capacity;
+        ring[head] = songId;
+        if (size < capacity) {
+            size++;
+        }
+    }
+
+    // Most recent first.
+    public synchronized int[] toArray() {
+        int[] out = new int[size];
+        for (int i = 0; i < size; i++) {
+            out[i] = ring[(head + i) % ring.length];
+        }
+        return out;
+    }
+}
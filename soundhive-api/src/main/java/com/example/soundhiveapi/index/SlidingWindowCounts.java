@@ -0,0 +1,196 @@
+package com.example.soundhiveapi.index;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-song play counts over a sliding window, in a ring of fixed-length time buckets. A bucket
+// being written counts in a ConcurrentHashMap of LongAdders, so concurrent plays of the same song
+// add to different cells instead of contending on one counter, and no lock is taken. Once a bucket
+// is more than one bucket old nobody should be writing it any more, and compact() freezes it into
+// sorted arrays (plays for a frozen bucket are rejected as late). A bucket's slot in the ring is
+// reused when its time comes round again, which drops the old counts.
+// Windows are whole buckets ending at the last completed one, so a window's totals only change
+// when a bucket completes.
+public class SlidingWindowCounts {
+
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    public SlidingWindowCounts(long bucketMillis, int numBuckets) {
+        if (bucketMillis <= 0 || numBuckets < 3) {
+            throw new IllegalArgumentException("Need a positive bucket length and at least 3 buckets");
+        }
+        this.bucketMillis = bucketMillis;
+        // two extra: the bucket being written and the one waiting to be compacted
+        this.ring = new AtomicReferenceArray<>(numBuckets + 2);
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    // Longest window top() can sum, in buckets.
+    public int maxWindowBuckets() {
+        return ring.length() - 2;
+    }
+
+    public long slotAt(long timeMillis) {
+        return Math.floorDiv(timeMillis, bucketMillis);
+    }
+
+    // Counts one play at timeMillis (plays from the future count now). Returns false if the play
+    // is too old for the window or its bucket is already compacted.
+    public boolean add(int songId, long timeMillis, long nowMillis) {
+        long now = slotAt(nowMillis);
+        long slot = Math.min(slotAt(timeMillis), now);
+        if (slot <= now - ring.length() + 1) {
+            return false;
+        }
+        int index = (int) Math.floorMod(slot, (long) ring.length());
+        Bucket bucket = ring.get(index);
+        while (bucket == null || bucket.slot < slot) {
+            Bucket fresh = new Bucket(slot);
+            if (ring.compareAndSet(index, bucket, fresh)) {
+                bucket = fresh;
+            } else {
+                bucket = ring.get(index);
+            }
+        }
+        if (bucket.slot != slot) {
+            return false;
+        }
+        ConcurrentHashMap<Integer, LongAdder> counts = bucket.counts;
+        if (counts == null) {
+            return false;
+        }
+        LongAdder count = counts.get(songId);
+        if (count == null) {
+            count = counts.computeIfAbsent(songId, id -> new LongAdder());
+        }
+        count.increment();
+        return true;
+    }
+
+    // Freezes every bucket more than one bucket old into sorted arrays, which take a fraction of the
+    // memory of the live maps. Returns the number of buckets compacted.
+    public int compact(long nowMillis) {
+        long before = slotAt(nowMillis) - 1;
+        int compacted = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.slot < before && bucket.counts != null) {
+                bucket.freeze();
+                compacted++;
+            }
+        }
+        return compacted;
+    }
+
+    // Offers every song played in the windowBuckets buckets before the current one to top as
+    // (song ID, plays), and returns the number of plays in the window.
+    public long top(int windowBuckets, long nowMillis, TopK top) {
+        if (windowBuckets <= 0 || windowBuckets > maxWindowBuckets()) {
+            throw new IllegalArgumentException("Window must be 1 to " + maxWindowBuckets() + " buckets");
+        }
+        long now = slotAt(nowMillis);
+        Totals totals = new Totals();
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.slot < now && bucket.slot >= now - windowBuckets) {
+                bucket.addTo(totals);
+            }
+        }
+        long plays = 0;
+        for (int i = 0; i < totals.keys.length; i++) {
+            if (totals.keys[i] != 0) {
+                top.offer(totals.keys[i] - 1, totals.values[i]);
+                plays += totals.values[i];
+            }
+        }
+        return plays;
+    }
+
+    private static class Bucket {
+        final long slot;
+        volatile ConcurrentHashMap<Integer, LongAdder> counts = new ConcurrentHashMap<>();
+        // set before counts is cleared
+        volatile int[] songIds;
+        volatile long[] plays;
+
+        Bucket(long slot) {
+            this.slot = slot;
+        }
+
+        synchronized void freeze() {
+            ConcurrentHashMap<Integer, LongAdder> live = counts;
+            if (live == null) {
+                return;
+            }
+            int[] ids = new int[live.size()];
+            int n = 0;
+            for (Integer songId : live.keySet()) {
+                if (n == ids.length) {
+                    ids = Arrays.copyOf(ids, n * 2 + 1);
+                }
+                ids[n++] = songId;
+            }
+            ids = Arrays.copyOf(ids, n);
+            Arrays.sort(ids);
+            long[] sums = new long[n];
+            for (int i = 0; i < n; i++) {
+                sums[i] = live.get(ids[i]).sum();
+            }
+            songIds = ids;
+            plays = sums;
+            counts = null;
+        }
+
+        void addTo(Totals totals) {
+            ConcurrentHashMap<Integer, LongAdder> live = counts;
+            if (live != null) {
+                live.forEach((songId, count) -> totals.add(songId, count.sum()));
+                return;
+            }
+            int[] ids = songIds;
+            long[] sums = plays;
+            for (int i = 0; i < ids.length; i++) {
+                totals.add(ids[i], sums[i]);
+            }
+        }
+    }
+
+    // Open-addressing song ID -> plays map used while summing a window.
+    private static class Totals {
+        int[] keys = new int[1024]; // song ID + 1, 0 = empty
+        long[] values = new long[1024];
+        int size;
+
+        void add(int songId, long plays) {
+            if (size * 2 >= keys.length) {
+                int[] oldKeys = keys;
+                long[] oldValues = values;
+                keys = new int[oldKeys.length * 2];
+                values = new long[oldKeys.length * 2];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != 0) {
+                        add(oldKeys[i] - 1, oldValues[i]);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int hash = songId * 0x9E3779B9;
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (keys[slot] != 0 && keys[slot] != songId + 1) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = songId + 1;
+                size++;
+            }
+            values[slot] += plays;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.soundhiveapi.index;
+
+// Scores songs for one user against a SongTagIndex: score(song) = sum of the user's weights for
+// the song's tags. Only the posting lists of the user's strongest tags are walked, so the work is
+// proportional to those lists, not to the catalog. The scratch arrays are sized to the catalog and
+// reused between calls; an instance is not thread-safe.
+public class SongScorer {
+
+    private final SongTagIndex index;
+    private final float[] scores;
+    private final int[] touched;
+
+    public SongScorer(SongTagIndex index) {
+        this.index = index;
+        this.scores = new float[index.numSongs()];
+        this.touched = new int[index.numSongs()];
+    }
+
+    public SongTagIndex getIndex() {
+        return index;
+    }
+
+    // Fills top with (song position, score) for the best songs not in excludedSongIds.
+    // profileTags maps the profile's columns to tag IDs; only the maxQueryTags highest positive
+    // weights of the profile are used.
+    public void score(UserProfile profile, TagIndex profileTags, int maxQueryTags,
+                      int[] excludedSongIds, TopK top) {
+        score(profile, profileTags, new TopK(Math.max(1, Math.min(maxQueryTags, profile.size()))),
+                excludedSongIds, top);
+    }
+
+    // Same, with the caller's queryTags heap (of maxQueryTags entries) so that scoring many users
+    // in a row allocates nothing.
+    public void score(UserProfile profile, TagIndex profileTags, TopK queryTags,
+                      int[] excludedSongIds, TopK top) {
+        queryTags.reset();
+        for (int i = 0; i < profile.size(); i++) {
+            if (profile.weightAt(i) > 0) {
+                queryTags.offer(profile.colAt(i), profile.weightAt(i));
+            }
+        }
+
+        TagIndex tags = index.getTags();
+        int numTouched = 0;
+        for (int q = 0; q < queryTags.size(); q++) {
+            int col = tags.columnOf(profileTags.tagIdAt(queryTags.idAt(q)));
+            if (col < 0) {
+                continue;
+            }
+            float weight = (float) queryTags.scoreAt(q);
+            for (int i = index.postingStart(col), end = index.postingEnd(col); i < end; i++) {
+                int pos = index.postingAt(i);
+                if (scores[pos] == 0f) {
+                    touched[numTouched++] = pos;
+                }
+                scores[pos] += weight;
+            }
+        }
+
+        if (excludedSongIds != null) {
+            for (int songId : excludedSongIds) {
+                int pos = index.positionOf(songId);
+                if (pos >= 0) {
+                    scores[pos] = 0f;
+                }
+            }
+        }
+
+        for (int t = 0; t < numTouched; t++) {
+            int pos = touched[t];
+            float score = scores[pos];
+            if (score > 0f) {
+                top.offer(pos, score);
+                scores[pos] = 0f;
+            }
+        }
+        top.sortDescending();
+    }
+}
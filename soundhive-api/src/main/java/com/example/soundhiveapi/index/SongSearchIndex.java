@@ -0,0 +1,239 @@
+package com.example.soundhiveapi.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+// Typeahead index over song titles and artists. Text is folded to lowercase ASCII words; a query
+// matches a song when every query word is a prefix of one of the song's words.
+// Songs are numbered by popularity (most plays first, then song ID), so a posting list in position
+// order is also in popularity order and the first matches found are the best ones. Words are
+// sorted, so the words starting with a prefix are one contiguous range of term numbers and their
+// postings one contiguous range of the postings array:
+//   terms[t]                                          word t, ascending
+//   postings[termPtr[t] .. termPtr[t + 1])            positions of the songs containing word t
+//   songTerms[songTermPtr[p] .. songTermPtr[p + 1])   term numbers of song p
+// A query either gathers and sorts the postings of its rarest word's range (few postings) or walks
+// songs in popularity order checking their term numbers (common prefix, so matches come soon),
+// whichever is expected to touch fewer entries. Immutable once built.
+public class SongSearchIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final String[] terms;
+    private final int[] termPtr;
+    private final int[] postings;
+    private final int[] songIds;
+    private final long[] plays;
+    private final int[] songTermPtr;
+    private final int[] songTerms;
+
+    private SongSearchIndex(String[] terms, int[] termPtr, int[] postings, int[] songIds, long[] plays,
+                            int[] songTermPtr, int[] songTerms) {
+        this.terms = terms;
+        this.termPtr = termPtr;
+        this.postings = postings;
+        this.songIds = songIds;
+        this.plays = plays;
+        this.songTermPtr = songTermPtr;
+        this.songTerms = songTerms;
+    }
+
+    public int numSongs() {
+        return songIds.length;
+    }
+
+    public int numTerms() {
+        return terms.length;
+    }
+
+    // Lowercase words without accents, the same in every default locale; empty for blank text.
+    public static String[] tokenize(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD.split(folded)).filter(w -> !w.isEmpty()).toArray(String[]::new);
+    }
+
+    // True if every query word is a prefix of one of the song's words (for songs not in an index).
+    public static boolean matches(String[] songWords, String[] queryWords) {
+        for (String query : queryWords) {
+            boolean found = false;
+            for (int i = 0; i < songWords.length && !found; i++) {
+                found = songWords[i].startsWith(query);
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Offers up to limit matching songs to top as (song ID, plays), most played first; songs for
+    // which skip is true are passed over. queryWords must come from tokenize().
+    public void search(String[] queryWords, int limit, IntPredicate skip, TopK top) {
+        if (queryWords.length == 0 || limit <= 0) {
+            return;
+        }
+        int[] lo = new int[queryWords.length];
+        int[] hi = new int[queryWords.length];
+        int driver = 0;
+        for (int q = 0; q < queryWords.length; q++) {
+            lo[q] = lowerBound(queryWords[q]);
+            hi[q] = lowerBound(queryWords[q] + Character.MAX_VALUE);
+            if (lo[q] == hi[q]) {
+                return;
+            }
+            if (postingCount(lo[q], hi[q]) < postingCount(lo[driver], hi[driver])) {
+                driver = q;
+            }
+        }
+
+        long matching = postingCount(lo[driver], hi[driver]);
+        // walking songs finds about matching / numSongs matches per song looked at
+        double walkCost = Math.min(songIds.length, (double) limit * songIds.length / matching);
+        int found = 0;
+        if (matching <= walkCost) {
+            int[] candidates = Arrays.copyOfRange(postings, termPtr[lo[driver]], termPtr[hi[driver]]);
+            Arrays.sort(candidates);
+            for (int i = 0; i < candidates.length && found < limit; i++) {
+                int pos = candidates[i];
+                if ((i == 0 || candidates[i - 1] != pos) && accept(pos, lo, hi, skip, top)) {
+                    found++;
+                }
+            }
+        } else {
+            for (int pos = 0; pos < songIds.length && found < limit; pos++) {
+                if (accept(pos, lo, hi, skip, top)) {
+                    found++;
+                }
+            }
+        }
+    }
+
+    private boolean accept(int pos, int[] lo, int[] hi, IntPredicate skip, TopK top) {
+        for (int q = 0; q < lo.length; q++) {
+            if (!hasTermIn(pos, lo[q], hi[q])) {
+                return false;
+            }
+        }
+        if (skip != null && skip.test(songIds[pos])) {
+            return false;
+        }
+        top.offer(songIds[pos], plays[pos]);
+        return true;
+    }
+
+    private boolean hasTermIn(int pos, int lo, int hi) {
+        for (int i = songTermPtr[pos], end = songTermPtr[pos + 1]; i < end; i++) {
+            if (songTerms[i] >= lo && songTerms[i] < hi) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long postingCount(int lo, int hi) {
+        return termPtr[hi] - termPtr[lo];
+    }
+
+    // First term >= word.
+    private int lowerBound(String word) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(word) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Collects songs with their words and play counts, then numbers terms and songs.
+    public static class Builder {
+        private final List<String[]> words = new ArrayList<>();
+        private int[] songIds = new int[1024];
+        private long[] plays = new long[1024];
+
+        public Builder add(int songId, String title, String artist, long playCount) {
+            int n = words.size();
+            if (n == songIds.length) {
+                songIds = Arrays.copyOf(songIds, n * 2);
+                plays = Arrays.copyOf(plays, n * 2);
+            }
+            String[] titleWords = tokenize(title);
+            String[] artistWords = tokenize(artist);
+            String[] all = Arrays.copyOf(titleWords, titleWords.length + artistWords.length);
+            System.arraycopy(artistWords, 0, all, titleWords.length, artistWords.length);
+            words.add(Arrays.stream(all).distinct().toArray(String[]::new));
+            songIds[n] = songId;
+            plays[n] = playCount;
+            return this;
+        }
+
+        public SongSearchIndex build() {
+            int n = words.size();
+            // positions by popularity
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> plays[a] != plays[b] ? Long.compare(plays[b], plays[a])
+                    : Integer.compare(songIds[a], songIds[b]));
+
+            Map<String, Integer> termIds = new HashMap<>();
+            for (String[] songWords : words) {
+                for (String word : songWords) {
+                    termIds.putIfAbsent(word, 0);
+                }
+            }
+            String[] terms = termIds.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            for (int t = 0; t < terms.length; t++) {
+                termIds.put(terms[t], t);
+            }
+
+            int[] posSongIds = new int[n];
+            long[] posPlays = new long[n];
+            int[] songTermPtr = new int[n + 1];
+            int[] termPtr = new int[terms.length + 1];
+            for (int pos = 0; pos < n; pos++) {
+                String[] songWords = words.get(order[pos]);
+                posSongIds[pos] = songIds[order[pos]];
+                posPlays[pos] = plays[order[pos]];
+                songTermPtr[pos + 1] = songTermPtr[pos] + songWords.length;
+                for (String word : songWords) {
+                    termPtr[termIds.get(word) + 1]++;
+                }
+            }
+            for (int t = 0; t < terms.length; t++) {
+                termPtr[t + 1] += termPtr[t];
+            }
+
+            int[] songTerms = new int[songTermPtr[n]];
+            int[] postings = new int[termPtr[terms.length]];
+            int[] next = Arrays.copyOf(termPtr, terms.length);
+            for (int pos = 0; pos < n; pos++) {
+                String[] songWords = words.get(order[pos]);
+                for (int i = 0; i < songWords.length; i++) {
+                    int t = termIds.get(songWords[i]);
+                    songTerms[songTermPtr[pos] + i] = t;
+                    // positions are visited in order, so every posting list ends up sorted
+                    postings[next[t]++] = pos;
+                }
+            }
+            return new SongSearchIndex(terms, termPtr, postings, posSongIds, posPlays, songTermPtr, songTerms);
+        }
+    }
+}
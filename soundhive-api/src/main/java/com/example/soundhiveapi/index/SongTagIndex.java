@@ -0,0 +1,127 @@
+package com.example.soundhiveapi.index;
+
+import java.util.Arrays;
+
+// Song <-> tag incidence in both directions, in primitive CSR arrays.
+// Songs are addressed by position (0..numSongs-1, ascending song ID); tags by TagIndex column.
+//   forward:  tags of song p  = songTags[songPtr[p] .. songPtr[p + 1])
+//   inverted: songs of tag c = postings[tagPtr[c] .. tagPtr[c + 1]), positions ascending
+public class SongTagIndex {
+
+    private final TagIndex tags;
+    private final int[] songIds;
+    private final int[] songPtr;
+    private final int[] songTags;
+    private final int[] tagPtr;
+    private final int[] postings;
+
+    private SongTagIndex(TagIndex tags, int[] songIds, int[] songPtr, int[] songTags, int[] tagPtr, int[] postings) {
+        this.tags = tags;
+        this.songIds = songIds;
+        this.songPtr = songPtr;
+        this.songTags = songTags;
+        this.tagPtr = tagPtr;
+        this.postings = postings;
+    }
+
+    public TagIndex getTags() {
+        return tags;
+    }
+
+    public int numSongs() {
+        return songIds.length;
+    }
+
+    public int songIdAt(int pos) {
+        return songIds[pos];
+    }
+
+    // Returns the position of the song, or -1 if it has no tags in the index.
+    public int positionOf(int songId) {
+        int pos = Arrays.binarySearch(songIds, songId);
+        return pos >= 0 ? pos : -1;
+    }
+
+    public int songTagStart(int pos) {
+        return songPtr[pos];
+    }
+
+    public int songTagEnd(int pos) {
+        return songPtr[pos + 1];
+    }
+
+    public int songTagAt(int i) {
+        return songTags[i];
+    }
+
+    public int postingStart(int col) {
+        return tagPtr[col];
+    }
+
+    public int postingEnd(int col) {
+        return tagPtr[col + 1];
+    }
+
+    public int postingAt(int i) {
+        return postings[i];
+    }
+
+    // Collects (songId, tagId) rows; rows must arrive ordered by song ID (e.g. ORDER BY song_id).
+    public static class Builder {
+
+        private final TagIndex tags;
+        private int[] songIds = new int[1024];
+        private int[] songPtr = new int[1025];
+        private int[] songTags = new int[4096];
+        private int numSongs;
+        private int size;
+
+        public Builder(TagIndex tags) {
+            this.tags = tags;
+        }
+
+        // Rows for tags that are not in the TagIndex are ignored.
+        public Builder add(int songId, int tagId) {
+            int col = tags.columnOf(tagId);
+            if (col < 0) {
+                return this;
+            }
+            if (numSongs == 0 || songIds[numSongs - 1] != songId) {
+                if (numSongs > 0 && songId < songIds[numSongs - 1]) {
+                    throw new IllegalArgumentException("song tags must be ordered by song ID");
+                }
+                if (numSongs == songIds.length) {
+                    songIds = Arrays.copyOf(songIds, numSongs * 2);
+                    songPtr = Arrays.copyOf(songPtr, numSongs * 2 + 1);
+                }
+                songIds[numSongs++] = songId;
+            }
+            if (size == songTags.length) {
+                songTags = Arrays.copyOf(songTags, size * 2);
+            }
+            songTags[size++] = col;
+            songPtr[numSongs] = size;
+            return this;
+        }
+
+        public SongTagIndex build() {
+            int numTags = tags.size();
+            int[] tagPtr = new int[numTags + 1];
+            for (int i = 0; i < size; i++) {
+                tagPtr[songTags[i] + 1]++;
+            }
+            for (int c = 0; c < numTags; c++) {
+                tagPtr[c + 1] += tagPtr[c];
+            }
+            int[] next = Arrays.copyOf(tagPtr, numTags);
+            int[] postings = new int[size];
+            for (int pos = 0; pos < numSongs; pos++) {
+                for (int i = songPtr[pos]; i < songPtr[pos + 1]; i++) {
+                    postings[next[songTags[i]]++] = pos;
+                }
+            }
+            return new SongTagIndex(tags, Arrays.copyOf(songIds, numSongs), Arrays.copyOf(songPtr, numSongs + 1),
+                    Arrays.copyOf(songTags, size), tagPtr, postings);
+        }
+    }
+}
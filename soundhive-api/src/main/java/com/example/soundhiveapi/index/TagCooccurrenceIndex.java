@@ -0,0 +1,204 @@
+package com.example.soundhiveapi.index;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Tag x tag co-occurrence over the dense columns of a TagIndex, in two packed upper-triangular
+// arrays (diagonal included, n * (n + 1) / 2 entries each):
+//   songPairs[i, j]  number of catalog songs tagged with both i and j; [i, i] songs tagged i
+//   weightDots[i, j] sum over users of w_i * w_j;                       [i, i] sum of w_i^2
+// related() ranks tags by catalogWeight * cosine of the song incidence vectors plus
+// profileWeight * cosine of the user weight vectors. Both statistics are plain sums, so a
+// changed song or profile is applied as "remove the old, add the new" in any order.
+// Updates and queries are synchronized; both touch O(tags^2) entries at most.
+public class TagCooccurrenceIndex {
+
+    // Songs / users per ForkJoin leaf task of the parallel build.
+    private static final int LEAF_ROWS = 4096;
+
+    private final TagIndex tags;
+    private final int n;
+    private final long[] songPairs;
+    private final double[] weightDots;
+
+    public TagCooccurrenceIndex(TagIndex tags) {
+        this.tags = tags;
+        this.n = tags.size();
+        this.songPairs = new long[n * (n + 1) / 2];
+        this.weightDots = new double[n * (n + 1) / 2];
+    }
+
+    public TagIndex getTags() {
+        return tags;
+    }
+
+    // Source of user profiles by row for the parallel build.
+    public interface ProfileRows {
+        int size();
+
+        UserProfile profileAt(int row);
+    }
+
+    // Counts every song of the catalog and every profile, splitting both across the pool.
+    public static TagCooccurrenceIndex build(TagIndex tags, SongTagIndex songs, ProfileRows profiles,
+                                             ForkJoinPool pool) {
+        TagCooccurrenceIndex catalog = pool.invoke(new SongTask(tags, songs, 0, songs.numSongs()));
+        TagCooccurrenceIndex users = pool.invoke(new ProfileTask(tags, profiles, 0, profiles.size()));
+        catalog.merge(users);
+        return catalog;
+    }
+
+    // Adds (sign 1) or removes (sign -1) one song given its tag columns; unknown (negative)
+    // and repeated columns are skipped.
+    public synchronized void addSong(int[] cols, int sign) {
+        for (int a = 0; a < cols.length; a++) {
+            if (cols[a] < 0 || indexOf(cols, cols[a]) < a) {
+                continue;
+            }
+            for (int b = 0; b < cols.length; b++) {
+                if (cols[b] >= cols[a] && indexOf(cols, cols[b]) == b) {
+                    songPairs[pairIndex(cols[a], cols[b])] += sign;
+                }
+            }
+        }
+    }
+
+    // Adds (sign 1) or removes (sign -1) one user's weights. Columns of a profile are ascending.
+    public synchronized void addProfile(UserProfile profile, double sign) {
+        for (int a = 0; a < profile.size(); a++) {
+            int col = profile.colAt(a);
+            double w = sign * profile.weightAt(a);
+            int row = pairIndex(col, col) - col;
+            for (int b = a; b < profile.size(); b++) {
+                weightDots[row + profile.colAt(b)] += w * profile.weightAt(b);
+            }
+        }
+    }
+
+    public synchronized void merge(TagCooccurrenceIndex other) {
+        for (int i = 0; i < songPairs.length; i++) {
+            songPairs[i] += other.songPairs[i];
+            weightDots[i] += other.weightDots[i];
+        }
+    }
+
+    public synchronized long songCount(int colA, int colB) {
+        return songPairs[pairIndex(Math.min(colA, colB), Math.max(colA, colB))];
+    }
+
+    public synchronized double weightDot(int colA, int colB) {
+        return weightDots[pairIndex(Math.min(colA, colB), Math.max(colA, colB))];
+    }
+
+    // Fills top with (column, similarity) of the tags most related to col, best first; the tag
+    // itself and tags with no similarity are left out.
+    public synchronized void related(int col, double catalogWeight, double profileWeight, TopK top) {
+        int diag = pairIndex(col, col);
+        long songs = songPairs[diag];
+        double squares = weightDots[diag];
+        for (int other = 0; other < n; other++) {
+            if (other == col) {
+                continue;
+            }
+            int pair = other < col ? pairIndex(other, col) : pairIndex(col, other);
+            int otherDiag = pairIndex(other, other);
+            double score = 0;
+            if (songs > 0 && songPairs[pair] > 0) {
+                score += catalogWeight * songPairs[pair] / Math.sqrt((double) songs * songPairs[otherDiag]);
+            }
+            if (squares > 0 && weightDots[otherDiag] > 0) {
+                score += profileWeight * weightDots[pair] / Math.sqrt(squares * weightDots[otherDiag]);
+            }
+            if (score > 0) {
+                top.offer(other, score);
+            }
+        }
+        top.sortDescending();
+    }
+
+    // Position of (i, j), i <= j, in the packed upper triangle: rows 0 .. i-1 hold
+    // n + (n - 1) + ... + (n - i + 1) entries.
+    private int pairIndex(int i, int j) {
+        return i * n - i * (i - 1) / 2 + (j - i);
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static class SongTask extends RecursiveTask<TagCooccurrenceIndex> {
+        private final TagIndex tags;
+        private final SongTagIndex songs;
+        private final int from;
+        private final int to;
+
+        SongTask(TagIndex tags, SongTagIndex songs, int from, int to) {
+            this.tags = tags;
+            this.songs = songs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TagCooccurrenceIndex compute() {
+            if (to - from > LEAF_ROWS) {
+                int mid = (from + to) >>> 1;
+                SongTask right = new SongTask(tags, songs, mid, to);
+                right.fork();
+                TagCooccurrenceIndex left = new SongTask(tags, songs, from, mid).compute();
+                left.merge(right.join());
+                return left;
+            }
+            TagCooccurrenceIndex partial = new TagCooccurrenceIndex(tags);
+            int[] cols = new int[0];
+            for (int pos = from; pos < to; pos++) {
+                int start = songs.songTagStart(pos);
+                int count = songs.songTagEnd(pos) - start;
+                if (cols.length != count) {
+                    cols = new int[count];
+                }
+                for (int t = 0; t < count; t++) {
+                    cols[t] = tags.columnOf(songs.getTags().tagIdAt(songs.songTagAt(start + t)));
+                }
+                partial.addSong(cols, 1);
+            }
+            return partial;
+        }
+    }
+
+    private static class ProfileTask extends RecursiveTask<TagCooccurrenceIndex> {
+        private final TagIndex tags;
+        private final ProfileRows profiles;
+        private final int from;
+        private final int to;
+
+        ProfileTask(TagIndex tags, ProfileRows profiles, int from, int to) {
+            this.tags = tags;
+            this.profiles = profiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TagCooccurrenceIndex compute() {
+            if (to - from > LEAF_ROWS) {
+                int mid = (from + to) >>> 1;
+                ProfileTask right = new ProfileTask(tags, profiles, mid, to);
+                right.fork();
+                TagCooccurrenceIndex left = new ProfileTask(tags, profiles, from, mid).compute();
+                left.merge(right.join());
+                return left;
+            }
+            TagCooccurrenceIndex partial = new TagCooccurrenceIndex(tags);
+            for (int row = from; row < to; row++) {
+                partial.addProfile(profiles.profileAt(row), 1);
+            }
+            return partial;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.soundhiveapi.index;
+
+import com.example.soundhiveapi.model.Tag;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Maps tag IDs to dense column numbers (ordered by tag ID) and back.
+public class TagIndex {
+
+    // Tag IDs up to this value are resolved with a direct lookup table.
+    private static final int MAX_DIRECT_TAG_ID = 1 << 16;
+
+    private final int[] tagIds;       // column -> tag ID, ascending
+    private final Tag[] tagsByColumn; // column -> tag
+    private final int[] columnByTagId; // tag ID -> column + 1, or null when IDs are too sparse
+
+    public TagIndex(List<Tag> tags) {
+        Tag[] sorted = tags.toArray(new Tag[0]);
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.getTagId(), b.getTagId()));
+        this.tagIds = new int[sorted.length];
+        this.tagsByColumn = sorted;
+        int maxId = -1;
+        for (int col = 0; col < sorted.length; col++) {
+            tagIds[col] = sorted[col].getTagId();
+            maxId = Math.max(maxId, tagIds[col]);
+        }
+        if (sorted.length > 0 && tagIds[0] >= 0 && maxId <= MAX_DIRECT_TAG_ID) {
+            columnByTagId = new int[maxId + 1];
+            for (int col = 0; col < tagIds.length; col++) {
+                columnByTagId[tagIds[col]] = col + 1;
+            }
+        } else {
+            columnByTagId = null;
+        }
+    }
+
+    // Returns the column of the tag, or -1 if the tag is unknown.
+    public int columnOf(int tagId) {
+        if (columnByTagId != null) {
+            return tagId >= 0 && tagId < columnByTagId.length ? columnByTagId[tagId] - 1 : -1;
+        }
+        int col = Arrays.binarySearch(tagIds, tagId);
+        return col >= 0 ? col : -1;
+    }
+
+    public int tagIdAt(int col) {
+        return tagIds[col];
+    }
+
+    public String tagNameAt(int col) {
+        return tagsByColumn[col].getTagName();
+    }
+
+    public Tag tagAt(int col) {
+        return tagsByColumn[col];
+    }
+
+    public int size() {
+        return tagIds.length;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.soundhiveapi.index;
+
+// Keeps the k highest-scoring (id, score) pairs seen so far in a size-k binary min-heap of
+// primitives. offer() is O(log k) and allocation-free; an instance can be reset and reused.
+public class TopK {
+
+    private final int k;
+    private final int[] ids;
+    private final double[] scores;
+    private int size;
+
+    public TopK(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        this.k = k;
+        this.ids = new int[k];
+        this.scores = new double[k];
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Smallest score a new entry must beat once the heap is full.
+    public double threshold() {
+        return size < k ? Double.NEGATIVE_INFINITY : scores[0];
+    }
+
+    public void offer(int id, double score) {
+        if (size < k) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!(score < scores[parent] || (score == scores[parent] && id > ids[parent]))) {
+                    break;
+                }
+                ids[i] = ids[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            scores[i] = score;
+        } else if (score > scores[0] || (score == scores[0] && id < ids[0])) {
+            siftDown(0, size, id, score);
+        }
+    }
+
+    // Orders the kept entries by descending score (ties by ascending id). After this call
+    // idAt(0) / scoreAt(0) is the best entry; call reset() before offering again.
+    public void sortDescending() {
+        // heapsort: repeatedly move the minimum to the end
+        for (int end = size - 1; end > 0; end--) {
+            int minId = ids[0];
+            double minScore = scores[0];
+            siftDown(0, end, ids[end], scores[end]);
+            ids[end] = minId;
+            scores[end] = minScore;
+        }
+    }
+
+    public int idAt(int i) {
+        return ids[i];
+    }
+
+    public double scoreAt(int i) {
+        return scores[i];
+    }
+
+    private void siftDown(int i, int n, int id, double score) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= n) {
+                break;
+            }
+            if (child + 1 < n && less(child + 1, child)) {
+                child++;
+            }
+            if (!(scores[child] < score || (scores[child] == score && ids[child] > id))) {
+                break;
+            }
+            ids[i] = ids[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        ids[i] = id;
+        scores[i] = score;
+    }
+
+    // Heap order: lower score first; on equal scores the higher id is "smaller" so it is evicted first.
+    private boolean less(int a, int b) {
+        return scores[a] < scores[b] || (scores[a] == scores[b] && ids[a] > ids[b]);
+    }
+}
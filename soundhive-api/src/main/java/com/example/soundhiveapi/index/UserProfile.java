@@ -0,0 +1,88 @@
+package com.example.soundhiveapi.index;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+// Immutable view of one user's non-zero tag weights, columns ascending.
+// The buffers may be shared with a UserTagMatrix, so the view only exposes [offset, offset + size).
+public class UserProfile {
+
+    private final String idNumber;
+    private final long version;
+    private final IntBuffer cols;
+    private final DoubleBuffer weights;
+    private final int offset;
+    private final int size;
+
+    public UserProfile(String idNumber, long version, int[] cols, double[] weights) {
+        this(idNumber, version, IntBuffer.wrap(cols), DoubleBuffer.wrap(weights), 0, cols.length);
+    }
+
+    UserProfile(String idNumber, long version, IntBuffer cols, DoubleBuffer weights, int offset, int size) {
+        this.idNumber = idNumber;
+        this.version = version;
+        this.cols = cols;
+        this.weights = weights;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public static UserProfile empty(String idNumber) {
+        return new UserProfile(idNumber, 0, new int[0], new double[0]);
+    }
+
+    public static UserProfile ofRow(UserTagMatrix matrix, int row, long version) {
+        int start = matrix.rowStart(row);
+        return new UserProfile(matrix.userIdAt(row), version,
+                matrix.colsBuffer(), matrix.valuesBuffer(), start, matrix.rowEnd(row) - start);
+    }
+
+    public String getIdNumber() {
+        return idNumber;
+    }
+
+    // Increases every time the profile is replaced; readers compare it to detect updates.
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int colAt(int i) {
+        return cols.get(offset + i);
+    }
+
+    public double weightAt(int i) {
+        return weights.get(offset + i);
+    }
+
+    public double[] toDense(int numTags) {
+        double[] dense = new double[numTags];
+        for (int i = 0; i < size; i++) {
+            dense[cols.get(offset + i)] = weights.get(offset + i);
+        }
+        return dense;
+    }
+
+    // Returns a copy with one column set to the given weight (added if missing).
+    public UserProfile with(int col, double weight, long newVersion) {
+        int i = 0;
+        while (i < size && colAt(i) < col) {
+            i++;
+        }
+        boolean present = i < size && colAt(i) == col;
+        int newSize = present ? size : size + 1;
+        int[] newCols = new int[newSize];
+        double[] newWeights = new double[newSize];
+        cols.get(offset, newCols, 0, i);
+        weights.get(offset, newWeights, 0, i);
+        newCols[i] = col;
+        newWeights[i] = weight;
+        int tail = present ? i + 1 : i;
+        cols.get(offset + tail, newCols, i + 1, size - tail);
+        weights.get(offset + tail, newWeights, i + 1, size - tail);
+        return new UserProfile(idNumber, newVersion, newCols, newWeights);
+    }
+}
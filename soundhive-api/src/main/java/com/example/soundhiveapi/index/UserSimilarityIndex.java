@@ -0,0 +1,257 @@
+package com.example.soundhiveapi.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Approximate cosine nearest neighbours over user tag-weight vectors with random-projection LSH
+// (SimHash). Each of `tables` hash tables signs the vector against `bits` random hyperplanes;
+// users with the same signature share a bucket. A query collects the users in its own buckets
+// (plus, with multi-probe, the buckets one bit away), then ranks only those candidates by exact
+// cosine. Users can be added or re-hashed one at a time as their weights change.
+public class UserSimilarityIndex {
+
+    private final int dims;
+    private final int tables;
+    private final int bits;
+    private final float[] planes; // (tables * bits) rows of dims
+    private final HashMap<Integer, Bucket>[] buckets;
+    private final IdDictionary users = new IdDictionary();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private UserProfile[] profiles = new UserProfile[1024];
+    private double[] norms = new double[1024];
+    private int[] signatures; // handle * tables + table, -1 when not indexed
+
+    @SuppressWarnings("unchecked")
+    public UserSimilarityIndex(int dims, int tables, int bits, long seed) {
+        if (bits < 1 || bits > 30) {
+            throw new IllegalArgumentException("bits must be between 1 and 30");
+        }
+        this.dims = dims;
+        this.tables = tables;
+        this.bits = bits;
+        this.planes = new float[tables * bits * dims];
+        Random random = new Random(seed);
+        for (int i = 0; i < planes.length; i++) {
+            planes[i] = (float) random.nextGaussian();
+        }
+        this.buckets = new HashMap[tables];
+        for (int t = 0; t < tables; t++) {
+            buckets[t] = new HashMap<>();
+        }
+        this.signatures = new int[profiles.length * tables];
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    public String idAt(int handle) {
+        return users.get(handle);
+    }
+
+    // Adds or re-hashes a user. Profiles older than the indexed one are ignored, so updates that
+    // arrive out of order can't roll a user back.
+    public void put(UserProfile profile) {
+        lock.writeLock().lock();
+        try {
+            int handle = users.intern(profile.getIdNumber());
+            ensureCapacity(handle + 1);
+            UserProfile old = profiles[handle];
+            if (old != null && old.getVersion() > profile.getVersion()) {
+                return;
+            }
+            if (old != null && signatures[handle * tables] != -1) {
+                for (int t = 0; t < tables; t++) {
+                    Bucket bucket = buckets[t].get(signatures[handle * tables + t]);
+                    bucket.remove(handle);
+                    if (bucket.size == 0) {
+                        buckets[t].remove(signatures[handle * tables + t]);
+                    }
+                }
+            }
+            profiles[handle] = profile;
+            norms[handle] = norm(profile);
+            if (norms[handle] == 0) {
+                Arrays.fill(signatures, handle * tables, (handle + 1) * tables, -1);
+                return;
+            }
+            for (int t = 0; t < tables; t++) {
+                int signature = signature(profile, t);
+                signatures[handle * tables + t] = signature;
+                buckets[t].computeIfAbsent(signature, s -> new Bucket()).add(handle);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Fills top with (handle, cosine) of the most similar indexed users, excluding the query user.
+    public void query(UserProfile query, boolean multiProbe, TopK top) {
+        double queryNorm = norm(query);
+        if (queryNorm == 0) {
+            return;
+        }
+        int[] querySignatures = new int[tables];
+        for (int t = 0; t < tables; t++) {
+            querySignatures[t] = signature(query, t);
+        }
+        lock.readLock().lock();
+        try {
+            int self = users.indexOf(query.getIdNumber());
+            IntSet seen = new IntSet();
+            for (int t = 0; t < tables; t++) {
+                probe(t, querySignatures[t], query, queryNorm, self, seen, top);
+                if (multiProbe) {
+                    for (int b = 0; b < bits; b++) {
+                        probe(t, querySignatures[t] ^ (1 << b), query, queryNorm, self, seen, top);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        top.sortDescending();
+    }
+
+    // Exact cosine search over every indexed user; the reference for measuring recall.
+    public void exactQuery(UserProfile query, TopK top) {
+        double queryNorm = norm(query);
+        if (queryNorm == 0) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            int self = users.indexOf(query.getIdNumber());
+            for (int handle = 0; handle < users.size(); handle++) {
+                if (handle != self && norms[handle] > 0) {
+                    top.offer(handle, dot(query, profiles[handle]) / (queryNorm * norms[handle]));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        top.sortDescending();
+    }
+
+    private void probe(int table, int signature, UserProfile query, double queryNorm, int self,
+                       IntSet seen, TopK top) {
+        Bucket bucket = buckets[table].get(signature);
+        if (bucket == null) {
+            return;
+        }
+        for (int i = 0; i < bucket.size; i++) {
+            int handle = bucket.handles[i];
+            if (handle != self && seen.add(handle)) {
+                top.offer(handle, dot(query, profiles[handle]) / (queryNorm * norms[handle]));
+            }
+        }
+    }
+
+    private int signature(UserProfile profile, int table) {
+        int signature = 0;
+        for (int b = 0; b < bits; b++) {
+            int row = (table * bits + b) * dims;
+            double dot = 0;
+            for (int i = 0; i < profile.size(); i++) {
+                int col = profile.colAt(i);
+                if (col < dims) {
+                    dot += planes[row + col] * profile.weightAt(i);
+                }
+            }
+            if (dot >= 0) {
+                signature |= 1 << b;
+            }
+        }
+        return signature;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n > profiles.length) {
+            int capacity = Math.max(n, profiles.length * 2);
+            profiles = Arrays.copyOf(profiles, capacity);
+            norms = Arrays.copyOf(norms, capacity);
+            signatures = Arrays.copyOf(signatures, capacity * tables);
+        }
+    }
+
+    private static double norm(UserProfile profile) {
+        double sum = 0;
+        for (int i = 0; i < profile.size(); i++) {
+            sum += profile.weightAt(i) * profile.weightAt(i);
+        }
+        return Math.sqrt(sum);
+    }
+
+    // Sparse dot product; both profiles have ascending columns.
+    private static double dot(UserProfile a, UserProfile b) {
+        double sum = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            int ca = a.colAt(i);
+            int cb = b.colAt(j);
+            if (ca == cb) {
+                sum += a.weightAt(i++) * b.weightAt(j++);
+            } else if (ca < cb) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return sum;
+    }
+
+    private static class Bucket {
+        int[] handles = new int[4];
+        int size;
+
+        void add(int handle) {
+            if (size == handles.length) {
+                handles = Arrays.copyOf(handles, size * 2);
+            }
+            handles[size++] = handle;
+        }
+
+        void remove(int handle) {
+            for (int i = 0; i < size; i++) {
+                if (handles[i] == handle) {
+                    handles[i] = handles[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    // Open-addressing set of non-negative ints, for de-duplicating candidates within one query.
+    private static class IntSet {
+        int[] slots = new int[256]; // value + 1, 0 = empty
+        int size;
+
+        boolean add(int value) {
+            if (size * 2 >= slots.length) {
+                int[] old = slots;
+                slots = new int[old.length * 2];
+                size = 0;
+                for (int v : old) {
+                    if (v != 0) {
+                        add(v - 1);
+                    }
+                }
+            }
+            int mask = slots.length - 1;
+            int slot = (value * 0x9E3779B9) >>> 16 & mask;
+            while (slots[slot] != 0) {
+                if (slots[slot] == value + 1) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = value + 1;
+            size++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.soundhiveapi.index;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+// Sparse user x tag weight matrix in compressed sparse row (CSR) form.
+// Row r holds the non-zero weights of user users.get(r) in cols/values[rowPtr[r] .. rowPtr[r + 1]),
+// with columns ascending. Columns are the dense tag numbers of the TagIndex.
+// The arrays are held as buffers, so the same code serves a matrix built on the heap (wrapped
+// arrays) and one memory-mapped from a snapshot file (see MatrixSnapshot).
+public class UserTagMatrix {
+
+    private final TagIndex tags;
+    private final IdLookup users;
+    private final IntBuffer rowPtr;
+    private final IntBuffer cols;
+    private final DoubleBuffer values;
+
+    UserTagMatrix(TagIndex tags, IdLookup users, IntBuffer rowPtr, IntBuffer cols, DoubleBuffer values) {
+        this.tags = tags;
+        this.users = users;
+        this.rowPtr = rowPtr;
+        this.cols = cols;
+        this.values = values;
+    }
+
+    private UserTagMatrix(TagIndex tags, IdLookup users, int[] rowPtr, int[] cols, double[] values) {
+        this(tags, users, IntBuffer.wrap(rowPtr), IntBuffer.wrap(cols), DoubleBuffer.wrap(values));
+    }
+
+    public TagIndex getTags() {
+        return tags;
+    }
+
+    public int numUsers() {
+        return users.size();
+    }
+
+    public int numTags() {
+        return tags.size();
+    }
+
+    // Number of stored (non-zero) weights.
+    public int nnz() {
+        return rowPtr.get(users.size());
+    }
+
+    // Returns the row of the user, or -1 if the user has no weights.
+    public int rowOf(String idNumber) {
+        return users.indexOf(idNumber);
+    }
+
+    public String userIdAt(int row) {
+        return users.get(row);
+    }
+
+    public int rowStart(int row) {
+        return rowPtr.get(row);
+    }
+
+    public int rowEnd(int row) {
+        return rowPtr.get(row + 1);
+    }
+
+    public int colAt(int pos) {
+        return cols.get(pos);
+    }
+
+    public double valueAt(int pos) {
+        return values.get(pos);
+    }
+
+    public double get(int row, int col) {
+        int low = rowPtr.get(row);
+        int high = rowPtr.get(row + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = cols.get(mid);
+            if (c < col) {
+                low = mid + 1;
+            } else if (c > col) {
+                high = mid - 1;
+            } else {
+                return values.get(mid);
+            }
+        }
+        return 0.0;
+    }
+
+    // Backing buffers, shared with UserProfile row views and written by MatrixSnapshot.
+    IntBuffer rowPtrBuffer() {
+        return rowPtr;
+    }
+
+    IntBuffer colsBuffer() {
+        return cols;
+    }
+
+    DoubleBuffer valuesBuffer() {
+        return values;
+    }
+
+    // Expands one row into a dense vector of length numTags().
+    public double[] denseRow(int row) {
+        double[] dense = new double[tags.size()];
+        for (int pos = rowPtr.get(row), end = rowPtr.get(row + 1); pos < end; pos++) {
+            dense[cols.get(pos)] = values.get(pos);
+        }
+        return dense;
+    }
+
+    // Collects (idNumber, tagId, weight) rows in primitive arrays and turns them into a matrix.
+    // Everything is linear in the number of rows; rows that already arrive grouped by user with
+    // ascending tags (e.g. ORDER BY id_number, tag_id) skip the sort entirely.
+    public static class Builder {
+
+        private final TagIndex tags;
+        private final IdDictionary users;
+        private int[] rows;
+        private int[] cols;
+        private double[] values;
+        private int size;
+        private boolean sorted = true;
+
+        public Builder(TagIndex tags) {
+            this(tags, 1024);
+        }
+
+        public Builder(TagIndex tags, int expectedRows) {
+            this.tags = tags;
+            this.users = new IdDictionary(Math.max(16, expectedRows / Math.max(1, tags.size())));
+            int capacity = Math.max(16, expectedRows);
+            this.rows = new int[capacity];
+            this.cols = new int[capacity];
+            this.values = new double[capacity];
+        }
+
+        // Rows for tags that are not in the TagIndex are ignored.
+        public Builder add(String idNumber, int tagId, double weight) {
+            int col = tags.columnOf(tagId);
+            if (col < 0) {
+                return this;
+            }
+            int row = users.intern(idNumber);
+            if (size == rows.length) {
+                int capacity = size + (size >> 1) + 1;
+                rows = Arrays.copyOf(rows, capacity);
+                cols = Arrays.copyOf(cols, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            if (size > 0 && sorted) {
+                int lastRow = rows[size - 1];
+                sorted = row > lastRow || (row == lastRow && col > cols[size - 1]);
+            }
+            rows[size] = row;
+            cols[size] = col;
+            values[size] = weight;
+            size++;
+            return this;
+        }
+
+        public UserTagMatrix build() {
+            int numUsers = users.size();
+            int[] rowPtr = new int[numUsers + 1];
+            for (int i = 0; i < size; i++) {
+                rowPtr[rows[i] + 1]++;
+            }
+            for (int r = 0; r < numUsers; r++) {
+                rowPtr[r + 1] += rowPtr[r];
+            }
+            if (sorted) {
+                int[] outCols = size == cols.length ? cols : Arrays.copyOf(cols, size);
+                double[] outValues = size == values.length ? values : Arrays.copyOf(values, size);
+                return new UserTagMatrix(tags, users, rowPtr, outCols, outValues);
+            }
+
+            // Two stable counting-sort passes: by column, then by row.
+            int numTags = tags.size();
+            int[] colStart = new int[numTags + 1];
+            for (int i = 0; i < size; i++) {
+                colStart[cols[i] + 1]++;
+            }
+            for (int c = 0; c < numTags; c++) {
+                colStart[c + 1] += colStart[c];
+            }
+            int[] byCol = new int[size];
+            for (int i = 0; i < size; i++) {
+                byCol[colStart[cols[i]]++] = i;
+            }
+            int[] next = Arrays.copyOf(rowPtr, numUsers);
+            int[] outCols = new int[size];
+            double[] outValues = new double[size];
+            for (int k = 0; k < size; k++) {
+                int i = byCol[k];
+                int pos = next[rows[i]]++;
+                outCols[pos] = cols[i];
+                outValues[pos] = values[i];
+            }
+            return new UserTagMatrix(tags, users, rowPtr, outCols, outValues);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.soundhiveapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times every repository call (Spring Data interfaces and the JdbcTemplate @Repository classes)
+// and records how many SQL statements it issued and how many rows it read:
+//   soundhive.repository.invocations{repository, method, outcome}  timer
+//   soundhive.repository.statements{repository, method}            summary
+//   soundhive.repository.rows{repository, method}                  summary
+// plus process-wide soundhive.jdbc.statements / soundhive.jdbc.rows counters.
+@Aspect
+@Component
+public class RepositoryMetrics implements MeterBinder {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<Class<?>, String> names = new ConcurrentHashMap<>();
+
+    @Around("target(org.springframework.data.repository.Repository)"
+            + " || @within(org.springframework.stereotype.Repository)")
+    public Object measure(ProceedingJoinPoint call) throws Throwable {
+        long statementsBefore = SqlActivity.statements();
+        long rowsBefore = SqlActivity.rows();
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return call.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            String repository = names.computeIfAbsent(call.getTarget().getClass(), RepositoryMetrics::repositoryName);
+            String method = call.getSignature().getName();
+            Timer.builder("soundhive.repository.invocations")
+                    .tags("repository", repository, "method", method, "outcome", outcome)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("soundhive.repository.statements")
+                    .tags("repository", repository, "method", method)
+                    .register(meterRegistry)
+                    .record(SqlActivity.statements() - statementsBefore);
+            DistributionSummary.builder("soundhive.repository.rows")
+                    .tags("repository", repository, "method", method)
+                    .register(meterRegistry)
+                    .record(SqlActivity.rows() - rowsBefore);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("soundhive.jdbc.statements", SqlActivity.class, c -> SqlActivity.totalStatements())
+                .description("SQL statements executed")
+                .register(registry);
+        FunctionCounter.builder("soundhive.jdbc.rows", SqlActivity.class, c -> SqlActivity.totalRows())
+                .description("Result rows read")
+                .register(registry);
+    }
+
+    // Spring Data repositories are proxies; name them after their repository interface.
+    private static String repositoryName(Class<?> targetClass) {
+        for (Class<?> type : targetClass.getInterfaces()) {
+            if (type.getPackageName().startsWith("com.example.soundhiveapi")) {
+                return type.getSimpleName();
+            }
+        }
+        return ClassUtils.getUserClass(targetClass).getSimpleName();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.soundhiveapi.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Running counts of SQL statements executed and result rows read, per thread and in total.
+// Fed by the DataSource wrapper from JdbcMetrics. The per-thread counts only ever grow, so a caller
+// measures a unit of work (an HTTP request, a repository call) by taking the difference of two
+// readings; nested measurements need no bookkeeping.
+public final class SqlActivity {
+
+    private static final ThreadLocal<long[]> CURRENT = ThreadLocal.withInitial(() -> new long[2]);
+    private static final LongAdder TOTAL_STATEMENTS = new LongAdder();
+    private static final LongAdder TOTAL_ROWS = new LongAdder();
+
+    private SqlActivity() {
+    }
+
+    // Statements executed by this thread so far.
+    public static long statements() {
+        return CURRENT.get()[0];
+    }
+
+    // Result rows read by this thread so far.
+    public static long rows() {
+        return CURRENT.get()[1];
+    }
+
+    public static long totalStatements() {
+        return TOTAL_STATEMENTS.sum();
+    }
+
+    public static long totalRows() {
+        return TOTAL_ROWS.sum();
+    }
+
+    static void statementExecuted() {
+        CURRENT.get()[0]++;
+        TOTAL_STATEMENTS.increment();
+    }
+
+    static void rowsRead(long rows) {
+        if (rows > 0) {
+            CURRENT.get()[1] += rows;
+            TOTAL_ROWS.add(rows);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.soundhiveapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Records the number of SQL statements each API request executed, per endpoint, as
+// soundhive.http.sql.statements{method, uri}. A request above the warn threshold is logged, so an
+// N+1 regression shows up both in the histogram and in the log.
+// Counts statements on the request thread only; work handed to other threads is not included.
+@Component
+public class SqlPerRequestInterceptor implements HandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlPerRequestInterceptor.class);
+    private static final String START = SqlPerRequestInterceptor.class.getName() + ".start";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${soundhive.metrics.sql-statements-warn-threshold:20}")
+    private int warnThreshold;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START, SqlActivity.statements());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object start = request.getAttribute(START);
+        if (!(start instanceof Long)) {
+            return;
+        }
+        long statements = SqlActivity.statements() - (Long) start;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("soundhive.http.sql.statements")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(statements);
+        if (statements > warnThreshold) {
+            log.warn("{} {} executed {} SQL statements", request.getMethod(), request.getRequestURI(), statements);
+        }
+    }
+}
@@ -14,9 +14,8 @@ public class Song {
     private String title;
     private String artist;
 
-    // We can't directly store an array of Tag objects using JPA easily,
-    // so we'll mark this field as @Transient and handle tag conversion separately,
-    // or you might consider a separate join table if you need a relationship.
+    // Stored in the song_tags table (song_id, tag_position, tag_id) rather than mapped by JPA,
+    // so tags for many songs can be loaded with one query per batch (see MyJdbcService).
     @Transient
     private Tag[] tags; // exactly 5 tags
 
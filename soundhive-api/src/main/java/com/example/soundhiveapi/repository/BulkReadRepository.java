@@ -0,0 +1,151 @@
+package com.example.soundhiveapi.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+// Streams whole tables in primary-key order with keyset pagination, one page at a time.
+// Rows are handed to a primitive callback and never become entities, so memory stays bounded
+// by the page size no matter how large the table is.
+@Repository
+public class BulkReadRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${soundhive.bulk.page-size:5000}")
+    private int pageSize;
+
+    public interface TagWeightRowHandler {
+        void accept(String idNumber, int tagId, double weight);
+    }
+
+    public interface PlayEventRowHandler {
+        void accept(String userId, int songId, long playTimeMillis);
+    }
+
+    public interface UserSongPlaysRowHandler {
+        void accept(String userId, int songId, long playCount);
+    }
+
+    public interface SongTagRowHandler {
+        void accept(int songId, int tagId);
+    }
+
+    public interface SongRowHandler {
+        void accept(int songId, String title, String artist);
+    }
+
+    public long countUserTagWeights() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_tagweights", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    // Current database time; used as a watermark for later updatedSince() queries, so that
+    // application and database clocks never have to agree.
+    public long databaseTimeMillis() {
+        Timestamp now = jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP(3)", Timestamp.class);
+        return millis(now);
+    }
+
+    // Users with at least one user_tagweights row written after the given database time.
+    public List<String> findUserIdsUpdatedSince(long sinceMillis) {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT id_number FROM user_tagweights WHERE updated_at > ?",
+                String.class, new Timestamp(sinceMillis));
+    }
+
+    // Reads user_tagweights ordered by (id_number, tag_id); returns the number of rows read.
+    public long forEachUserTagWeight(TagWeightRowHandler handler) {
+        return forEachPage(
+                "SELECT id_number, tag_id, weight FROM user_tagweights",
+                "id_number", "tag_id",
+                (rs, cursor) -> handler.accept((String) cursor.lastKey, cursor.lastId, rs.getDouble(3)));
+    }
+
+    // Reads user_playevents ordered by (user_id, song_id); returns the number of rows read.
+    public long forEachPlayEvent(PlayEventRowHandler handler) {
+        return forEachPage(
+                "SELECT user_id, song_id, play_time FROM user_playevents",
+                "user_id", "song_id",
+                (rs, cursor) -> handler.accept((String) cursor.lastKey, cursor.lastId, millis(rs.getTimestamp(3))));
+    }
+
+    // Reads the user_song_plays rollup ordered by (user_id, song_id); returns the number of rows read.
+    public long forEachUserSongPlays(UserSongPlaysRowHandler handler) {
+        return forEachPage(
+                "SELECT user_id, song_id, play_count FROM user_song_plays",
+                "user_id", "song_id",
+                (rs, cursor) -> handler.accept((String) cursor.lastKey, cursor.lastId, rs.getLong(3)));
+    }
+
+    // Reads song_tags ordered by (song_id, tag_position); returns the number of rows read.
+    public long forEachSongTag(SongTagRowHandler handler) {
+        return forEachPage(
+                "SELECT song_id, tag_position, tag_id FROM song_tags",
+                "song_id", "tag_position",
+                (rs, cursor) -> handler.accept(((Number) cursor.lastKey).intValue(), rs.getInt(3)));
+    }
+
+    // Reads SONGS ordered by song_id (which serves as both key and id of the page cursor);
+    // returns the number of rows read.
+    public long forEachSong(SongRowHandler handler) {
+        return forEachPage(
+                "SELECT song_id, song_id, title, artist FROM SONGS",
+                "song_id", "song_id",
+                (rs, cursor) -> handler.accept(cursor.lastId, rs.getString(3), rs.getString(4)));
+    }
+
+    private interface RowReader {
+        void read(ResultSet rs, Cursor cursor) throws SQLException;
+    }
+
+    // Runs "select ... ORDER BY key, id LIMIT pageSize" and keeps fetching the rows after the last
+    // (key, id) seen until a short page comes back. The first two selected columns must be key and id.
+    private long forEachPage(String select, String keyColumn, String idColumn, RowReader reader) {
+        String order = " ORDER BY " + keyColumn + ", " + idColumn + " LIMIT ?";
+        String firstPage = select + order;
+        String nextPage = select + " WHERE " + keyColumn + " > ? OR (" + keyColumn + " = ? AND "
+                + idColumn + " > ?)" + order;
+        Cursor cursor = new Cursor();
+        RowCallbackHandler callback = rs -> {
+            cursor.advance(rs.getObject(1), rs.getInt(2));
+            reader.read(rs, cursor);
+        };
+        jdbcTemplate.query(firstPage, callback, pageSize);
+        while (cursor.pageRows == pageSize) {
+            cursor.pageRows = 0;
+            jdbcTemplate.query(nextPage, callback, cursor.lastKey, cursor.lastKey, cursor.lastId, pageSize);
+        }
+        return cursor.totalRows;
+    }
+
+    private static long millis(Timestamp ts) {
+        return ts == null ? 0L : ts.getTime();
+    }
+
+    // Last (key, int) pair seen, where the next page starts.
+    private static class Cursor {
+        Object lastKey;
+        int lastId;
+        int pageRows;
+        long totalRows;
+
+        void advance(Object key, int id) {
+            // Reuse the previous String while the key repeats, so consecutive rows share one instance.
+            if (!key.equals(lastKey)) {
+                lastKey = key;
+            }
+            lastId = id;
+            pageRows++;
+            totalRows++;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.soundhiveapi.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Batched writes of plays: every play is appended to the play_log, and user_playevents keeps the
+// latest play of each (user, song) for the recency and played-song lookups. With
+// rewriteBatchedStatements=true on the JDBC URL the driver sends each batch as multi-row INSERT
+// statements.
+@Repository
+public class PlayEventBatchRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Appends every play to play_log and upserts one user_playevents row per (user, song), where a
+    // replay only moves play_time forward. Both happen in one transaction, so a retried batch is
+    // never logged twice.
+    @Transactional
+    public void write(String[] userIds, int[] songIds, long[] playTimes, int count) {
+        Map<Integer, String> titles = findTitles(songIds, count);
+        int logDay = PlayLogRepository.epochDay(System.currentTimeMillis());
+        List<Object[]> latest = new ArrayList<>(count);
+        List<Object[]> log = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime playTime = LocalDateTime.ofEpochSecond(Math.floorDiv(playTimes[i], 1000L),
+                    (int) Math.floorMod(playTimes[i], 1000L) * 1_000_000, ZoneOffset.UTC);
+            latest.add(new Object[] {userIds[i], songIds[i], playTime, titles.get(songIds[i])});
+            log.add(new Object[] {logDay, userIds[i], songIds[i], playTime, PlayLogRepository.epochDay(playTimes[i])});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO play_log (log_day, user_id, song_id, play_time, play_day) VALUES (?, ?, ?, ?, ?)", log);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO user_playevents (user_id, song_id, play_time, song_title) VALUES (?, ?, ?, ?)"
+                        + " ON DUPLICATE KEY UPDATE play_time = GREATEST(play_time, VALUES(play_time))",
+                latest);
+    }
+
+    // One query for the titles of every distinct song in the batch.
+    private Map<Integer, String> findTitles(int[] songIds, int count) {
+        Set<Integer> ids = new TreeSet<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(songIds[i]);
+        }
+        Map<Integer, String> titles = new HashMap<>();
+        RowCallbackHandler addTitle = rs -> titles.put(rs.getInt(1), rs.getString(2));
+        namedParameterJdbcTemplate.query("SELECT song_id, title FROM SONGS WHERE song_id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), addTitle);
+        return titles;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.soundhiveapi.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// The append-only play_log and the rollups compacted from it:
+//   user_song_plays(user_id, song_id, play_count, last_played)
+//   song_daily_plays(song_id, play_day, play_count)
+// play_log is partitioned by log_day (the day a play was written, so partitions fill in order);
+// play_day is the day the play happened. Compaction folds rows above the play_log_compaction
+// watermark into the rollups and moves the watermark in the same transaction, so every row is
+// counted exactly once. Days are epoch days (UTC).
+@Repository
+public class PlayLogRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public record SongDayPlays(LocalDate day, long plays) { }
+
+    public interface SongPlayCountHandler {
+        void accept(int songId, long plays);
+    }
+
+    public static int epochDay(long millis) {
+        return (int) Math.floorDiv(millis, TimeUnit.DAYS.toMillis(1));
+    }
+
+    // Compacts up to maxRows log rows past the watermark that were written at least lagMillis ago
+    // (database time). The lag keeps compaction behind writes that took an ID but have not
+    // committed yet. Returns the number of rows compacted; 0 when there is nothing left.
+    @Transactional
+    public int compactNext(int maxRows, long lagMillis) {
+        Map<String, Object> mark = jdbcTemplate.queryForMap(
+                "SELECT last_play_id, last_log_day FROM play_log_compaction WHERE id = 1 FOR UPDATE");
+        long fromId = ((Number) mark.get("last_play_id")).longValue();
+        int fromDay = ((Number) mark.get("last_log_day")).intValue();
+        Timestamp cutoff = new Timestamp(
+                jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP(3)", Timestamp.class).getTime() - lagMillis);
+
+        // the log_day bound only prunes partitions; one day of slack covers writers whose clocks
+        // disagree around midnight
+        fromDay -= 1;
+        List<long[]> ids = jdbcTemplate.query(
+                "SELECT play_id, log_day FROM play_log WHERE log_day >= ? AND play_id > ? AND logged_at <= ?"
+                        + " ORDER BY play_id LIMIT ?",
+                (rs, i) -> new long[] {rs.getLong(1), rs.getInt(2)}, fromDay, fromId, cutoff, maxRows);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long toId = ids.get(ids.size() - 1)[0];
+        int toDay = (int) ids.get(ids.size() - 1)[1];
+
+        List<Object[]> userSongs = jdbcTemplate.query(
+                "SELECT user_id, song_id, COUNT(*), MAX(play_time) FROM play_log"
+                        + " WHERE log_day >= ? AND play_id > ? AND play_id <= ? GROUP BY user_id, song_id",
+                (rs, i) -> new Object[] {rs.getString(1), rs.getInt(2), rs.getLong(3), rs.getTimestamp(4)},
+                fromDay, fromId, toId);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO user_song_plays (user_id, song_id, play_count, last_played) VALUES (?, ?, ?, ?)"
+                        + " ON DUPLICATE KEY UPDATE play_count = play_count + VALUES(play_count),"
+                        + " last_played = GREATEST(last_played, VALUES(last_played))",
+                userSongs);
+
+        List<Object[]> songDays = jdbcTemplate.query(
+                "SELECT song_id, play_day, COUNT(*) FROM play_log"
+                        + " WHERE log_day >= ? AND play_id > ? AND play_id <= ? GROUP BY song_id, play_day",
+                (rs, i) -> new Object[] {rs.getInt(1), rs.getInt(2), rs.getLong(3)},
+                fromDay, fromId, toId);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO song_daily_plays (song_id, play_day, play_count) VALUES (?, ?, ?)"
+                        + " ON DUPLICATE KEY UPDATE play_count = play_count + VALUES(play_count)",
+                songDays);
+
+        jdbcTemplate.update("UPDATE play_log_compaction SET last_play_id = ?, last_log_day = ?,"
+                + " compacted_at = CURRENT_TIMESTAMP(3) WHERE id = 1", toId, toDay);
+        return ids.size();
+    }
+
+    // Log day up to which every row has been compacted (rows of that day may remain).
+    public int compactedLogDay() {
+        Integer day = jdbcTemplate.queryForObject(
+                "SELECT last_log_day FROM play_log_compaction WHERE id = 1", Integer.class);
+        return day == null ? 0 : day;
+    }
+
+    // Daily play counts of one song from fromDay on, oldest first; days without plays are left out.
+    public List<SongDayPlays> findSongDailyPlays(int songId, int fromDay) {
+        return jdbcTemplate.query(
+                "SELECT play_day, play_count FROM song_daily_plays WHERE song_id = ? AND play_day >= ?"
+                        + " ORDER BY play_day",
+                (rs, i) -> new SongDayPlays(LocalDate.ofEpochDay(rs.getInt(1)), rs.getLong(2)), songId, fromDay);
+    }
+
+    // Total plays of every song from fromDay on, ordered by song ID; songs without plays are left out.
+    public void forEachSongPlayCount(int fromDay, SongPlayCountHandler handler) {
+        jdbcTemplate.query("SELECT song_id, SUM(play_count) FROM song_daily_plays WHERE play_day >= ?"
+                        + " GROUP BY song_id ORDER BY song_id",
+                rs -> {
+                    handler.accept(rs.getInt(1), rs.getLong(2));
+                }, fromDay);
+    }
+
+    // Total plays of one song from fromDay on.
+    public long countSongPlays(int songId, int fromDay) {
+        Long plays = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(play_count), 0) FROM song_daily_plays WHERE song_id = ? AND play_day >= ?",
+                Long.class, songId, fromDay);
+        return plays == null ? 0 : plays;
+    }
+
+    // Day partitions of play_log by the epoch day they end before; empty if the table is not
+    // partitioned. The MAXVALUE catch-all partition is left out.
+    public NavigableMap<Integer, String> findPartitions() {
+        NavigableMap<Integer, String> partitions = new TreeMap<>();
+        jdbcTemplate.query("SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS"
+                        + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'play_log' AND PARTITION_NAME IS NOT NULL",
+                rs -> {
+                    String bound = rs.getString(2);
+                    if (bound != null && !"MAXVALUE".equals(bound)) {
+                        partitions.put(Integer.parseInt(bound), rs.getString(1));
+                    }
+                });
+        return partitions;
+    }
+
+    // Whether play_log has the p_future catch-all partition that day partitions are split from.
+    public boolean hasCatchAllPartition() {
+        Integer found = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.PARTITIONS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'play_log' AND PARTITION_NAME = 'p_future'",
+                Integer.class);
+        return found != null && found > 0;
+    }
+
+    // Log day of the oldest row still in play_log, or null if it is empty.
+    public Integer findOldestLogDay() {
+        return jdbcTemplate.queryForObject("SELECT MIN(log_day) FROM play_log", Integer.class);
+    }
+
+    // Splits one partition per day off the catch-all partition, up to (excluding) untilDay.
+    public void addPartitions(int fromDay, int untilDay) {
+        if (fromDay >= untilDay) {
+            return;
+        }
+        List<String> parts = new ArrayList<>();
+        for (int day = fromDay; day < untilDay; day++) {
+            parts.add("PARTITION " + partitionName(day) + " VALUES LESS THAN (" + (day + 1) + ")");
+        }
+        parts.add("PARTITION p_future VALUES LESS THAN MAXVALUE");
+        jdbcTemplate.execute("ALTER TABLE play_log REORGANIZE PARTITION p_future INTO (" + String.join(", ", parts) + ")");
+    }
+
+    // Dropping a partition removes its rows without scanning them.
+    public void dropPartition(String name) {
+        if (!name.matches("p\\d{8}")) {
+            throw new IllegalArgumentException("Not a play_log day partition: " + name);
+        }
+        jdbcTemplate.execute("ALTER TABLE play_log DROP PARTITION " + name);
+    }
+
+    static String partitionName(int epochDay) {
+        return "p" + LocalDate.ofEpochDay(epochDay).toString().replace("-", "");
+    }
+}
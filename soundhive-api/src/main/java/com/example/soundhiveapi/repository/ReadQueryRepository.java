@@ -0,0 +1,164 @@
+package com.example.soundhiveapi.repository;
+
+import com.example.soundhiveapi.model.Song;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read-only lookups for the GET endpoints and the per-user reloads. Each query selects only the
+// columns its caller uses and maps rows straight into records or plain objects, so nothing goes
+// through entity hydration, the persistence context or dirty checking. Writes stay on the JPA
+// repositories.
+@Repository
+@Transactional(readOnly = true)
+public class ReadQueryRepository {
+
+    // IDs per "WHERE ... IN (...)" query.
+    static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public record TagWeightRow(String idNumber, int tagId, double weight) { }
+
+    // Public part of a user record (no password).
+    public record UserSummary(String idNumber, String username, String email) { }
+
+    private static final RowMapper<TagWeightRow> TAG_WEIGHT_ROW =
+            (rs, i) -> new TagWeightRow(rs.getString(1), rs.getInt(2), rs.getDouble(3));
+
+    private static final RowMapper<Song> SONG = (rs, i) -> {
+        Song song = new Song();
+        song.setSongId(rs.getInt(1));
+        song.setTitle(rs.getString(2));
+        song.setArtist(rs.getString(3));
+        return song;
+    };
+
+    // The user's stored weights, ordered by tag ID.
+    public List<TagWeightRow> findTagWeights(String idNumber) {
+        return jdbcTemplate.query(
+                "SELECT id_number, tag_id, weight FROM user_tagweights WHERE id_number = ? ORDER BY tag_id",
+                TAG_WEIGHT_ROW, idNumber);
+    }
+
+    // The stored weights of all given users, ordered by (id_number, tag_id) within each batch.
+    public List<TagWeightRow> findTagWeights(Collection<String> idNumbers) {
+        List<TagWeightRow> rows = new ArrayList<>();
+        for (List<String> batch : batches(idNumbers)) {
+            rows.addAll(namedParameterJdbcTemplate.query(
+                    "SELECT id_number, tag_id, weight FROM user_tagweights WHERE id_number IN (:ids)"
+                            + " ORDER BY id_number, tag_id",
+                    new MapSqlParameterSource("ids", batch), TAG_WEIGHT_ROW));
+        }
+        return rows;
+    }
+
+    public List<String> findDistinctTagWeightUserIds() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT id_number FROM user_tagweights", String.class);
+    }
+
+    // IDs of the user's most recently played songs, most recent first.
+    public int[] findRecentSongIds(String userId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT song_id FROM user_playevents WHERE user_id = ? ORDER BY play_time DESC LIMIT ?",
+                (rs, i) -> rs.getInt(1), userId, limit)
+                .stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // IDs of every song the user has played, ascending.
+    public int[] findPlayedSongIds(String userId) {
+        return jdbcTemplate.query(
+                "SELECT song_id FROM user_playevents WHERE user_id = ? ORDER BY song_id",
+                (rs, i) -> rs.getInt(1), userId)
+                .stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Played song IDs (ascending) keyed by user ID, for the given users; users without plays are
+    // left out.
+    public Map<String, int[]> findPlayedSongIds(Collection<String> userIds) {
+        Map<String, int[]> played = new HashMap<>();
+        for (List<String> batch : batches(userIds)) {
+            List<Object[]> rows = namedParameterJdbcTemplate.query(
+                    "SELECT user_id, song_id FROM user_playevents WHERE user_id IN (:ids) ORDER BY user_id, song_id",
+                    new MapSqlParameterSource("ids", batch), (rs, i) -> new Object[] {rs.getString(1), rs.getInt(2)});
+            for (int from = 0; from < rows.size(); ) {
+                String userId = (String) rows.get(from)[0];
+                int to = from;
+                while (to < rows.size() && userId.equals(rows.get(to)[0])) {
+                    to++;
+                }
+                int[] songIds = new int[to - from];
+                for (int i = from; i < to; i++) {
+                    songIds[i - from] = (Integer) rows.get(i)[1];
+                }
+                played.put(userId, songIds);
+                from = to;
+            }
+        }
+        return played;
+    }
+
+    // Users who played something since the given time, most recent player first.
+    public List<String> findRecentlyActiveUserIds(long sinceMillis, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT user_id FROM user_playevents WHERE play_time >= ? GROUP BY user_id"
+                        + " ORDER BY MAX(play_time) DESC LIMIT ?",
+                String.class, new Timestamp(sinceMillis), limit);
+    }
+
+    // Songs without their tags, keyed by ID; unknown IDs are left out.
+    public Map<Integer, Song> findSongs(Collection<Integer> songIds) {
+        Map<Integer, Song> byId = new HashMap<>();
+        for (List<Integer> batch : batches(songIds)) {
+            for (Song song : namedParameterJdbcTemplate.query(
+                    "SELECT song_id, title, artist FROM SONGS WHERE song_id IN (:ids)",
+                    new MapSqlParameterSource("ids", batch), SONG)) {
+                byId.put(song.getSongId(), song);
+            }
+        }
+        return byId;
+    }
+
+    // Returns null if the user does not exist.
+    public UserSummary findUserSummary(String idNumber) {
+        List<UserSummary> found = jdbcTemplate.query(
+                "SELECT id_number, username, email FROM USERS WHERE id_number = ?",
+                (rs, i) -> new UserSummary(rs.getString(1), rs.getString(2), rs.getString(3)), idNumber);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    // Usernames keyed by user ID; unknown IDs are left out.
+    public Map<String, String> findUsernames(Collection<String> idNumbers) {
+        Map<String, String> usernames = new HashMap<>();
+        for (List<String> batch : batches(idNumbers)) {
+            namedParameterJdbcTemplate.query("SELECT id_number, username FROM USERS WHERE id_number IN (:ids)",
+                    new MapSqlParameterSource("ids", batch),
+                    rs -> { usernames.put(rs.getString(1), rs.getString(2)); });
+        }
+        return usernames;
+    }
+
+    private static <T> List<List<T>> batches(Collection<T> ids) {
+        List<T> all = new ArrayList<>(ids);
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += BATCH_SIZE) {
+            batches.add(all.subList(from, Math.min(all.size(), from + BATCH_SIZE)));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.soundhiveapi.repository;
+
+import com.example.soundhiveapi.index.PackedSongTags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Reads and writes the song_tags table (song_id, tag_position, tag_id).
+@Repository
+public class SongTagRepository {
+
+    // Song IDs per "WHERE song_id IN (...)" query.
+    static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Loads the tags of all given songs with one query per BATCH_SIZE song IDs.
+    public PackedSongTags findTagIds(Collection<Integer> songIds) {
+        int[] ids = songIds.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        PackedSongTags packed = new PackedSongTags(ids);
+        RowCallbackHandler setTag = rs -> packed.set(rs.getInt(1), rs.getInt(2), rs.getInt(3));
+        for (int from = 0; from < ids.length; from += BATCH_SIZE) {
+            int[] batch = Arrays.copyOfRange(ids, from, Math.min(ids.length, from + BATCH_SIZE));
+            namedParameterJdbcTemplate.query(
+                    "SELECT song_id, tag_position, tag_id FROM song_tags WHERE song_id IN (:ids)",
+                    new MapSqlParameterSource("ids", Arrays.stream(batch).boxed().toList()),
+                    setTag);
+        }
+        return packed;
+    }
+
+    // Replaces the tags of one song.
+    @Transactional
+    public void saveTagIds(int songId, int[] tagIds) {
+        jdbcTemplate.update("DELETE FROM song_tags WHERE song_id = ?", songId);
+        List<Object[]> rows = new ArrayList<>(tagIds.length);
+        for (int position = 0; position < tagIds.length; position++) {
+            rows.add(new Object[] {songId, position, tagIds[position]});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO song_tags (song_id, tag_position, tag_id) VALUES (?, ?, ?)", rows);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.soundhiveapi.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Batched learning updates to user_tagweights (MySQL).
+@Repository
+public class TagWeightUpdateRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // For every user, first decays all of the user's weights to now
+    // (weight * e^(-decayPerSecond * seconds since updated_at)), then adds the increments.
+    // Decaying a user's whole row together keeps the ranking of their tags time-consistent.
+    // "Now" is the database's CURRENT_TIMESTAMP(3), the same clock and session time zone that
+    // the column default and every other write use, so elapsed times are never off by a zone offset.
+    @Transactional
+    public void decayAndAdd(List<String> userIds, String[] rowUsers, int[] rowTags, double[] rowIncrements,
+                            int rowCount, double decayPerSecond) {
+        List<Object[]> decays = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            decays.add(new Object[] {-decayPerSecond, userId});
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE user_tagweights SET weight = weight"
+                        + " * EXP(TIMESTAMPDIFF(MICROSECOND, updated_at, CURRENT_TIMESTAMP(3)) / 1e6 * ?),"
+                        + " updated_at = CURRENT_TIMESTAMP(3) WHERE id_number = ?",
+                decays);
+
+        List<Object[]> increments = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            increments.add(new Object[] {rowUsers[i], rowTags[i], rowIncrements[i]});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO user_tagweights (id_number, tag_id, weight, updated_at)"
+                        + " VALUES (?, ?, ?, CURRENT_TIMESTAMP(3))"
+                        + " ON DUPLICATE KEY UPDATE weight = weight + VALUES(weight), updated_at = CURRENT_TIMESTAMP(3)",
+                increments);
+    }
+}
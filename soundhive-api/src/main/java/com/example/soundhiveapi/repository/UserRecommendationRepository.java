@@ -0,0 +1,89 @@
+package com.example.soundhiveapi.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Batch-exported recommendations: user_recommendations(user_id, rank_pos, song_id, score) and
+// user_recommendation_parts, which records the export partitions already written for a layout
+// (see RecommendationExportJob). A partition's rows and its parts row are written in one
+// transaction, so a partition is either complete or redone on the next run.
+@Repository
+public class UserRecommendationRepository {
+
+    // Rows per JDBC batch.
+    static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Top recommendations of users userIds[0 .. users): user u's results are songIds / scores
+    // [u * k, u * k + counts[u]), best first.
+    public record Partition(int number, String[] userIds, int users, int k, int[] counts, int[] songIds,
+                            double[] scores) { }
+
+    // Partitions already written for this layout; parts of any other layout are forgotten.
+    @Transactional
+    public Set<Integer> findCompletedPartitions(String layout) {
+        jdbcTemplate.update("DELETE FROM user_recommendation_parts WHERE layout <> ?", layout);
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT part_no FROM user_recommendation_parts WHERE layout = ?", Integer.class, layout));
+    }
+
+    // Replaces the recommendations of the partition's users and marks the partition complete.
+    @Transactional
+    public void writePartition(String layout, Partition partition) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> trims = new ArrayList<>(BATCH_SIZE);
+        for (int u = 0; u < partition.users(); u++) {
+            int base = u * partition.k();
+            for (int r = 0; r < partition.counts()[u]; r++) {
+                rows.add(new Object[] {partition.userIds()[u], r, partition.songIds()[base + r],
+                        partition.scores()[base + r]});
+                if (rows.size() == BATCH_SIZE) {
+                    upsert(rows);
+                }
+            }
+            // a previous export may have stored more results for the user
+            trims.add(new Object[] {partition.userIds()[u], partition.counts()[u]});
+            if (trims.size() == BATCH_SIZE) {
+                trim(trims);
+            }
+        }
+        upsert(rows);
+        trim(trims);
+        // partitions of overlay-only users are written again by every run
+        jdbcTemplate.update("INSERT INTO user_recommendation_parts (part_no, layout, users) VALUES (?, ?, ?)"
+                        + " ON DUPLICATE KEY UPDATE layout = VALUES(layout), users = VALUES(users)",
+                partition.number(), layout, partition.users());
+    }
+
+    // The stored recommendations of one user as song IDs, best first.
+    public List<Integer> findSongIds(String userId) {
+        return jdbcTemplate.queryForList(
+                "SELECT song_id FROM user_recommendations WHERE user_id = ? ORDER BY rank_pos", Integer.class, userId);
+    }
+
+    private void upsert(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO user_recommendations (user_id, rank_pos, song_id, score)"
+                + " VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE song_id = VALUES(song_id), score = VALUES(score)", rows);
+        rows.clear();
+    }
+
+    private void trim(List<Object[]> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM user_recommendations WHERE user_id = ? AND rank_pos >= ?", users);
+        users.clear();
+    }
+}
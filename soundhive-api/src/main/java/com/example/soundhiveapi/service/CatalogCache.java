@@ -0,0 +1,168 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.model.Song;
+import com.example.soundhiveapi.model.Tag;
+import com.example.soundhiveapi.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Read-through caches in front of the catalog lookups in MyJdbcService.
+// Size-bounded (Caffeine's W-TinyLFU eviction) with a time-to-live. Missing songs and emails are
+// cached as Optional.empty() with a shorter TTL, so repeated misses don't reach MySQL either.
+// Writers must call the matching invalidate method once their transaction has committed; saved
+// songs are invalidated through SongSavedEvent.
+// Loads go through SingleFlight, so concurrent misses for the same key share one query, also
+// between single and bulk lookups and between overlapping bulk lookups (Caffeine only
+// coalesces single-key loads with each other).
+@Component
+public class CatalogCache {
+
+    private static final String ALL_TAGS = "all";
+
+    private final Cache<Integer, Optional<Song>> songs;
+    private final Cache<String, Optional<User>> usersByEmail;
+    private final Cache<String, List<Tag>> tags;
+
+    private final SingleFlight<Integer, Song> songLoads = new SingleFlight<>();
+    private final SingleFlight<String, User> userLoads = new SingleFlight<>();
+    private final SingleFlight<String, List<Tag>> tagLoads = new SingleFlight<>();
+
+    public CatalogCache(@Value("${soundhive.cache.songs.max-size:100000}") long maxSongs,
+                        @Value("${soundhive.cache.songs.ttl:10m}") Duration songTtl,
+                        @Value("${soundhive.cache.users.max-size:100000}") long maxUsers,
+                        @Value("${soundhive.cache.users.ttl:5m}") Duration userTtl,
+                        @Value("${soundhive.cache.tags.ttl:1h}") Duration tagTtl,
+                        @Value("${soundhive.cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.songs = Caffeine.newBuilder()
+                .maximumSize(maxSongs)
+                .expireAfter(new PresentOrAbsentExpiry<Integer, Song>(songTtl, negativeTtl))
+                .recordStats()
+                .build();
+        this.usersByEmail = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfter(new PresentOrAbsentExpiry<String, User>(userTtl, negativeTtl))
+                .recordStats()
+                .build();
+        this.tags = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(tagTtl)
+                .recordStats()
+                .build();
+    }
+
+    // Returns the song, loading it on a miss; null if it does not exist.
+    public Song getSong(int songId, Function<Integer, Song> loader) {
+        return songs.get(songId, id -> Optional.ofNullable(songLoads.load(id, loader))).orElse(null);
+    }
+
+    // Returns the songs that exist, keyed by ID. Misses are loaded together with one loader call.
+    public Map<Integer, Song> getSongs(Collection<Integer> songIds,
+                                       Function<Set<Integer>, Map<Integer, Song>> loader) {
+        Map<Integer, Optional<Song>> cached = songs.getAll(songIds, missing -> {
+            Set<Integer> ids = Set.copyOf(missing);
+            Map<Integer, Song> loaded = songLoads.loadAll(ids, loader);
+            Map<Integer, Optional<Song>> result = new HashMap<>();
+            for (Integer id : ids) {
+                result.put(id, Optional.ofNullable(loaded.get(id)));
+            }
+            return result;
+        });
+        Map<Integer, Song> found = new LinkedHashMap<>();
+        cached.forEach((id, song) -> song.ifPresent(s -> found.put(id, s)));
+        return found;
+    }
+
+    public void invalidateSong(int songId) {
+        songLoads.forget(songId);
+        songs.invalidate(songId);
+    }
+
+    // After commit: invalidating inside the transaction would let a concurrent read load and cache
+    // the old row again before the new one is visible.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSongSaved(SongSavedEvent event) {
+        invalidateSong(event.getSong().getSongId());
+    }
+
+    public User getUserByEmail(String email, Function<String, User> loader) {
+        return usersByEmail.get(email, e -> Optional.ofNullable(userLoads.load(e, loader))).orElse(null);
+    }
+
+    public void invalidateUser(String email) {
+        userLoads.forget(email);
+        usersByEmail.invalidate(email);
+    }
+
+    public List<Tag> getTags(Supplier<List<Tag>> loader) {
+        return tags.get(ALL_TAGS, key -> tagLoads.load(key, k -> List.copyOf(loader.get())));
+    }
+
+    public void invalidateTags() {
+        tagLoads.forget(ALL_TAGS);
+        tags.invalidateAll();
+    }
+
+    // Hit / miss / eviction counters per cache.
+    public Map<String, Map<String, Number>> stats() {
+        Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+        stats.put("songs", describe(songs));
+        stats.put("usersByEmail", describe(usersByEmail));
+        stats.put("tags", describe(tags));
+        return stats;
+    }
+
+    private static Map<String, Number> describe(Cache<?, ?> cache) {
+        CacheStats s = cache.stats();
+        Map<String, Number> out = new LinkedHashMap<>();
+        out.put("size", cache.estimatedSize());
+        out.put("hits", s.hitCount());
+        out.put("misses", s.missCount());
+        out.put("hitRate", s.hitRate());
+        out.put("evictions", s.evictionCount());
+        out.put("loadFailures", s.loadFailureCount());
+        return out;
+    }
+
+    // Present values live for ttl, cached misses for negativeTtl.
+    private static class PresentOrAbsentExpiry<K, V> implements Expiry<K, Optional<V>> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        PresentOrAbsentExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(K key, Optional<V> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, Optional<V> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(K key, Optional<V> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.FactorModel;
+import com.example.soundhiveapi.index.ImplicitAlsTrainer;
+import com.example.soundhiveapi.index.InteractionMatrix;
+import com.example.soundhiveapi.repository.BulkReadRepository;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Offline collaborative-filtering job: reads the user_song_plays rollup, trains user and song
+// factors with implicit ALS on a dedicated ForkJoin pool, writes them to soundhive.factors.path
+// and hands the new model to RecommendationService.
+// Runs on soundhive.factors.train-cron (disabled by default) or when train() is called.
+@Service
+public class FactorTrainingJob {
+
+    private static final Logger log = LoggerFactory.getLogger(FactorTrainingJob.class);
+
+    @Autowired
+    private BulkReadRepository bulkReadRepository;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Value("${soundhive.factors.path:data/factors.bin}")
+    private Path modelPath;
+
+    @Value("${soundhive.factors.factors:32}")
+    private int factors;
+
+    @Value("${soundhive.factors.iterations:10}")
+    private int iterations;
+
+    @Value("${soundhive.factors.regularization:0.1}")
+    private double regularization;
+
+    @Value("${soundhive.factors.alpha:10}")
+    private double alpha;
+
+    // Unplayed songs kept per user for serving; each costs 4 bytes per user in memory and on disk.
+    @Value("${soundhive.factors.candidates-per-user:200}")
+    private int candidatesPerUser;
+
+    // 0 uses every available core.
+    @Value("${soundhive.factors.parallelism:0}")
+    private int parallelism;
+
+    @Scheduled(cron = "${soundhive.factors.train-cron:-}")
+    public synchronized FactorModel train() {
+        long started = System.nanoTime();
+        InteractionMatrix.Builder builder = new InteractionMatrix.Builder();
+        bulkReadRepository.forEachUserSongPlays((userId, songId, playCount) -> builder.add(userId, songId));
+        InteractionMatrix plays = builder.build();
+        long loaded = System.nanoTime();
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        FactorModel model;
+        try {
+            model = new ImplicitAlsTrainer(factors, iterations, regularization, alpha, 42, candidatesPerUser)
+                    .train(plays, pool);
+        } finally {
+            pool.shutdown();
+        }
+        long trained = System.nanoTime();
+        Metrics.timer("soundhive.build", "structure", "factor_model").record(trained - started, TimeUnit.NANOSECONDS);
+
+        try {
+            Path dir = modelPath.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            model.write(modelPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write factor model to " + modelPath, e);
+        }
+        recommendationService.setFactorModel(model);
+        log.info("Trained {} factors for {} users x {} songs from {} plays on {} threads "
+                        + "(load {} ms, train {} ms)", factors, plays.numUsers(), plays.numSongs(), plays.nnz(),
+                threads, (loaded - started) / 1_000_000, (trained - loaded) / 1_000_000);
+        return model;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.repository.UserRecommendationRepository.Partition;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+
+// Writes each export partition to dir/part-NNNNN.tsv as "user_id<TAB>rank<TAB>song_id<TAB>score"
+// lines. A partition is written to a temporary file and renamed, so a part file only exists
+// once it is complete. dir/LAYOUT holds the layout the part files belong to; a different layout
+// clears the directory.
+class FileRecommendationSink implements RecommendationExportJob.Sink {
+
+    private static final String LAYOUT_FILE = "LAYOUT";
+
+    private final Path dir;
+
+    FileRecommendationSink(Path dir) {
+        this.dir = dir;
+    }
+
+    @Override
+    public Set<Integer> completed(String layout) {
+        Set<Integer> parts = new HashSet<>();
+        try {
+            Files.createDirectories(dir);
+            Path layoutFile = dir.resolve(LAYOUT_FILE);
+            boolean sameLayout = Files.exists(layoutFile) && Files.readString(layoutFile).equals(layout);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "part-*")) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (sameLayout && name.matches("part-\\d+\\.tsv")) {
+                        parts.add(Integer.parseInt(name.substring(5, name.length() - 4)));
+                    } else {
+                        Files.delete(file);
+                    }
+                }
+            }
+            if (!sameLayout) {
+                Files.writeString(layoutFile, layout);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read export directory " + dir, e);
+        }
+        return parts;
+    }
+
+    @Override
+    public void write(String layout, Partition partition) {
+        Path file = dir.resolve(String.format("part-%05d.tsv", partition.number()));
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (int u = 0; u < partition.users(); u++) {
+                    int base = u * partition.k();
+                    for (int r = 0; r < partition.counts()[u]; r++) {
+                        out.write(partition.userIds()[u]);
+                        out.write('\t');
+                        out.write(Integer.toString(r));
+                        out.write('\t');
+                        out.write(Integer.toString(partition.songIds()[base + r]));
+                        out.write('\t');
+                        out.write(Double.toString(partition.scores()[base + r]));
+                        out.write('\n');
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file, e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.model.Song;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import com.example.soundhiveapi.repository.ReadQueryRepository.UserSummary;
+import com.example.soundhiveapi.service.MyJdbcService.TagWeight;
+import com.example.soundhiveapi.service.RecommendationService.Recommendation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Everything the client's home screen needs after login, fetched in one request. The profile,
+// top tags, recent plays and recommendations are looked up concurrently, each on its own virtual
+// thread, so the request takes as long as the slowest lookup rather than the sum of all of them.
+// Every lookup must finish within the branch timeout. A lookup that is too slow or fails is
+// cancelled and left out of the response, and its name is listed in `missing`.
+// Cancelling interrupts the thread, but a JDBC call does not notice interrupts, so each lookup
+// also runs in a read-only transaction with the branch timeout as its timeout. The driver then
+// stops its statements, but only at whole seconds: a slow query can outlive the request by up to
+// the timeout rounded up to the next second.
+@Service
+public class HomeService {
+
+    private static final Logger log = LoggerFactory.getLogger(HomeService.class);
+
+    @Autowired
+    private MyJdbcService myJdbcService;
+
+    @Autowired
+    private RecommendationCache recommendationCache;
+
+    @Autowired
+    private ReadQueryRepository readQueryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${soundhive.home.branch-timeout-ms:500}")
+    private long branchTimeoutMillis;
+
+    @Value("${soundhive.home.top-tags:5}")
+    private int topTags;
+
+    @Value("${soundhive.home.recommendations:10}")
+    private int recommendations;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private TransactionTemplate branchTransaction;
+
+    @PostConstruct
+    public void init() {
+        branchTransaction = new TransactionTemplate(transactionManager);
+        branchTransaction.setReadOnly(true);
+        // transaction timeouts are whole seconds
+        branchTransaction.setTimeout((int) Math.max(1, (branchTimeoutMillis + 999) / 1000));
+    }
+
+    // Returns null if the user does not exist.
+    public HomeScreen getHome(String idNumber) {
+        Future<UserSummary> user = submit(() -> readQueryRepository.findUserSummary(idNumber));
+        Future<List<TagWeight>> tags = submit(() -> myJdbcService.getUserTopTags(idNumber, topTags));
+        Future<List<Song>> recent = submit(() -> myJdbcService.getUserPlayEvents(idNumber));
+        Future<List<Recommendation>> recommended = submit(() -> recommendationCache.get(idNumber, recommendations));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(branchTimeoutMillis);
+        List<String> missing = new ArrayList<>();
+        UserSummary found = join("profile", user, deadline, missing, () -> null);
+        if (found == null && missing.isEmpty()) {
+            cancel(tags, recent, recommended);
+            return null;
+        }
+        HomeScreen home = new HomeScreen();
+        home.profile = found;
+        home.topTags = join("topTags", tags, deadline, missing, List::of);
+        home.recentPlays = join("recentPlays", recent, deadline, missing, List::of);
+        home.recommendations = join("recommendations", recommended, deadline, missing, List::of);
+        home.missing = missing;
+        return home;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Runs the lookup on its own virtual thread, inside a transaction that bounds its queries.
+    private <T> Future<T> submit(Supplier<T> lookup) {
+        return executor.submit(() -> branchTransaction.execute(status -> lookup.get()));
+    }
+
+    // Waits for the branch until the shared deadline. A branch that is late is interrupted;
+    // a late or failed branch is recorded in missing and replaced by the fallback.
+    private <T> T join(String branch, Future<T> future, long deadline, List<String> missing, Supplier<T> fallback) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Home screen branch {} timed out after {} ms", branch, branchTimeoutMillis);
+        } catch (ExecutionException | CancellationException e) {
+            log.warn("Home screen branch {} failed", branch, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+        }
+        missing.add(branch);
+        return fallback.get();
+    }
+
+    private static void cancel(Future<?>... futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    // The home screen response; sections that did not arrive in time are empty and named in missing.
+    public static class HomeScreen {
+        private UserSummary profile;
+        private List<TagWeight> topTags;
+        private List<Song> recentPlays;
+        private List<Recommendation> recommendations;
+        private List<String> missing;
+
+        public UserSummary getProfile() { return profile; }
+        public List<TagWeight> getTopTags() { return topTags; }
+        public List<Song> getRecentPlays() { return recentPlays; }
+        public List<Recommendation> getRecommendations() { return recommendations; }
+        public List<String> getMissing() { return missing; }
+    }
+}
@@ -1,21 +1,28 @@
 package com.example.soundhiveapi.service;
 
+import com.example.soundhiveapi.index.PackedSongTags;
+import com.example.soundhiveapi.index.TagIndex;
+import com.example.soundhiveapi.index.TopK;
+import com.example.soundhiveapi.index.UserProfile;
+import com.example.soundhiveapi.index.UserTagMatrix;
 import com.example.soundhiveapi.model.User;
 import com.example.soundhiveapi.model.Tag;
 import com.example.soundhiveapi.model.Song;
 import com.example.soundhiveapi.model.UserTagWeight;
-import com.example.soundhiveapi.model.UserPlayEvent;
+import com.example.soundhiveapi.repository.PlayLogRepository;
+import com.example.soundhiveapi.repository.PlayLogRepository.SongDayPlays;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
 import com.example.soundhiveapi.repository.UserRepository;
 import com.example.soundhiveapi.repository.TagRepository;
 import com.example.soundhiveapi.repository.SongRepository;
+import com.example.soundhiveapi.repository.SongTagRepository;
 import com.example.soundhiveapi.repository.UserTagWeightRepository;
-import com.example.soundhiveapi.repository.UserPlayEventRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.PriorityQueue;
-import java.util.LinkedList;
 import java.util.List;
 
 @Service
@@ -34,11 +41,37 @@ public class MyJdbcService {
     private UserTagWeightRepository userTagWeightRepository;
 
     @Autowired
-    private UserPlayEventRepository userPlayEventRepository;
+    private ReadQueryRepository readQueryRepository;
+
+    @Autowired
+    private PlayLogRepository playLogRepository;
+
+    @Autowired
+    private UserProfileStore userProfileStore;
+
+    @Autowired
+    private SongTagRepository songTagRepository;
+
+    @Autowired
+    private RecentPlaysCache recentPlaysCache;
+
+    @Autowired
+    private PlayEventIngestor playEventIngestor;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Built from one getAllTags() list; rebuilt when the tag cache hands out a new list.
+    private record TagDictionary(List<Tag> source, TagIndex index) { }
+
+    private volatile TagDictionary tagDictionary;
 
     // Function 1: Get a user by email.
     public User getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return catalogCache.getUserByEmail(email, userRepository::findByEmail);
     }
 
     // Function 2: Check if the provided password matches the user's password.
@@ -48,105 +81,190 @@ public class MyJdbcService {
 
     // Function 3: Retrieve all tags.
     public List<Tag> getAllTags() {
-        return tagRepository.findAllByOrderByTagIdAsc();
+        return catalogCache.getTags(tagRepository::findAllByOrderByTagIdAsc);
     }
 
-    // Function 4: Retrieve the last 20 played songs for a user.
-    public Queue<Song> getUserPlayEvents(String idNumber) {
-        List<UserPlayEvent> events = userPlayEventRepository.findTop20ByUserIdOrderByPlayTimeDesc(idNumber);
-        Queue<Song> songQueue = new LinkedList<>();
-        for (UserPlayEvent event : events) {
-            Song song = getSongById(event.getSongId());
-            if (song != null) {
-                songQueue.add(song);
-            }
+    // Function 4: Retrieve the last 20 played songs for a user, most recent first.
+    // The song IDs come from the in-memory ring buffer when the user is cached; the songs are
+    // then resolved with one batched lookup instead of one query per event.
+    public List<Song> getUserPlayEvents(String idNumber) {
+        int[] songIds = recentPlaysCache.get(idNumber);
+        if (songIds == null) {
+            songIds = recentPlaysCache.put(idNumber,
+                    readQueryRepository.findRecentSongIds(idNumber, RecentPlaysCache.CAPACITY));
+        }
+        List<Integer> ids = new ArrayList<>(songIds.length);
+        for (int songId : songIds) {
+            ids.add(songId);
         }
-        return songQueue;
+        return getSongsByIds(ids);
     }
 
-    // Function 5: Build the user x tag weights matrix using real data.
-    public double[][] getUserTagWeightsMatrix() {
-        List<String> userIds = getDistinctUserIds();
-        List<Tag> tags = tagRepository.findAll();
-
-        int numUsers = userIds.size();
-        int numTags = tags.size();
-        double[][] matrix = new double[numUsers][numTags];
-
-        Map<Integer, Integer> tagIndexMap = new HashMap<>();
-        for (int i = 0; i < tags.size(); i++) {
-            tagIndexMap.put(tags.get(i).getTagId(), i);
-        }
+    // Function 4b: Record that a user played a song. The play is queued and written in the
+    // background; returns false if the ingestion queue is full.
+    public boolean recordPlay(String idNumber, int songId, long playTimeMillis) {
+        return playEventIngestor.offer(idNumber, songId, playTimeMillis);
+    }
 
-        List<UserTagWeight> weights = userTagWeightRepository.findAll();
-        for (UserTagWeight w : weights) {
-            int userIndex = userIds.indexOf(w.getIdNumber());
-            Integer tagIndex = tagIndexMap.get(w.getTagId());
-            if (userIndex >= 0 && tagIndex != null) {
-                matrix[userIndex][tagIndex] = w.getWeight();
-            }
-        }
-        return matrix;
+    // Function 5: The user x tag weights matrix with every write and learner update applied.
+    // Built from UserProfileStore's in-memory profiles on each call, without querying MySQL.
+    public UserTagMatrix getUserTagWeightsMatrix() {
+        return userProfileStore.getCurrentMatrix();
     }
 
     // Function 6: Retrieve distinct user IDs from the user_tagweights table.
     public List<String> getDistinctUserIds() {
-        return userTagWeightRepository.findDistinctUserIds();
+        return readQueryRepository.findDistinctTagWeightUserIds();
     }
 
-    // Function 7: Retrieve a max-heap of tag weights for a given user.
-    public PriorityQueue<TagWeight> getUserTagMaxHeap(
-            String idNumber,
-            double[][] matrix,
-            List<String> distinctUserIds,
-            List<Tag> allTags
-    ) {
-        int rowIndex = distinctUserIds.indexOf(idNumber);
-        PriorityQueue<TagWeight> maxHeap =
-                new PriorityQueue<>((a, b) -> Double.compare(b.getWeight(), a.getWeight()));
-        if (rowIndex == -1) {
-            return maxHeap;
+    // Function 7: Retrieve the user's k highest-weighted tags, best first.
+    // Selects over the user's stored weights with a size-k min-heap, so a call allocates O(k).
+    public List<TagWeight> getUserTopTags(String idNumber, int k) {
+        UserProfile profile = userProfileStore.getProfile(idNumber);
+        if (k <= 0 || profile.size() == 0) {
+            return List.of();
+        }
+        TopK top = new TopK(Math.min(k, profile.size()));
+        for (int i = 0; i < profile.size(); i++) {
+            top.offer(profile.colAt(i), profile.weightAt(i));
         }
-        for (int i = 0; i < matrix[rowIndex].length; i++) {
-            double weight = matrix[rowIndex][i];
-            Tag tag = allTags.get(i);
-            TagWeight tagWeight = new TagWeight(tag.getTagId(), tag.getTagName(), weight);
-            maxHeap.add(tagWeight);
+        top.sortDescending();
+        TagIndex tags = userProfileStore.getTags();
+        List<TagWeight> result = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            int col = top.idAt(i);
+            result.add(new TagWeight(tags.tagIdAt(col), tags.tagNameAt(col), top.scoreAt(i)));
         }
-        return maxHeap;
+        return result;
     }
 
-     // Function 8: Returns a double[] vector of this user’s tag‑weights.
+     // Function 8: Returns a double[] vector of this user’s tag‑weights (ordered by tag ID).
     public double[] getUserTagWeightsArray(String idNumber) {
-        // 1. Get all tags (defines the vector length and order)
-        List<Tag> tags = getAllTags();
+        return userProfileStore.getProfile(idNumber).toDense(userProfileStore.getTags().size());
+    }
 
-        // 2. Prepare the result array, initialized to 0.0
-        double[] weightsVector = new double[tags.size()];
+    // Function 9: Write one tag weight; the in-memory profile is patched after the commit.
+    @Transactional
+    public void updateUserTagWeight(String idNumber, int tagId, double weight) {
+        userTagWeightRepository.save(new UserTagWeight(idNumber, tagId, weight));
+        eventPublisher.publishEvent(new TagWeightSavedEvent(idNumber, tagId, weight));
+    }
 
-        // 3. Load only this user’s tag‑weight rows
-        List<UserTagWeight> userWeights = userTagWeightRepository.findByIdNumber(idNumber);
+    // Function 10: Rebuild all in-memory profiles from user_tagweights.
+    public void resyncUserProfiles() {
+        userProfileStore.resync();
+    }
+
+    // Function 11: Daily play counts of a song over the last `days` days (today included), oldest
+    // first. Read from the song_daily_plays rollup, so plays newer than the last compaction are
+    // not counted yet.
+    public List<SongDayPlays> getSongDailyPlays(int songId, int days) {
+        int today = PlayLogRepository.epochDay(System.currentTimeMillis());
+        return playLogRepository.findSongDailyPlays(songId, today - days + 1);
+    }
 
-        // 4. For each record, find its index in the tags list and store the weight
-        for (UserTagWeight w : userWeights) {
-            int tagId = w.getTagId();
-            double weight = w.getWeight();
 
-            // scan tags list to find matching tagId
-            for (int i = 0; i < tags.size(); i++) {
-                if (tags.get(i).getTagId() == tagId) {
-                    weightsVector[i] = weight;
-                    break;  // stop inner loop once found
-                }
+    // Helper: Retrieve a Song by its ID, with its tags.
+    public Song getSongById(int songId) {
+        return catalogCache.getSong(songId, this::loadSong);
+    }
+
+    // Helper: Retrieve songs by ID, with their tags, in the order of the given IDs.
+    // Cached songs are served from memory; the rest are loaded with one query for the songs
+    // plus one song_tags query per batch of IDs.
+    public List<Song> getSongsByIds(List<Integer> songIds) {
+        Map<Integer, Song> byId = catalogCache.getSongs(songIds, this::loadSongs);
+        List<Song> songs = new ArrayList<>(songIds.size());
+        for (Integer songId : songIds) {
+            Song song = byId.get(songId);
+            if (song != null) {
+                songs.add(song);
             }
         }
-        return weightsVector;
+        return songs;
     }
 
+    // Helper: Save a song and its 5 tags. Throws IllegalArgumentException, before anything is
+    // written, unless the song has exactly PackedSongTags.TAGS_PER_SONG tags.
+    @Transactional
+    public Song saveSong(Song song) {
+        Tag[] tags = song.getTags();
+        if (tags == null || tags.length != PackedSongTags.TAGS_PER_SONG) {
+            throw new IllegalArgumentException("Exactly " + PackedSongTags.TAGS_PER_SONG + " tags are required.");
+        }
+        for (Tag tag : tags) {
+            if (tag == null) {
+                throw new IllegalArgumentException("Song tags must not be null.");
+            }
+        }
+        PackedSongTags previous = songTagRepository.findTagIds(List.of(song.getSongId()));
+        int[] previousTagIds = new int[previous.isComplete(song.getSongId()) ? PackedSongTags.TAGS_PER_SONG : 0];
+        for (int p = 0; p < previousTagIds.length; p++) {
+            previousTagIds[p] = previous.tagIdAt(song.getSongId(), p);
+        }
+        Song saved = songRepository.save(song);
+        int[] tagIds = new int[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            tagIds[i] = tags[i].getTagId();
+        }
+        songTagRepository.saveTagIds(saved.getSongId(), tagIds);
+        saved.setTags(tags);
+        // CatalogCache invalidates the song once this commits
+        eventPublisher.publishEvent(new SongSavedEvent(saved, previousTagIds, tagIds));
+        return saved;
+    }
 
-    // Helper: Retrieve a Song by its ID.
-    public Song getSongById(int songId) {
-        return songRepository.findById(songId).orElse(null);
+    // Helper: Load one song and its tags from the database.
+    private Song loadSong(int songId) {
+        return loadSongs(List.of(songId)).get(songId);
+    }
+
+    // Helper: Load songs and their tags from the database, keyed by ID.
+    // Songs are read as plain objects (no entities), since they are only ever served, not edited.
+    private Map<Integer, Song> loadSongs(Collection<Integer> songIds) {
+        Map<Integer, Song> byId = readQueryRepository.findSongs(songIds);
+        attachTags(new ArrayList<>(byId.values()));
+        return byId;
+    }
+
+    // Helper: Fill in the tags of the given songs from song_tags in bulk.
+    private void attachTags(List<Song> songs) {
+        if (songs.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(songs.size());
+        for (Song song : songs) {
+            ids.add(song.getSongId());
+        }
+        PackedSongTags packed = songTagRepository.findTagIds(ids);
+        TagIndex tags = tagDictionary();
+        for (Song song : songs) {
+            if (!packed.isComplete(song.getSongId())) {
+                continue;
+            }
+            Tag[] songTags = new Tag[PackedSongTags.TAGS_PER_SONG];
+            boolean known = true;
+            for (int p = 0; p < songTags.length && known; p++) {
+                int col = tags.columnOf(packed.tagIdAt(song.getSongId(), p));
+                known = col >= 0;
+                songTags[p] = known ? tags.tagAt(col) : null;
+            }
+            if (known) {
+                song.setTags(songTags);
+            }
+        }
+    }
+
+    // Helper: Shared tag ID -> Tag dictionary for the current tag list. The cached list only
+    // changes on expiry or invalidateTags(), so this is rebuilt just as often.
+    private TagIndex tagDictionary() {
+        List<Tag> tags = getAllTags();
+        TagDictionary current = tagDictionary;
+        if (current == null || current.source() != tags) {
+            current = new TagDictionary(tags, new TagIndex(tags));
+            tagDictionary = current;
+        }
+        return current.index();
     }
 
     // Inner class for pairing tag IDs, names, and weights.
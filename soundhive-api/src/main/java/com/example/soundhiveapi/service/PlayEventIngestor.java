@@ -0,0 +1,249 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.repository.PlayEventBatchRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Accepts plays into a bounded in-process queue and writes them to play_log and user_playevents
+// from a single background thread in batches. A play is acknowledged as soon as it is queued; when
+// the queue is full offer() returns false so the caller can push back on the client.
+// Transient failures (lost connections, failover, deadlocks, lock timeouts) are retried with
+// capped exponential backoff until the write goes through; meanwhile the queue fills up and
+// offer() starts refusing plays, so an outage turns into backpressure instead of lost plays.
+// A batch that fails for any other reason is written row by row, so a bad row (e.g. an unknown
+// song) only loses itself instead of the whole batch.
+@Service
+public class PlayEventIngestor {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayEventIngestor.class);
+
+    @Autowired
+    private PlayEventBatchRepository playEventBatchRepository;
+
+    @Autowired(required = false)
+    private List<PlayEventListener> listeners = List.of();
+
+    @Value("${soundhive.plays.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${soundhive.plays.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${soundhive.plays.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    // Wait before the first retry of a transient failure; doubled for each further retry up to
+    // max-retry-backoff-ms.
+    @Value("${soundhive.plays.retry-backoff-ms:100}")
+    private long retryBackoffMillis;
+
+    @Value("${soundhive.plays.max-retry-backoff-ms:5000}")
+    private long maxRetryBackoffMillis;
+
+    private ArrayBlockingQueue<Play> queue;
+    private Thread writer;
+    private volatile boolean running;
+    // offer() enqueues under the read lock and stop() flips running under the write lock, so no
+    // play can be queued after the writer has started its final drain.
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+
+    private static class Play {
+        final String userId;
+        final int songId;
+        final long playTimeMillis;
+
+        Play(String userId, int songId, long playTimeMillis) {
+            this.userId = userId;
+            this.songId = songId;
+            this.playTimeMillis = playTimeMillis;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::writeLoop, "play-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Stops accepting plays and writes out everything still queued before the application stops.
+    // A writer still retrying after 30 seconds is interrupted and the plays it holds are lost.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        acceptLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (writer.isAlive()) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    // Queues one play; returns false (nothing queued) if the queue is full or shutting down.
+    public boolean offer(String userId, int songId, long playTimeMillis) {
+        acceptLock.readLock().lock();
+        try {
+            if (!running || !queue.offer(new Play(userId, songId, playTimeMillis))) {
+                return false;
+            }
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+        for (PlayEventListener listener : listeners) {
+            listener.onPlay(userId, songId, playTimeMillis);
+        }
+        return true;
+    }
+
+    public int queuedCount() {
+        return queue.size();
+    }
+
+    private void writeLoop() {
+        List<Play> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            write(batch);
+        }
+        drainAll(batch);
+    }
+
+    private void drainAll(List<Play> batch) {
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+        }
+    }
+
+    // Waits up to one flush interval for a play, then collects more until the batch is full or
+    // the interval ends.
+    private void fillBatch(List<Play> batch) throws InterruptedException {
+        Play first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            Play next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<Play> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int n = batch.size();
+        String[] userIds = new String[n];
+        int[] songIds = new int[n];
+        long[] playTimes = new long[n];
+        for (int i = 0; i < n; i++) {
+            Play play = batch.get(i);
+            userIds[i] = play.userId;
+            songIds[i] = play.songId;
+            playTimes[i] = play.playTimeMillis;
+        }
+        batch.clear();
+        // rows written or dropped so far
+        int done = 0;
+        try {
+            RuntimeException failure = writeWithRetries(userIds, songIds, playTimes, n);
+            if (failure == null) {
+                return;
+            }
+            log.warn("Writing {} play events failed; writing them one by one", n, failure);
+            int dropped = 0;
+            RuntimeException lastError = null;
+            for (int i = 0; i < n; i++) {
+                RuntimeException rowFailure = writeWithRetries(new String[] {userIds[i]}, new int[] {songIds[i]},
+                        new long[] {playTimes[i]}, 1);
+                if (rowFailure != null) {
+                    dropped++;
+                    lastError = rowFailure;
+                    log.debug("Dropping play of song {} by user {}", songIds[i], userIds[i], rowFailure);
+                }
+                done++;
+            }
+            if (dropped > 0) {
+                log.error("Dropped {} of {} play events after the batch write failed", dropped, n, lastError);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Shut down while retrying a write; {} play events were not written", n - done);
+        }
+    }
+
+    // Writes the rows, retrying transient failures with capped exponential backoff for as long
+    // as it takes. Returns null once written, or the failure if retrying would not fix it.
+    private RuntimeException writeWithRetries(String[] userIds, int[] songIds, long[] playTimes, int n)
+            throws InterruptedException {
+        long backoff = retryBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                playEventBatchRepository.write(userIds, songIds, playTimes, n);
+                return null;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    return e;
+                }
+                if (attempt == 1) {
+                    log.warn("Writing {} play events failed; retrying until the database is back", n, e);
+                } else {
+                    log.warn("Writing {} play events failed (attempt {}); retrying in {} ms", n, attempt, backoff);
+                }
+            }
+            Thread.sleep(backoff);
+            backoff = Math.min(backoff * 2, maxRetryBackoffMillis);
+        }
+    }
+
+    // Failures that say nothing about the rows themselves.
+    static boolean isTransient(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TransientDataAccessException || t instanceof RecoverableDataAccessException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
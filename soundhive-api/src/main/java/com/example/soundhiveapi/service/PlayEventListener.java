@@ -0,0 +1,8 @@
+package com.example.soundhiveapi.service;
+
+// Notified synchronously for every play accepted by PlayEventIngestor, before it is written.
+// Implementations run on the request thread, so they must be cheap and must not block.
+public interface PlayEventListener {
+
+    void onPlay(String userId, int songId, long playTimeMillis);
+}
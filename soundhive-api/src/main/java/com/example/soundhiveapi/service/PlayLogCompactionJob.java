@@ -0,0 +1,96 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.repository.PlayLogRepository;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.TimeUnit;
+
+// Keeps the play rollups (user_song_plays, song_daily_plays) current by compacting the
+// append-only play_log in bounded chunks, and maintains play_log's day partitions: partitions
+// are created a few days ahead, and partitions that are both compacted and older than the
+// retention period are dropped.
+@Service
+public class PlayLogCompactionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayLogCompactionJob.class);
+
+    @Autowired
+    private PlayLogRepository playLogRepository;
+
+    @Value("${soundhive.playlog.compact-batch-rows:50000}")
+    private int batchRows;
+
+    @Value("${soundhive.playlog.compact-lag-ms:10000}")
+    private long lagMillis;
+
+    @Value("${soundhive.playlog.retention-days:90}")
+    private int retentionDays;
+
+    @Value("${soundhive.playlog.partitions-ahead-days:7}")
+    private int partitionsAheadDays;
+
+    // Off for databases where play_log is not partitioned.
+    @Value("${soundhive.playlog.manage-partitions:true}")
+    private boolean managePartitions;
+
+    // Returns the number of log rows compacted.
+    @Scheduled(fixedDelayString = "${soundhive.playlog.compact-interval-ms:60000}")
+    public synchronized long compact() {
+        long started = System.nanoTime();
+        long total = 0;
+        int rows;
+        do {
+            rows = playLogRepository.compactNext(batchRows, lagMillis);
+            total += rows;
+        } while (rows == batchRows);
+        if (total > 0) {
+            Metrics.timer("soundhive.build", "structure", "play_rollups")
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            Metrics.counter("soundhive.playlog.compacted.rows").increment(total);
+        }
+        return total;
+    }
+
+    @Scheduled(cron = "${soundhive.playlog.partition-cron:0 15 0 * * *}")
+    public synchronized void maintainPartitions() {
+        if (!managePartitions) {
+            return;
+        }
+        int today = PlayLogRepository.epochDay(System.currentTimeMillis());
+        NavigableMap<Integer, String> partitions = playLogRepository.findPartitions();
+        int firstDay;
+        if (!partitions.isEmpty()) {
+            // keys are exclusive upper bounds: the largest key is the first day without a partition
+            firstDay = partitions.lastKey();
+        } else if (playLogRepository.hasCatchAllPartition()) {
+            // fresh install: every row is still in p_future. Splitting starts at the oldest row,
+            // but no earlier than the retention period; the first partition holds anything older.
+            Integer oldest = playLogRepository.findOldestLogDay();
+            firstDay = oldest == null ? today : Math.min(today, Math.max(oldest, today - retentionDays));
+            log.info("play_log has no day partitions yet; creating them from {}", LocalDate.ofEpochDay(firstDay));
+        } else {
+            log.warn("play_log is not partitioned; set soundhive.playlog.manage-partitions=false if that is intended");
+            return;
+        }
+        playLogRepository.addPartitions(firstDay, today + partitionsAheadDays + 1);
+
+        // a partition goes once its last day is past retention and fully compacted (the
+        // watermark day itself, and the day before it, may still hold uncompacted rows)
+        int dropThrough = Math.min(today - retentionDays, playLogRepository.compactedLogDay() - 1);
+        for (Map.Entry<Integer, String> partition : partitions.entrySet()) {
+            if (partition.getKey() <= dropThrough) {
+                playLogRepository.dropPartition(partition.getValue());
+                log.info("Dropped play_log partition {}", partition.getValue());
+            }
+        }
+    }
+}
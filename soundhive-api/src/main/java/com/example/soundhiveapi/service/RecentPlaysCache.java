@@ -0,0 +1,97 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.RecentSongs;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Per-user "last played" ring buffers for the most recently active users (LRU-bounded).
+// A user's ring is filled from user_playevents on first read and then kept current by record(),
+// so repeated reads of the recent-plays list don't query the play events table.
+// Plays are written to the database in the background, so a read can miss plays that were just
+// accepted. To cover that, record() starts a ring for a user that is not loaded yet; it only holds
+// plays from then on, so it is not served, but put() lays it over what the read loaded. Those rings
+// live in their own, smaller LRU map so a burst of plays from users nobody reads cannot evict
+// loaded rings.
+@Component
+public class RecentPlaysCache implements PlayEventListener {
+
+    public static final int CAPACITY = 20;
+
+    // loaded rings, filled from the database
+    private final Map<String, RecentSongs> loaded;
+    // rings of plays recorded for users that are not loaded, until put() merges them
+    private final Map<String, RecentSongs> unloaded;
+
+    public RecentPlaysCache(@Value("${soundhive.recent-plays.max-users:100000}") int maxUsers,
+                            @Value("${soundhive.recent-plays.max-unloaded-users:20000}") int maxUnloadedUsers) {
+        this.loaded = lruMap(maxUsers);
+        this.unloaded = lruMap(maxUnloadedUsers);
+    }
+
+    private static Map<String, RecentSongs> lruMap(int maxSize) {
+        return new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RecentSongs> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    // Song IDs most recent first, or null if the user is not loaded.
+    public int[] get(String userId) {
+        RecentSongs recent;
+        synchronized (this) {
+            recent = loaded.get(userId);
+        }
+        return recent == null ? null : recent.toArray();
+    }
+
+    // Song IDs in the user's ring, most recent first, whether it is loaded or not: at least every
+    // play accepted since the ring was started. Null if the user has no ring.
+    public int[] recorded(String userId) {
+        RecentSongs recent;
+        synchronized (this) {
+            recent = loaded.get(userId);
+            if (recent == null) {
+                recent = unloaded.get(userId);
+            }
+        }
+        return recent == null ? null : recent.toArray();
+    }
+
+    // Caches what was read from the database (most recent first), with any plays recorded since
+    // the user's ring was started on top, and returns the result.
+    public synchronized int[] put(String userId, int[] songIds) {
+        RecentSongs recent = loaded.get(userId);
+        if (recent == null) {
+            recent = RecentSongs.of(CAPACITY, songIds);
+            RecentSongs recorded = unloaded.remove(userId);
+            if (recorded != null) {
+                int[] plays = recorded.toArray();
+                for (int i = plays.length - 1; i >= 0; i--) {
+                    recent.push(plays[i]);
+                }
+            }
+            loaded.put(userId, recent);
+        }
+        return recent.toArray();
+    }
+
+    // Adds a play to the user's ring, starting an unloaded one if the user has none.
+    public synchronized void record(String userId, int songId) {
+        // under the cache lock, so a concurrent put() cannot merge the ring and miss this play
+        RecentSongs recent = loaded.get(userId);
+        if (recent == null) {
+            recent = unloaded.computeIfAbsent(userId, id -> new RecentSongs(CAPACITY));
+        }
+        recent.push(songId);
+    }
+
+    @Override
+    public void onPlay(String userId, int songId, long playTimeMillis) {
+        record(userId, songId);
+    }
+}
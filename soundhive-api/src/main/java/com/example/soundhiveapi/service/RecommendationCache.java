@@ -0,0 +1,176 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.FactorModel;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import com.example.soundhiveapi.service.RecommendationService.Recommendation;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Per-user cache of each user's top max-k recommendations; requests for up to max-k songs are
+// served from it. An entry is stale once the user's profile version or the factor model has
+// changed since it was computed, it holds a song the user has played since, or it is older than
+// max-age. Songs played since are never served: the play may not have reached the database the
+// entry was computed from, so they are checked against RecentPlaysCache, which holds plays as
+// soon as they are accepted. A stale entry is still returned
+// and a background recompute is started (stale-while-revalidate); only a user with no entry at
+// all waits for a computation. Size-bounded with Caffeine (W-TinyLFU, close to LRU for this
+// access pattern). refreshActiveUsers() recomputes the most recently active users ahead of
+// their next request.
+@Component
+public class RecommendationCache {
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private UserProfileStore userProfileStore;
+
+    @Autowired
+    private ReadQueryRepository readQueryRepository;
+
+    @Autowired
+    private RecentPlaysCache recentPlaysCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Users (most recently played first) looked at per background refresh run.
+    @Value("${soundhive.recommend.cache.refresh-users:10000}")
+    private int refreshUsers;
+
+    // How far back a play makes a user "active".
+    @Value("${soundhive.recommend.cache.active-window:1h}")
+    private Duration activeWindow;
+
+    private final int maxK;
+    private final long maxAgeNanos;
+    private final ExecutorService refreshExecutor;
+    private final LoadingCache<String, Entry> cache;
+    private Counter staleServed;
+
+    // items holds up to maxK recommendations, best first.
+    record Entry(List<Recommendation> items, long profileVersion, FactorModel model, long computedAtNanos) { }
+
+    public RecommendationCache(@Value("${soundhive.recommend.cache.max-users:100000}") long maxUsers,
+                               @Value("${soundhive.recommend.cache.max-k:50}") int maxK,
+                               @Value("${soundhive.recommend.cache.max-age:30m}") Duration maxAge,
+                               @Value("${soundhive.recommend.cache.refresh-threads:4}") int refreshThreads) {
+        this.maxK = maxK;
+        this.maxAgeNanos = maxAge.toNanos();
+        // a few platform threads bound how much recompute work runs against MySQL at once;
+        // queued refreshes run in submission order, so the most active users go first
+        this.refreshExecutor = Executors.newFixedThreadPool(refreshThreads);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .executor(refreshExecutor)
+                .recordStats()
+                .build(this::compute);
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        staleServed = meterRegistry.counter("soundhive.recommend.cache.stale");
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recommendations");
+    }
+
+    // Same result as RecommendationService.recommend, possibly from before the user's latest change.
+    public List<Recommendation> get(String idNumber, int k) {
+        if (k > maxK) {
+            return recommendationService.recommend(idNumber, k);
+        }
+        Entry entry = cache.get(idNumber);
+        int[] recent = recentPlaysCache.recorded(idNumber);
+        boolean played = recent != null && holdsAny(entry.items(), recent);
+        // skip the refresh if one already replaced the entry; concurrent refreshes of one key
+        // share a single recompute
+        if ((played || isStale(idNumber, entry)) && cache.policy().getIfPresentQuietly(idNumber) == entry) {
+            staleServed.increment();
+            cache.refresh(idNumber);
+        }
+        if (!played) {
+            return entry.items().subList(0, Math.min(k, entry.items().size()));
+        }
+        List<Recommendation> unplayed = new ArrayList<>(k);
+        for (Recommendation item : entry.items()) {
+            if (unplayed.size() == k) {
+                break;
+            }
+            if (!contains(recent, item.getSongId())) {
+                unplayed.add(item);
+            }
+        }
+        return unplayed;
+    }
+
+    // Queues a recompute for recently active users whose entry is missing or stale.
+    // Returns the number of users queued.
+    @Scheduled(fixedDelayString = "${soundhive.recommend.cache.refresh-interval-ms:60000}")
+    public int refreshActiveUsers() {
+        long since = System.currentTimeMillis() - activeWindow.toMillis();
+        int queued = 0;
+        for (String idNumber : readQueryRepository.findRecentlyActiveUserIds(since, refreshUsers)) {
+            Entry entry = cache.policy().getIfPresentQuietly(idNumber);
+            if (entry == null || isStale(idNumber, entry)) {
+                cache.refresh(idNumber);
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    public void invalidate(String idNumber) {
+        cache.invalidate(idNumber);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private boolean isStale(String idNumber, Entry entry) {
+        return entry.profileVersion() != userProfileStore.getProfile(idNumber).getVersion()
+                || entry.model() != recommendationService.getFactorModel()
+                || System.nanoTime() - entry.computedAtNanos() > maxAgeNanos;
+    }
+
+    private static boolean holdsAny(List<Recommendation> items, int[] songIds) {
+        for (Recommendation item : items) {
+            if (contains(songIds, item.getSongId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(int[] songIds, int songId) {
+        for (int id : songIds) {
+            if (id == songId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The version is read first, so a change made during the computation leaves the entry stale.
+    private Entry compute(String idNumber) {
+        long version = userProfileStore.getProfile(idNumber).getVersion();
+        FactorModel model = recommendationService.getFactorModel();
+        long computedAt = System.nanoTime();
+        return new Entry(List.copyOf(recommendationService.recommend(idNumber, maxK)), version, model, computedAt);
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.TopK;
+import com.example.soundhiveapi.index.UserProfile;
+import com.example.soundhiveapi.index.UserTagMatrix;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import com.example.soundhiveapi.repository.UserRecommendationRepository;
+import com.example.soundhiveapi.repository.UserRecommendationRepository.Partition;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Offline export of every user's top-N recommendations (same scores as
+// RecommendationService.recommend). The rows of the user x tag matrix are cut into fixed
+// partitions of soundhive.export.partition-users users, which are scored on a dedicated ForkJoin
+// pool; each worker reuses one RecommendationService.Scratch, so the per-user scoring loops
+// allocate nothing. A finished partition is written in one piece to a file or to the
+// user_recommendations table and recorded as complete, so a failed or interrupted export resumes
+// with the missing partitions as long as the matrix (the export "layout") has not changed.
+// Users who only exist in the profile overlay (added since the matrix was loaded) follow in
+// partitions of their own after the matrix partitions. That set grows between runs, so those
+// partitions are always exported again.
+// Runs on soundhive.export.cron (disabled by default) or when export() is called.
+@Service
+public class RecommendationExportJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationExportJob.class);
+
+    @Autowired
+    private UserProfileStore userProfileStore;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private ReadQueryRepository readQueryRepository;
+
+    @Autowired
+    private UserRecommendationRepository userRecommendationRepository;
+
+    // "file" writes one TSV per partition under soundhive.export.dir, "table" writes user_recommendations.
+    @Value("${soundhive.export.target:file}")
+    private String target;
+
+    @Value("${soundhive.export.dir:data/recommendations}")
+    private Path dir;
+
+    @Value("${soundhive.export.top-n:20}")
+    private int topN;
+
+    @Value("${soundhive.export.partition-users:10000}")
+    private int partitionUsers;
+
+    // 0 uses every available core.
+    @Value("${soundhive.export.parallelism:0}")
+    private int parallelism;
+
+    @Value("${soundhive.export.progress-interval-ms:10000}")
+    private long progressIntervalMillis;
+
+    // Where finished partitions go. Both methods must be safe to call from several threads.
+    public interface Sink {
+        // Partitions already complete for this layout; output of any other layout is discarded.
+        Set<Integer> completed(String layout);
+
+        // Writes the whole partition and records it as complete, atomically.
+        void write(String layout, Partition partition);
+    }
+
+    public record Result(int users, int partitions, int skipped, long recommendations, long millis) { }
+
+    @Scheduled(cron = "${soundhive.export.cron:-}")
+    public synchronized Result export() {
+        Sink sink = switch (target) {
+            case "file" -> new FileRecommendationSink(dir);
+            case "table" -> new Sink() {
+                @Override
+                public Set<Integer> completed(String layout) {
+                    return userRecommendationRepository.findCompletedPartitions(layout);
+                }
+
+                @Override
+                public void write(String layout, Partition partition) {
+                    userRecommendationRepository.writePartition(layout, partition);
+                }
+            };
+            default -> throw new IllegalStateException("Unknown soundhive.export.target: " + target);
+        };
+        return export(sink);
+    }
+
+    synchronized Result export(Sink sink) {
+        long started = System.nanoTime();
+        UserTagMatrix matrix = userProfileStore.getBaseMatrix();
+        String[] overlayOnly = userProfileStore.getOverlayOnlyProfiles().stream()
+                .map(UserProfile::getIdNumber).toArray(String[]::new);
+        Users users = new Users(matrix, overlayOnly, (matrix.numUsers() + partitionUsers - 1) / partitionUsers);
+        int numPartitions = users.matrixPartitions() + (overlayOnly.length + partitionUsers - 1) / partitionUsers;
+        String layout = "users=" + matrix.numUsers() + ";nnz=" + matrix.nnz()
+                + ";partition-users=" + partitionUsers + ";top-n=" + topN;
+        Set<Integer> completed = sink.completed(layout);
+        int[] pending = new int[numPartitions];
+        int numPending = 0;
+        for (int part = 0; part < numPartitions; part++) {
+            if (part >= users.matrixPartitions() || !completed.contains(part)) {
+                pending[numPending++] = part;
+            }
+        }
+        int skipped = numPartitions - numPending;
+        if (skipped > 0) {
+            log.info("Resuming recommendation export: {} of {} partitions already written", skipped, numPartitions);
+        }
+
+        Progress progress = new Progress();
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            ThreadLocal<RecommendationService.Scratch> scratches =
+                    ThreadLocal.withInitial(() -> recommendationService.newScratch(topN));
+            ForkJoinTask<Void> task = pool.submit(
+                    new ExportTask(users, sink, layout, scratches, progress, pending, 0, numPending));
+            while (true) {
+                try {
+                    task.get(progressIntervalMillis, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    logProgress(progress, numPending, started);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recommendation export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Recommendation export failed after " + progress.partitions.get()
+                    + " of " + numPending + " partitions; the next run resumes", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        Metrics.timer("soundhive.build", "structure", "recommendation_export").record(millis, TimeUnit.MILLISECONDS);
+        Metrics.counter("soundhive.export.users").increment(progress.users.sum());
+        log.info("Exported top {} recommendations for {} users in {} partitions ({} skipped) on {} threads in {} ms"
+                        + " ({} users/s)", topN, progress.users.sum(), numPending, skipped, threads, millis,
+                perSecond(progress.users.sum(), millis));
+        return new Result((int) progress.users.sum(), numPartitions, skipped, progress.recommendations.sum(), millis);
+    }
+
+    private void logProgress(Progress progress, int numPending, long started) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        log.info("Recommendation export: {}/{} partitions, {} users ({} users/s)", progress.partitions.get(),
+                numPending, progress.users.sum(), perSecond(progress.users.sum(), millis));
+    }
+
+    private static long perSecond(long count, long millis) {
+        return millis == 0 ? count : count * 1000 / millis;
+    }
+
+    // The users being exported: matrix rows, then the overlay-only users taken at the start.
+    private record Users(UserTagMatrix matrix, String[] overlayOnly, int matrixPartitions) { }
+
+    private String[] userIdsOf(Users all, int part) {
+        if (part >= all.matrixPartitions()) {
+            int from = (part - all.matrixPartitions()) * partitionUsers;
+            return Arrays.copyOfRange(all.overlayOnly(), from, Math.min(all.overlayOnly().length, from + partitionUsers));
+        }
+        UserTagMatrix matrix = all.matrix();
+        int fromRow = part * partitionUsers;
+        String[] userIds = new String[Math.min(matrix.numUsers(), fromRow + partitionUsers) - fromRow];
+        for (int u = 0; u < userIds.length; u++) {
+            userIds[u] = matrix.userIdAt(fromRow + u);
+        }
+        return userIds;
+    }
+
+    // Scores one partition with the calling worker's scratch and hands it to the sink.
+    private void exportPartition(Users all, Sink sink, String layout, RecommendationService.Scratch scratch,
+                                 Progress progress, int part) {
+        String[] userIds = userIdsOf(all, part);
+        int users = userIds.length;
+        Map<String, int[]> played = readQueryRepository.findPlayedSongIds(Arrays.asList(userIds));
+
+        int k = scratch.getK();
+        int[] counts = new int[users];
+        int[] songIds = new int[users * k];
+        double[] scores = new double[users * k];
+        long recommendations = 0;
+        for (int u = 0; u < users; u++) {
+            TopK top = recommendationService.score(userProfileStore.getProfile(userIds[u]), played.get(userIds[u]), scratch);
+            int base = u * k;
+            for (int r = 0; r < top.size(); r++) {
+                songIds[base + r] = top.idAt(r);
+                scores[base + r] = top.scoreAt(r);
+            }
+            counts[u] = top.size();
+            recommendations += top.size();
+        }
+        sink.write(layout, new Partition(part, userIds, users, k, counts, songIds, scores));
+        progress.partitions.incrementAndGet();
+        progress.users.add(users);
+        progress.recommendations.add(recommendations);
+    }
+
+    private static class Progress {
+        final AtomicInteger partitions = new AtomicInteger();
+        final LongAdder users = new LongAdder();
+        final LongAdder recommendations = new LongAdder();
+    }
+
+    // Splits pending[from .. to) down to single partitions.
+    private class ExportTask extends RecursiveAction {
+        private final Users users;
+        private final Sink sink;
+        private final String layout;
+        private final ThreadLocal<RecommendationService.Scratch> scratches;
+        private final Progress progress;
+        private final int[] pending;
+        private final int from;
+        private final int to;
+
+        ExportTask(Users users, Sink sink, String layout, ThreadLocal<RecommendationService.Scratch> scratches,
+                   Progress progress, int[] pending, int from, int to) {
+            this.users = users;
+            this.sink = sink;
+            this.layout = layout;
+            this.scratches = scratches;
+            this.progress = progress;
+            this.pending = pending;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ExportTask(users, sink, layout, scratches, progress, pending, from, mid),
+                        new ExportTask(users, sink, layout, scratches, progress, pending, mid, to));
+                return;
+            }
+            if (to > from) {
+                exportPartition(users, sink, layout, scratches.get(), progress, pending[from]);
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.FactorModel;
+import com.example.soundhiveapi.index.SongScorer;
+import com.example.soundhiveapi.index.SongTagIndex;
+import com.example.soundhiveapi.index.TagIndex;
+import com.example.soundhiveapi.index.TopK;
+import com.example.soundhiveapi.index.UserProfile;
+import com.example.soundhiveapi.model.Song;
+import com.example.soundhiveapi.repository.BulkReadRepository;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import com.example.soundhiveapi.repository.TagRepository;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Tag-based song recommendations: a song scores the sum of the user's weights for its tags.
+// Candidates come from an in-memory inverted tag -> song index, so a request only walks the
+// posting lists of the user's strongest tags instead of the whole catalog.
+// When a trained FactorModel is loaded, candidates from both the tag index and the user's
+// precomputed factor candidates are re-ranked by tag score + factor-weight * factor score.
+// Saved songs mark the index stale; it is rebuilt from song_tags on
+// soundhive.recommend.index-refresh-ms, so new and re-tagged songs show up within that interval.
+@Service
+public class RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    // Candidates taken from each source per requested song when blending.
+    private static final int CANDIDATES_PER_RESULT = 5;
+
+    @Autowired
+    private UserProfileStore userProfileStore;
+
+    @Autowired
+    private BulkReadRepository bulkReadRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private ReadQueryRepository readQueryRepository;
+
+    // How many of the user's highest-weighted tags are used to find candidates.
+    @Value("${soundhive.recommend.max-query-tags:10}")
+    private int maxQueryTags;
+
+    @Value("${soundhive.recommend.factor-weight:1.0}")
+    private double factorWeight;
+
+    @Value("${soundhive.factors.path:data/factors.bin}")
+    private Path factorModelPath;
+
+    private volatile SongTagIndex index;
+
+    // Song saves seen, and how many of them the current index was built after.
+    private final AtomicLong songSaves = new AtomicLong();
+    private long indexedSaves;
+
+    private volatile FactorModel factorModel;
+
+    // Scorers hold catalog-sized scratch arrays, so they are pooled rather than made per request.
+    private final ArrayBlockingQueue<SongScorer> scorers =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    // Returns the user's k best-scoring songs that they have not played yet, best first.
+    public List<Recommendation> recommend(String idNumber, int k) {
+        UserProfile profile = userProfileStore.getProfile(idNumber);
+        FactorModel model = factorModel;
+        if (k <= 0 || (profile.size() == 0 && (model == null || model.userRowOf(idNumber) == -1))) {
+            return List.of();
+        }
+        int[] played = readQueryRepository.findPlayedSongIds(idNumber);
+
+        SongScorer scorer = borrowScorer();
+        TopK top;
+        try {
+            top = score(profile, model, played, new Scratch(scorer, k, maxQueryTags));
+        } finally {
+            scorers.offer(scorer);
+        }
+        List<Integer> ids = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            ids.add(top.idAt(i));
+        }
+
+        Map<Integer, Song> byId = readQueryRepository.findSongs(ids);
+        List<Recommendation> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Song song = byId.get(ids.get(i));
+            if (song != null) {
+                result.add(new Recommendation(song.getSongId(), song.getTitle(), song.getArtist(), top.scoreAt(i)));
+            }
+        }
+        return result;
+    }
+
+    // Buffers for scoring one user after another on one thread, for batch jobs.
+    public Scratch newScratch(int k) {
+        return new Scratch(new SongScorer(getIndex()), k, maxQueryTags);
+    }
+
+    // Scores one user with the current factor model (if any) and returns scratch's result heap
+    // holding up to k (song ID, score) pairs, best first. played must be sorted; it is only read.
+    // Valid until the scratch is used again.
+    public TopK score(UserProfile profile, int[] played, Scratch scratch) {
+        return score(profile, factorModel, played, scratch);
+    }
+
+    private TopK score(UserProfile profile, FactorModel model, int[] played, Scratch s) {
+        int userRow = model == null ? -1 : model.userRowOf(profile.getIdNumber());
+        SongTagIndex songs = s.scorer.getIndex();
+        s.tagTop.reset();
+        s.result.reset();
+        if (profile.size() > 0) {
+            s.scorer.score(profile, userProfileStore.getTags(), s.queryTags, played, s.tagTop);
+        }
+        if (userRow == -1) {
+            for (int i = 0; i < Math.min(s.k, s.tagTop.size()); i++) {
+                s.result.offer(songs.songIdAt(s.tagTop.idAt(i)), s.tagTop.scoreAt(i));
+            }
+            s.result.sortDescending();
+            return s.result;
+        }
+        blend(profile, songs, model, userRow, played, s);
+        return s.result;
+    }
+
+    public FactorModel getFactorModel() {
+        return factorModel;
+    }
+
+    public void setFactorModel(FactorModel model) {
+        this.factorModel = model;
+    }
+
+    // Picks up the factors written by the last training run, if any.
+    @PostConstruct
+    public void loadFactorModel() {
+        if (!Files.exists(factorModelPath)) {
+            log.info("No factor model at {}; recommending from tags only", factorModelPath);
+            return;
+        }
+        try {
+            factorModel = FactorModel.read(factorModelPath);
+        } catch (IOException e) {
+            log.warn("Could not read factor model {}; recommending from tags only", factorModelPath, e);
+        }
+    }
+
+    // Re-ranks the tag candidates together with the factor model's precomputed top songs into s.result
+    // as (song ID, blended score).
+    private void blend(UserProfile profile, SongTagIndex songs, FactorModel model, int userRow, int[] played,
+                       Scratch s) {
+        s.factorTop.reset();
+        model.topSongs(userRow, played, s.factorTop);
+        int[] candidates = s.candidates;
+        int n = 0;
+        for (int i = 0; i < s.tagTop.size(); i++) {
+            candidates[n++] = songs.songIdAt(s.tagTop.idAt(i));
+        }
+        for (int i = 0; i < s.factorTop.size(); i++) {
+            candidates[n++] = model.songIdAt(s.factorTop.idAt(i));
+        }
+        Arrays.sort(candidates, 0, n);
+
+        TagIndex profileTags = userProfileStore.getTags();
+        double[] dense = s.dense(profileTags.size());
+        for (int i = 0; i < profile.size(); i++) {
+            dense[profile.colAt(i)] = profile.weightAt(i);
+        }
+        for (int i = 0; i < n; i++) {
+            int songId = candidates[i];
+            if (i > 0 && candidates[i - 1] == songId) {
+                continue;
+            }
+            double score = 0;
+            int pos = songs.positionOf(songId);
+            if (pos >= 0) {
+                for (int t = songs.songTagStart(pos); t < songs.songTagEnd(pos); t++) {
+                    int col = profileTags.columnOf(songs.getTags().tagIdAt(songs.songTagAt(t)));
+                    if (col >= 0) {
+                        score += dense[col];
+                    }
+                }
+            }
+            int factorPos = model.songPositionOf(songId);
+            if (factorPos >= 0) {
+                score += factorWeight * model.score(userRow, factorPos);
+            }
+            s.result.offer(songId, score);
+        }
+        // leave the dense row zeroed for the next user
+        for (int i = 0; i < profile.size(); i++) {
+            dense[profile.colAt(i)] = 0;
+        }
+        s.result.sortDescending();
+    }
+
+    // The index if it has been built, else null; never loads anything.
+    public SongTagIndex peekIndex() {
+        return index;
+    }
+
+    // Builds the index once the application is up, so the first requests and plays find it ready.
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmIndex() {
+        getIndex();
+    }
+
+    public SongTagIndex getIndex() {
+        SongTagIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    reloadIndex();
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    // Rebuilds the tag -> song index from song_tags.
+    public synchronized void reloadIndex() {
+        Timer.Sample sample = Timer.start();
+        // saves committed after this point trigger the next refresh
+        long saves = songSaves.get();
+        SongTagIndex.Builder builder = new SongTagIndex.Builder(new TagIndex(tagRepository.findAllByOrderByTagIdAsc()));
+        bulkReadRepository.forEachSongTag(builder::add);
+        index = builder.build();
+        indexedSaves = saves;
+        scorers.clear();
+        sample.stop(Metrics.timer("soundhive.build", "structure", "song_tag_index"));
+    }
+
+    // Rebuilds the index if songs were saved since it was built; an index nobody has used yet is
+    // left to be built on first use.
+    @Scheduled(fixedDelayString = "${soundhive.recommend.index-refresh-ms:60000}",
+            initialDelayString = "${soundhive.recommend.index-refresh-ms:60000}")
+    public synchronized void refreshIndex() {
+        if (index != null && songSaves.get() != indexedSaves) {
+            reloadIndex();
+        }
+    }
+
+    // Applied once the song's transaction has committed, so the rebuild sees its tags.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSongSaved(SongSavedEvent event) {
+        songSaves.incrementAndGet();
+    }
+
+    private SongScorer borrowScorer() {
+        SongTagIndex current = getIndex();
+        SongScorer scorer;
+        while ((scorer = scorers.poll()) != null) {
+            if (scorer.getIndex() == current) {
+                return scorer;
+            }
+        }
+        return new SongScorer(current);
+    }
+
+    // Per-thread scoring buffers: a SongScorer with its catalog-sized arrays, the candidate heaps
+    // and a dense copy of the profile for blending. Scoring a user through a Scratch that is
+    // reused allocates nothing. Not thread-safe.
+    public static class Scratch {
+        private final SongScorer scorer;
+        private final int k;
+        private final TopK queryTags;
+        private final TopK tagTop;
+        private final TopK factorTop;
+        private final TopK result;
+        private final int[] candidates;
+        private double[] dense = new double[0];
+
+        Scratch(SongScorer scorer, int k, int maxQueryTags) {
+            this.scorer = scorer;
+            this.k = k;
+            this.queryTags = new TopK(Math.max(1, maxQueryTags));
+            // throws rather than wrapping around for an absurd k
+            int perSource = Math.multiplyExact(k, CANDIDATES_PER_RESULT);
+            this.tagTop = new TopK(perSource);
+            this.factorTop = new TopK(perSource);
+            this.result = new TopK(k);
+            this.candidates = new int[Math.multiplyExact(2, perSource)];
+        }
+
+        public int getK() {
+            return k;
+        }
+
+        private double[] dense(int numTags) {
+            if (dense.length < numTags) {
+                dense = new double[numTags];
+            }
+            return dense;
+        }
+    }
+
+    // One recommended song with its score.
+    public static class Recommendation {
+        private int songId;
+        private String title;
+        private String artist;
+        private double score;
+
+        public Recommendation(int songId, String title, String artist, double score) {
+            this.songId = songId;
+            this.title = title;
+            this.artist = artist;
+            this.score = score;
+        }
+
+        public int getSongId() { return songId; }
+        public String getTitle() { return title; }
+        public String getArtist() { return artist; }
+        public double getScore() { return score; }
+
+        @Override
+        public String toString() {
+            return "Song " + title + " by " + artist + " (ID: " + songId + ", Score: " + score + ")";
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.TagCooccurrenceIndex;
+import com.example.soundhiveapi.index.TagIndex;
+import com.example.soundhiveapi.index.TopK;
+import com.example.soundhiveapi.index.UserProfile;
+import com.example.soundhiveapi.index.UserTagMatrix;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// "Related tags": tags that appear on the same songs and get weight from the same users.
+// Backed by a TagCooccurrenceIndex built in parallel from the song tag index and every user
+// profile on first use, then kept current from song saves and profile change events. The deltas
+// are exact, but changes racing with a build may be missed, so the index is also rebuilt on
+// soundhive.related-tags.rebuild-interval-ms and whenever all profiles are reloaded.
+@Service
+public class RelatedTagsService {
+
+    @Autowired
+    private UserProfileStore userProfileStore;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    // Weights of the two cosines in the similarity score.
+    @Value("${soundhive.related-tags.catalog-weight:1.0}")
+    private double catalogWeight;
+
+    @Value("${soundhive.related-tags.profile-weight:1.0}")
+    private double profileWeight;
+
+    // 0 uses every available core.
+    @Value("${soundhive.related-tags.parallelism:0}")
+    private int parallelism;
+
+    private volatile TagCooccurrenceIndex index;
+
+    // Returns up to k tags most related to the given one, most related first; null if the tag
+    // does not exist.
+    public List<RelatedTag> findRelated(int tagId, int k) {
+        TagCooccurrenceIndex current = getIndex();
+        TagIndex tags = current.getTags();
+        int col = tags.columnOf(tagId);
+        if (col < 0) {
+            return null;
+        }
+        TopK top = new TopK(Math.max(1, Math.min(k, tags.size())));
+        current.related(col, catalogWeight, profileWeight, top);
+        List<RelatedTag> result = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            result.add(new RelatedTag(tags.tagIdAt(top.idAt(i)), tags.tagNameAt(top.idAt(i)), top.scoreAt(i)));
+        }
+        return result;
+    }
+
+    public TagCooccurrenceIndex getIndex() {
+        TagCooccurrenceIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    index = build();
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${soundhive.related-tags.rebuild-interval-ms:3600000}",
+            initialDelayString = "${soundhive.related-tags.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        if (index != null) {
+            TagCooccurrenceIndex built = build();
+            synchronized (this) {
+                index = built;
+            }
+        }
+    }
+
+    private TagCooccurrenceIndex build() {
+        Timer.Sample sample = Timer.start();
+        TagIndex tags = userProfileStore.getTags();
+        UserTagMatrix matrix = userProfileStore.getBaseMatrix();
+        List<UserProfile> overlayOnly = userProfileStore.getOverlayOnlyProfiles();
+        TagCooccurrenceIndex.ProfileRows profiles = new TagCooccurrenceIndex.ProfileRows() {
+            @Override
+            public int size() {
+                return matrix.numUsers() + overlayOnly.size();
+            }
+
+            @Override
+            public UserProfile profileAt(int row) {
+                return row < matrix.numUsers()
+                        ? userProfileStore.getProfile(matrix.userIdAt(row))
+                        : overlayOnly.get(row - matrix.numUsers());
+            }
+        };
+        // pick up songs saved since the song index was built, whose deltas this build replaces
+        recommendationService.refreshIndex();
+        ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        try {
+            TagCooccurrenceIndex built = TagCooccurrenceIndex.build(tags, recommendationService.getIndex(), profiles, pool);
+            sample.stop(Metrics.timer("soundhive.build", "structure", "tag_cooccurrence_index"));
+            return built;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @EventListener
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        TagCooccurrenceIndex current = index;
+        if (current != null) {
+            current.addProfile(event.getPrevious(), -1);
+            current.addProfile(event.getCurrent(), 1);
+        }
+    }
+
+    // Applied once the song's transaction has committed.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSongSaved(SongSavedEvent event) {
+        TagCooccurrenceIndex current = index;
+        if (current != null) {
+            current.addSong(columns(current.getTags(), event.getPreviousTagIds()), -1);
+            current.addSong(columns(current.getTags(), event.getTagIds()), 1);
+        }
+    }
+
+    // The tag columns may have changed, so the next query rebuilds from scratch.
+    @EventListener
+    public synchronized void onProfilesReloaded(UserProfilesReloadedEvent event) {
+        index = null;
+    }
+
+    private static int[] columns(TagIndex tags, int[] tagIds) {
+        int[] cols = new int[tagIds.length];
+        for (int i = 0; i < tagIds.length; i++) {
+            cols[i] = tags.columnOf(tagIds[i]);
+        }
+        return cols;
+    }
+
+    // One related tag with its similarity score.
+    public static class RelatedTag {
+        private int tagId;
+        private String tagName;
+        private double score;
+
+        public RelatedTag(int tagId, String tagName, double score) {
+            this.tagId = tagId;
+            this.tagName = tagName;
+            this.score = score;
+        }
+
+        public int getTagId() { return tagId; }
+        public String getTagName() { return tagName; }
+        public double getScore() { return score; }
+    }
+}
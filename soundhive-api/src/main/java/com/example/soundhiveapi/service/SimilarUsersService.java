@@ -0,0 +1,114 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.TopK;
+import com.example.soundhiveapi.index.UserProfile;
+import com.example.soundhiveapi.index.UserSimilarityIndex;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// "Listeners like you": users whose tag-weight vectors have the highest cosine similarity.
+// Backed by an LSH index built from UserProfileStore on first use and kept current from the
+// store's change events, so a query ranks a few hundred candidates instead of every user.
+@Service
+public class SimilarUsersService {
+
+    @Autowired
+    private UserProfileStore userProfileStore;
+
+    @Autowired
+    private ReadQueryRepository readQueryRepository;
+
+    @Value("${soundhive.similar-users.tables:8}")
+    private int tables;
+
+    @Value("${soundhive.similar-users.bits:12}")
+    private int bits;
+
+    @Value("${soundhive.similar-users.multi-probe:true}")
+    private boolean multiProbe;
+
+    @Value("${soundhive.similar-users.seed:42}")
+    private long seed;
+
+    private volatile UserSimilarityIndex index;
+
+    // Returns up to k users most similar to the given one, most similar first.
+    public List<SimilarUser> findSimilar(String idNumber, int k) {
+        UserProfile profile = userProfileStore.getProfile(idNumber);
+        if (k <= 0 || profile.size() == 0) {
+            return List.of();
+        }
+        UserSimilarityIndex current = getIndex();
+        TopK top = new TopK(k);
+        current.query(profile, multiProbe, top);
+
+        List<String> ids = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            ids.add(current.idAt(top.idAt(i)));
+        }
+        Map<String, String> usernames = readQueryRepository.findUsernames(ids);
+        List<SimilarUser> result = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            result.add(new SimilarUser(ids.get(i), usernames.get(ids.get(i)), top.scoreAt(i)));
+        }
+        return result;
+    }
+
+    public UserSimilarityIndex getIndex() {
+        UserSimilarityIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    Timer.Sample sample = Timer.start();
+                    UserSimilarityIndex built = new UserSimilarityIndex(userProfileStore.getTags().size(), tables, bits, seed);
+                    userProfileStore.forEachProfile(built::put);
+                    index = built;
+                    sample.stop(Metrics.timer("soundhive.build", "structure", "user_similarity_index"));
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    // Re-hashes the user; the index itself drops updates older than what it holds.
+    @EventListener
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        UserSimilarityIndex current = index;
+        if (current != null) {
+            current.put(event.getCurrent());
+        }
+    }
+
+    // The tag columns may have changed, so the next query rebuilds from scratch.
+    @EventListener
+    public synchronized void onProfilesReloaded(UserProfilesReloadedEvent event) {
+        index = null;
+    }
+
+    // One similar user with their cosine similarity.
+    public static class SimilarUser {
+        private String idNumber;
+        private String username;
+        private double similarity;
+
+        public SimilarUser(String idNumber, String username, double similarity) {
+            this.idNumber = idNumber;
+            this.username = username;
+            this.similarity = similarity;
+        }
+
+        public String getIdNumber() { return idNumber; }
+        public String getUsername() { return username; }
+        public double getSimilarity() { return similarity; }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.soundhiveapi.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Coalesces concurrent loads of the same key: the first caller for a key runs the loader, callers
+// that arrive while it runs wait for its result instead of loading again. Pending loads are
+// futures in a ConcurrentHashMap; no lock is held while a loader runs. Nothing is cached: once a
+// load finishes, the next caller loads again. Failures are passed on to every waiter.
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> pending = new ConcurrentHashMap<>();
+
+    public V load(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> theirs = pending.putIfAbsent(key, mine);
+        if (theirs != null) {
+            return join(theirs);
+        }
+        try {
+            V value = loader.apply(key);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            pending.remove(key, mine);
+        }
+    }
+
+    // Loads the keys nobody is loading yet with one loader call and waits for the others.
+    // Returns the non-null values by key. Own loads finish before waiting on anyone else's, so
+    // overlapping batches cannot deadlock.
+    public Map<K, V> loadAll(Collection<? extends K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, CompletableFuture<V>> mine = new HashMap<>();
+        Map<K, CompletableFuture<V>> theirs = new HashMap<>();
+        for (K key : new LinkedHashSet<K>(keys)) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = pending.putIfAbsent(key, future);
+            if (existing == null) {
+                mine.put(key, future);
+            } else {
+                theirs.put(key, existing);
+            }
+        }
+
+        Map<K, V> result = new HashMap<>();
+        try {
+            if (!mine.isEmpty()) {
+                Map<K, V> loaded = loader.apply(Set.copyOf(mine.keySet()));
+                mine.forEach((key, future) -> future.complete(loaded.get(key)));
+                for (K key : mine.keySet()) {
+                    V value = loaded.get(key);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            mine.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        } finally {
+            mine.forEach(pending::remove);
+        }
+        theirs.forEach((key, future) -> {
+            V value = join(future);
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    // Detaches a running load of key, so the next caller starts a fresh one (e.g. after a write).
+    // Callers already waiting still get the detached load's result.
+    public void forget(K key) {
+        pending.remove(key);
+    }
+
+    // Number of keys being loaded right now.
+    public int inFlight() {
+        return pending.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.model.Song;
+
+// Published by MyJdbcService after a song and its tags were saved. previousTagIds is empty for a
+// new song (or one that had no complete tag set).
+public class SongSavedEvent {
+
+    private final Song song;
+    private final int[] previousTagIds;
+    private final int[] tagIds;
+
+    public SongSavedEvent(Song song, int[] previousTagIds, int[] tagIds) {
+        this.song = song;
+        this.previousTagIds = previousTagIds;
+        this.tagIds = tagIds;
+    }
+
+    public Song getSong() {
+        return song;
+    }
+
+    public int getSongId() {
+        return song.getSongId();
+    }
+
+    public int[] getPreviousTagIds() {
+        return previousTagIds;
+    }
+
+    public int[] getTagIds() {
+        return tagIds;
+    }
+}
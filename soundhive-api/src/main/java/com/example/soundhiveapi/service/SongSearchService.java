@@ -0,0 +1,145 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.SongSearchIndex;
+import com.example.soundhiveapi.index.TopK;
+import com.example.soundhiveapi.model.Song;
+import com.example.soundhiveapi.repository.BulkReadRepository;
+import com.example.soundhiveapi.repository.PlayLogRepository;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Typeahead search over song titles and artists, most played songs (over the last
+// soundhive.search.popularity-days) first. Served from an in-memory SongSearchIndex built on first
+// use. Songs saved since the build are kept on the side and matched by scanning them, so they are
+// searchable right away; the index is rebuilt on soundhive.search.rebuild-interval-ms, which also
+// picks up new play counts and empties the side list.
+@Service
+public class SongSearchService {
+
+    @Autowired
+    private BulkReadRepository bulkReadRepository;
+
+    @Autowired
+    private PlayLogRepository playLogRepository;
+
+    @Autowired
+    private MyJdbcService myJdbcService;
+
+    @Value("${soundhive.search.popularity-days:30}")
+    private int popularityDays;
+
+    private volatile SongSearchIndex index;
+
+    // Songs saved after the build the current index came from started.
+    private final Map<Integer, Pending> added = new ConcurrentHashMap<>();
+    private final AtomicLong saves = new AtomicLong();
+
+    private record Pending(String[] words, long plays, long seq) { }
+
+    // Up to limit songs whose title and artist words start with the query's words, most played
+    // first; empty for a blank query.
+    public List<Song> search(String query, int limit) {
+        String[] words = SongSearchIndex.tokenize(query);
+        if (words.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        TopK top = new TopK(limit);
+        // saved songs are matched on their new text only, even if the index has an older version
+        getIndex().search(words, limit, added::containsKey, top);
+        added.forEach((songId, pending) -> {
+            if (SongSearchIndex.matches(pending.words(), words)) {
+                top.offer(songId, pending.plays());
+            }
+        });
+        top.sortDescending();
+        List<Integer> ids = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            ids.add(top.idAt(i));
+        }
+        return myJdbcService.getSongsByIds(ids);
+    }
+
+    public SongSearchIndex getIndex() {
+        SongSearchIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    swap(saves.get(), build());
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    @Scheduled(fixedDelayString = "${soundhive.search.rebuild-interval-ms:900000}",
+            initialDelayString = "${soundhive.search.rebuild-interval-ms:900000}")
+    public void rebuild() {
+        if (index != null) {
+            long seq = saves.get();
+            SongSearchIndex built = build();
+            synchronized (this) {
+                swap(seq, built);
+            }
+        }
+    }
+
+    // Saves numbered up to seq happened before the build read the songs, so the new index has them.
+    private void swap(long seq, SongSearchIndex built) {
+        index = built;
+        added.values().removeIf(pending -> pending.seq() <= seq);
+    }
+
+    private SongSearchIndex build() {
+        Timer.Sample sample = Timer.start();
+        // play counts come sorted by song ID, as do the songs
+        long[][] counts = {new long[1024]};
+        int[][] countIds = {new int[1024]};
+        int[] numCounts = {0};
+        playLogRepository.forEachSongPlayCount(fromDay(), (songId, plays) -> {
+            int n = numCounts[0]++;
+            if (n == countIds[0].length) {
+                countIds[0] = Arrays.copyOf(countIds[0], n * 2);
+                counts[0] = Arrays.copyOf(counts[0], n * 2);
+            }
+            countIds[0][n] = songId;
+            counts[0][n] = plays;
+        });
+        SongSearchIndex.Builder builder = new SongSearchIndex.Builder();
+        bulkReadRepository.forEachSong((songId, title, artist) -> {
+            int i = Arrays.binarySearch(countIds[0], 0, numCounts[0], songId);
+            builder.add(songId, title, artist, i >= 0 ? counts[0][i] : 0);
+        });
+        SongSearchIndex built = builder.build();
+        sample.stop(Metrics.timer("soundhive.build", "structure", "song_search_index"));
+        return built;
+    }
+
+    // Applied once the song's transaction has committed.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSongSaved(SongSavedEvent event) {
+        Song song = event.getSong();
+        String[] title = SongSearchIndex.tokenize(song.getTitle());
+        String[] artist = SongSearchIndex.tokenize(song.getArtist());
+        String[] words = Arrays.copyOf(title, title.length + artist.length);
+        System.arraycopy(artist, 0, words, title.length, artist.length);
+        long plays = playLogRepository.countSongPlays(song.getSongId(), fromDay());
+        added.put(song.getSongId(), new Pending(words, plays, saves.incrementAndGet()));
+    }
+
+    private int fromDay() {
+        return PlayLogRepository.epochDay(System.currentTimeMillis()) - popularityDays + 1;
+    }
+}
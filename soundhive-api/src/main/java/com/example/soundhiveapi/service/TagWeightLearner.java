@@ -0,0 +1,198 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.SongTagIndex;
+import com.example.soundhiveapi.index.TagIndex;
+import com.example.soundhiveapi.repository.TagWeightUpdateRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Learns user_tagweights from plays: every play adds playIncrement to the weight of each of the
+// song's tags, and a user's existing weights decay with the configured half-life.
+// Increments are coalesced per (idNumber, tagId) in memory and written on an interval, so a user
+// playing many songs between flushes costs one decay update plus one upsert per touched tag.
+// A batch that fails for a non-transient reason is split in halves until the failing users are
+// isolated; those are kept for max-attempts flushes and then dropped. Transient failures keep the
+// whole batch, but no new users are taken once max-pending-users are waiting.
+@Service
+public class TagWeightLearner implements PlayEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TagWeightLearner.class);
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private TagWeightUpdateRepository tagWeightUpdateRepository;
+
+    @Autowired
+    private UserProfileStore userProfileStore;
+
+    @Value("${soundhive.learning.play-increment:1.0}")
+    private double playIncrement;
+
+    @Value("${soundhive.learning.half-life-days:30}")
+    private double halfLifeDays;
+
+    @Value("${soundhive.learning.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${soundhive.learning.max-pending-users:100000}")
+    private int maxPendingUsers;
+
+    private final ConcurrentHashMap<String, PendingWeights> pending = new ConcurrentHashMap<>();
+
+    private final Counter droppedUsers = Metrics.counter("soundhive.learning.dropped.users");
+    private final Counter droppedPlays = Metrics.counter("soundhive.learning.dropped.plays");
+
+    // Increments waiting to be written for one user.
+    static class PendingWeights {
+        int[] tagIds = new int[8];
+        double[] increments = new double[8];
+        int size;
+        // flushes this user's increments failed in on their own
+        int failedAttempts;
+
+        void add(int tagId, double increment) {
+            for (int i = 0; i < size; i++) {
+                if (tagIds[i] == tagId) {
+                    increments[i] += increment;
+                    return;
+                }
+            }
+            if (size == tagIds.length) {
+                tagIds = Arrays.copyOf(tagIds, size * 2);
+                increments = Arrays.copyOf(increments, size * 2);
+            }
+            tagIds[size] = tagId;
+            increments[size] = increment;
+            size++;
+        }
+    }
+
+    // Runs on the request thread, so it never builds the song index itself: plays that arrive
+    // before RecommendationService has built it (at startup) are not learned from.
+    @Override
+    public void onPlay(String userId, int songId, long playTimeMillis) {
+        SongTagIndex index = recommendationService.peekIndex();
+        if (index == null) {
+            return;
+        }
+        int pos = index.positionOf(songId);
+        if (pos < 0) {
+            return;
+        }
+        TagIndex tags = index.getTags();
+        int start = index.songTagStart(pos);
+        int end = index.songTagEnd(pos);
+        // the size check races with other plays, so the cap can be passed by a few users
+        if (pending.size() >= maxPendingUsers && !pending.containsKey(userId)) {
+            droppedPlays.increment();
+            return;
+        }
+        pending.compute(userId, (id, weights) -> {
+            if (weights == null) {
+                weights = new PendingWeights();
+            }
+            for (int i = start; i < end; i++) {
+                weights.add(tags.tagIdAt(index.songTagAt(i)), playIncrement);
+            }
+            return weights;
+        });
+    }
+
+    public int pendingUserCount() {
+        return pending.size();
+    }
+
+    // Writes all coalesced increments and refreshes the affected in-memory profiles.
+    @Scheduled(fixedDelayString = "${soundhive.learning.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        List<String> userIds = new ArrayList<>();
+        List<PendingWeights> batch = new ArrayList<>();
+        for (String userId : pending.keySet()) {
+            // remove() is atomic with compute(), so a concurrent play either lands in this
+            // batch or starts a new entry for the next flush
+            PendingWeights weights = pending.remove(userId);
+            if (weights != null) {
+                userIds.add(userId);
+                batch.add(weights);
+            }
+        }
+        if (!userIds.isEmpty()) {
+            write(userIds, batch);
+        }
+    }
+
+    // Writes one batch; on a non-transient failure, writes each half on its own.
+    private void write(List<String> userIds, List<PendingWeights> batch) {
+        int rowCount = 0;
+        for (PendingWeights weights : batch) {
+            rowCount += weights.size;
+        }
+        String[] rowUsers = new String[rowCount];
+        int[] rowTags = new int[rowCount];
+        double[] rowIncrements = new double[rowCount];
+        int row = 0;
+        for (int u = 0; u < userIds.size(); u++) {
+            PendingWeights weights = batch.get(u);
+            for (int i = 0; i < weights.size; i++) {
+                rowUsers[row] = userIds.get(u);
+                rowTags[row] = weights.tagIds[i];
+                rowIncrements[row] = weights.increments[i];
+                row++;
+            }
+        }
+        double decayPerSecond = Math.log(2) / (halfLifeDays * 24 * 60 * 60);
+        try {
+            tagWeightUpdateRepository.decayAndAdd(userIds, rowUsers, rowTags, rowIncrements, rowCount,
+                    decayPerSecond);
+        } catch (RuntimeException e) {
+            // the write is one transaction, so none of it applied
+            if (PlayEventIngestor.isTransient(e)) {
+                log.warn("Writing tag weight updates for {} users failed; retrying on the next flush", userIds.size(), e);
+                requeue(userIds, batch);
+            } else if (userIds.size() > 1) {
+                int half = userIds.size() / 2;
+                write(userIds.subList(0, half), batch.subList(0, half));
+                write(userIds.subList(half, userIds.size()), batch.subList(half, batch.size()));
+            } else if (++batch.get(0).failedAttempts >= maxAttempts) {
+                log.error("Dropping tag weight updates for user {} after {} failed attempts", userIds.get(0),
+                        maxAttempts, e);
+                droppedUsers.increment();
+            } else {
+                log.warn("Writing tag weight updates for user {} failed; retrying on the next flush", userIds.get(0), e);
+                requeue(userIds, batch);
+            }
+            return;
+        }
+        userProfileStore.reloadUsers(userIds);
+    }
+
+    // Puts failed increments back, together with any that arrived since.
+    private void requeue(List<String> userIds, List<PendingWeights> batch) {
+        for (int u = 0; u < userIds.size(); u++) {
+            pending.merge(userIds.get(u), batch.get(u), (newer, failed) -> {
+                for (int i = 0; i < newer.size; i++) {
+                    failed.add(newer.tagIds[i], newer.increments[i]);
+                }
+                return failed;
+            });
+        }
+    }
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
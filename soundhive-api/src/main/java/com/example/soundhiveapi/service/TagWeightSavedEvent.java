@@ -0,0 +1,28 @@
+package com.example.soundhiveapi.service;
+
+// Published by MyJdbcService after one user_tagweights row was written; UserProfileStore patches
+// the in-memory profile once the write has committed.
+public class TagWeightSavedEvent {
+
+    private final String idNumber;
+    private final int tagId;
+    private final double weight;
+
+    public TagWeightSavedEvent(String idNumber, int tagId, double weight) {
+        this.idNumber = idNumber;
+        this.tagId = tagId;
+        this.weight = weight;
+    }
+
+    public String getIdNumber() {
+        return idNumber;
+    }
+
+    public int getTagId() {
+        return tagId;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+}
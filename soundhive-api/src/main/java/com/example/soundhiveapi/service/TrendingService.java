@@ -0,0 +1,137 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.SlidingWindowCounts;
+import com.example.soundhiveapi.index.TopK;
+import com.example.soundhiveapi.model.Song;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// "Trending now": the songs played most over a recent window, counted in memory from every play
+// accepted by PlayEventIngestor (see SlidingWindowCounts), so no query touches the play tables.
+// Counts start empty at startup. A window's chart only changes when a bucket completes, so each
+// window's top soundhive.trending.max-k is computed once per bucket and shared by every request;
+// concurrent requests for a stale chart wait for one computation (SingleFlight).
+@Service
+public class TrendingService implements PlayEventListener {
+
+    @Autowired
+    private MyJdbcService myJdbcService;
+
+    private final SlidingWindowCounts counts;
+    private final int maxK;
+    private final Map<Integer, Chart> charts = new ConcurrentHashMap<>();
+    private final SingleFlight<Integer, Chart> chartLoads = new SingleFlight<>();
+    private final Counter latePlays = Metrics.counter("soundhive.trending.late.plays");
+
+    // Top songs of one window as of the bucket it was computed in.
+    private record Chart(long slot, int[] songIds, long[] plays) { }
+
+    public TrendingService(@Value("${soundhive.trending.bucket:1m}") Duration bucket,
+                           @Value("${soundhive.trending.max-window:24h}") Duration maxWindow,
+                           @Value("${soundhive.trending.max-k:100}") int maxK) {
+        int buckets = (int) Math.max(3, (maxWindow.toMillis() + bucket.toMillis() - 1) / bucket.toMillis());
+        this.counts = new SlidingWindowCounts(bucket.toMillis(), buckets);
+        this.maxK = maxK;
+    }
+
+    public int getMaxK() {
+        return maxK;
+    }
+
+    public Duration getMaxWindow() {
+        return Duration.ofMillis(counts.getBucketMillis() * counts.maxWindowBuckets());
+    }
+
+    @Override
+    public void onPlay(String userId, int songId, long playTimeMillis) {
+        if (!counts.add(songId, playTimeMillis, System.currentTimeMillis())) {
+            latePlays.increment();
+        }
+    }
+
+    // Up to k songs played most over the window (rounded up to whole buckets) that ended with the
+    // last completed bucket, most played first. The window must be positive and at most
+    // getMaxWindow(); k at most getMaxK().
+    public List<TrendingSong> trending(Duration window, int k) {
+        long bucketMillis = counts.getBucketMillis();
+        int windowBuckets = (int) Math.min(Integer.MAX_VALUE, (window.toMillis() + bucketMillis - 1) / bucketMillis);
+        long now = System.currentTimeMillis();
+        long slot = counts.slotAt(now);
+        Chart chart = charts.get(windowBuckets);
+        if (chart == null || chart.slot() != slot) {
+            chart = chartLoads.load(windowBuckets, w -> {
+                Chart current = charts.get(w);
+                if (current != null && current.slot() == slot) {
+                    return current;
+                }
+                Chart computed = compute(w, now, slot);
+                charts.put(w, computed);
+                return computed;
+            });
+        }
+
+        int n = Math.min(k, chart.songIds().length);
+        List<Integer> ids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ids.add(chart.songIds()[i]);
+        }
+        List<Song> songs = myJdbcService.getSongsByIds(ids);
+        List<TrendingSong> result = new ArrayList<>(songs.size());
+        int i = 0;
+        for (Song song : songs) {
+            // songs come back in the order asked for, minus any that no longer exist
+            while (chart.songIds()[i] != song.getSongId()) {
+                i++;
+            }
+            result.add(new TrendingSong(song, chart.plays()[i++]));
+        }
+        return result;
+    }
+
+    private Chart compute(int windowBuckets, long now, long slot) {
+        TopK top = new TopK(maxK);
+        counts.top(windowBuckets, now, top);
+        top.sortDescending();
+        int[] songIds = new int[top.size()];
+        long[] plays = new long[top.size()];
+        for (int i = 0; i < top.size(); i++) {
+            songIds[i] = top.idAt(i);
+            plays[i] = (long) top.scoreAt(i);
+        }
+        return new Chart(slot, songIds, plays);
+    }
+
+    // Freezes buckets nobody writes any more, and drops charts of windows nobody asked for since
+    // the last bucket.
+    @Scheduled(fixedDelayString = "${soundhive.trending.compact-interval-ms:60000}")
+    public void compact() {
+        long now = System.currentTimeMillis();
+        counts.compact(now);
+        long slot = counts.slotAt(now);
+        charts.values().removeIf(chart -> chart.slot() < slot - 1);
+    }
+
+    // One trending song with its plays in the window.
+    public static class TrendingSong {
+        private Song song;
+        private long plays;
+
+        public TrendingSong(Song song, long plays) {
+            this.song = song;
+            this.plays = plays;
+        }
+
+        public Song getSong() { return song; }
+        public long getPlays() { return plays; }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.UserProfile;
+
+// Published by UserProfileStore after one user's profile was replaced.
+// Events for the same user may be delivered out of order; compare profile versions.
+public class UserProfileChangedEvent {
+
+    private final UserProfile previous;
+    private final UserProfile current;
+
+    public UserProfileChangedEvent(UserProfile previous, UserProfile current) {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    public String getIdNumber() {
+        return current.getIdNumber();
+    }
+
+    public UserProfile getPrevious() {
+        return previous;
+    }
+
+    public UserProfile getCurrent() {
+        return current;
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.MatrixSnapshot;
+import com.example.soundhiveapi.index.TagIndex;
+import com.example.soundhiveapi.index.UserProfile;
+import com.example.soundhiveapi.index.UserTagMatrix;
+import com.example.soundhiveapi.repository.BulkReadRepository;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import com.example.soundhiveapi.repository.ReadQueryRepository.TagWeightRow;
+import com.example.soundhiveapi.repository.TagRepository;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Long-lived in-memory copy of user_tagweights.
+// The full matrix is loaded once (cold start or explicit resync); after that single users are
+// patched as their rows change. Each patch publishes a new immutable UserProfile with a higher
+// version, so a reader always sees either the old or the new profile, never a mix.
+// With soundhive.snapshot.path set, the matrix is also written to a binary snapshot after each
+// full load and on an interval. A cold start then memory-maps the snapshot instead of reading
+// MySQL, and catches up in the background on the users whose rows changed since it was written.
+@Service
+public class UserProfileStore {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileStore.class);
+    private static final int CATCH_UP_BATCH = 1000;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private ReadQueryRepository readQueryRepository;
+
+    @Autowired
+    private BulkReadRepository bulkReadRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Empty disables snapshots.
+    @Value("${soundhive.snapshot.path:}")
+    private String snapshotPath;
+
+    @Value("${soundhive.snapshot.verify-checksum:true}")
+    private boolean verifySnapshotChecksum;
+
+    // Rows written this long before a snapshot's watermark are caught up as well, to cover
+    // transactions that committed after the watermark was read.
+    @Value("${soundhive.snapshot.catch-up-overlap-ms:60000}")
+    private long catchUpOverlapMillis;
+
+    // Source of profile versions; base rows carry the value it had when the matrix was loaded.
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Users patched since the base matrix was loaded.
+    private final ConcurrentHashMap<String, UserProfile> overlay = new ConcurrentHashMap<>();
+
+    private volatile Base base;
+
+    // resync()'s writer thread and snapshot() share the snapshot's temp file, so writes take turns.
+    private final Object snapshotWriteLock = new Object();
+    // watermark of the last snapshot written, guarded by snapshotWriteLock
+    private long writtenWatermarkMillis = Long.MIN_VALUE;
+
+    private static class Base {
+        final UserTagMatrix matrix;
+        final long version;
+
+        Base(UserTagMatrix matrix, long version) {
+            this.matrix = matrix;
+            this.version = version;
+        }
+    }
+
+    // Returns the user's current profile (empty if the user has no weights).
+    public UserProfile getProfile(String idNumber) {
+        UserProfile patched = overlay.get(idNumber);
+        if (patched != null) {
+            return patched;
+        }
+        Base current = loaded();
+        int row = current.matrix.rowOf(idNumber);
+        return row == -1 ? UserProfile.empty(idNumber) : UserProfile.ofRow(current.matrix, row, current.version);
+    }
+
+    public TagIndex getTags() {
+        return loaded().matrix.getTags();
+    }
+
+    // Matrix as of the last full load; does not include later per-user patches.
+    public UserTagMatrix getBaseMatrix() {
+        return loaded().matrix;
+    }
+
+    // Sets one weight in memory after the corresponding user_tagweights row was written.
+    public UserProfile applyWeight(String idNumber, int tagId, double weight) {
+        TagIndex tags = getTags();
+        int col = tags.columnOf(tagId);
+        if (col < 0) {
+            return getProfile(idNumber);
+        }
+        UserProfile[] previous = new UserProfile[1];
+        UserProfile updated = overlay.compute(idNumber, (id, patched) -> {
+            previous[0] = patched != null ? patched : getProfile(id);
+            return previous[0].with(col, weight, sequence.incrementAndGet());
+        });
+        eventPublisher.publishEvent(new UserProfileChangedEvent(previous[0], updated));
+        return updated;
+    }
+
+    // Applied once the write's transaction has committed, so a failed save never shows up in memory.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTagWeightSaved(TagWeightSavedEvent event) {
+        applyWeight(event.getIdNumber(), event.getTagId(), event.getWeight());
+    }
+
+    // Replaces the user's whole profile with the given rows.
+    public UserProfile applyWeights(String idNumber, List<TagWeightRow> rows) {
+        TagIndex tags = getTags();
+        int[] cols = new int[rows.size()];
+        double[] weights = new double[rows.size()];
+        int n = 0;
+        for (TagWeightRow w : rows) {
+            int col = tags.columnOf(w.tagId());
+            if (col >= 0) {
+                cols[n] = col;
+                weights[n] = w.weight();
+                n++;
+            }
+        }
+        sortByColumn(cols, weights, n);
+        int[] finalCols = Arrays.copyOf(cols, n);
+        double[] finalWeights = Arrays.copyOf(weights, n);
+        UserProfile[] previous = new UserProfile[1];
+        UserProfile updated = overlay.compute(idNumber, (id, patched) -> {
+            previous[0] = patched != null ? patched : getProfile(id);
+            return new UserProfile(id, sequence.incrementAndGet(), finalCols, finalWeights);
+        });
+        eventPublisher.publishEvent(new UserProfileChangedEvent(previous[0], updated));
+        return updated;
+    }
+
+    // Re-reads one user's rows from the database.
+    public UserProfile reloadUser(String idNumber) {
+        return applyWeights(idNumber, readQueryRepository.findTagWeights(idNumber));
+    }
+
+    // Re-reads the rows of several users with one query.
+    public void reloadUsers(Collection<String> idNumbers) {
+        Map<String, List<TagWeightRow>> byUser = new HashMap<>();
+        for (String idNumber : idNumbers) {
+            byUser.put(idNumber, new ArrayList<>());
+        }
+        for (TagWeightRow w : readQueryRepository.findTagWeights(idNumbers)) {
+            byUser.computeIfAbsent(w.idNumber(), id -> new ArrayList<>()).add(w);
+        }
+        byUser.forEach(this::applyWeights);
+    }
+
+    // Rebuilds the whole matrix from the database. Patches applied while the rebuild was reading
+    // are kept, since the rebuild may have read those rows before they changed.
+    public synchronized void resync() {
+        long startVersion = sequence.get();
+        long watermark = snapshotsEnabled() ? bulkReadRepository.databaseTimeMillis() : 0;
+        UserTagMatrix matrix = loadMatrix();
+        base = new Base(matrix, startVersion);
+        overlay.values().removeIf(p -> p.getVersion() <= startVersion);
+        eventPublisher.publishEvent(new UserProfilesReloadedEvent());
+        if (snapshotsEnabled()) {
+            Thread.ofVirtual().name("profile-snapshot-writer").start(() -> writeSnapshot(matrix, watermark));
+        }
+    }
+
+    // Writes the current profiles (base plus patches) to the snapshot file.
+    @Scheduled(fixedDelayString = "${soundhive.snapshot.interval-ms:3600000}",
+            initialDelayString = "${soundhive.snapshot.interval-ms:3600000}")
+    public void snapshot() {
+        if (!snapshotsEnabled() || base == null) {
+            return;
+        }
+        long watermark = bulkReadRepository.databaseTimeMillis();
+        writeSnapshot(getCurrentMatrix(), watermark);
+    }
+
+    // A matrix of the current profiles (base plus patches), built on each call in O(nnz).
+    public UserTagMatrix getCurrentMatrix() {
+        TagIndex tags = getTags();
+        UserTagMatrix.Builder builder = new UserTagMatrix.Builder(tags, loaded().matrix.nnz());
+        forEachProfile(profile -> {
+            for (int i = 0; i < profile.size(); i++) {
+                builder.add(profile.getIdNumber(), tags.tagIdAt(profile.colAt(i)), profile.weightAt(i));
+            }
+        });
+        return builder.build();
+    }
+
+    // Visits the current profile of every user: base rows first, then users only in the overlay.
+    public void forEachProfile(Consumer<UserProfile> visitor) {
+        Base current = loaded();
+        UserTagMatrix matrix = current.matrix;
+        for (int row = 0; row < matrix.numUsers(); row++) {
+            UserProfile patched = overlay.get(matrix.userIdAt(row));
+            visitor.accept(patched != null ? patched : UserProfile.ofRow(matrix, row, current.version));
+        }
+        for (UserProfile patched : overlay.values()) {
+            if (matrix.rowOf(patched.getIdNumber()) == -1) {
+                visitor.accept(patched);
+            }
+        }
+    }
+
+    // Current profiles of users without a row in the base matrix (added since the last full load).
+    public List<UserProfile> getOverlayOnlyProfiles() {
+        UserTagMatrix matrix = loaded().matrix;
+        List<UserProfile> profiles = new ArrayList<>();
+        for (UserProfile patched : overlay.values()) {
+            if (matrix.rowOf(patched.getIdNumber()) == -1) {
+                profiles.add(patched);
+            }
+        }
+        return profiles;
+    }
+
+    private Base loaded() {
+        Base current = base;
+        if (current == null) {
+            synchronized (this) {
+                if (base == null && !loadSnapshot()) {
+                    resync();
+                }
+                current = base;
+            }
+        }
+        return current;
+    }
+
+    private boolean snapshotsEnabled() {
+        return snapshotPath != null && !snapshotPath.isEmpty();
+    }
+
+    // Maps the snapshot as the base matrix and starts the catch-up; false if there is no usable
+    // snapshot.
+    private boolean loadSnapshot() {
+        if (!snapshotsEnabled() || !Files.exists(Path.of(snapshotPath))) {
+            return false;
+        }
+        MatrixSnapshot snapshot;
+        Timer.Sample sample = Timer.start();
+        try {
+            snapshot = MatrixSnapshot.map(Path.of(snapshotPath), verifySnapshotChecksum);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unusable profile snapshot {}", snapshotPath, e);
+            return false;
+        }
+        sample.stop(Metrics.timer("soundhive.build", "structure", "user_tag_matrix_snapshot"));
+        base = new Base(snapshot.getMatrix(), sequence.get());
+        eventPublisher.publishEvent(new UserProfilesReloadedEvent());
+        long since = snapshot.getWatermarkMillis() - catchUpOverlapMillis;
+        Thread.ofVirtual().name("profile-snapshot-catch-up").start(() -> catchUp(since));
+        return true;
+    }
+
+    // Re-reads every user whose rows were written after the given database time.
+    void catchUp(long sinceMillis) {
+        try {
+            List<String> changed = bulkReadRepository.findUserIdsUpdatedSince(sinceMillis);
+            for (int from = 0; from < changed.size(); from += CATCH_UP_BATCH) {
+                reloadUsers(changed.subList(from, Math.min(changed.size(), from + CATCH_UP_BATCH)));
+            }
+            log.info("Caught up {} users changed since the profile snapshot", changed.size());
+        } catch (RuntimeException e) {
+            log.error("Profile snapshot catch-up failed; resyncing from the database", e);
+            resync();
+        }
+    }
+
+    // Skips the write if a snapshot with a later watermark is already on disk.
+    private void writeSnapshot(UserTagMatrix matrix, long watermarkMillis) {
+        synchronized (snapshotWriteLock) {
+            if (watermarkMillis < writtenWatermarkMillis) {
+                return;
+            }
+            try {
+                Path path = Path.of(snapshotPath);
+                Path dir = path.toAbsolutePath().getParent();
+                if (dir != null) {
+                    Files.createDirectories(dir);
+                }
+                MatrixSnapshot.write(matrix, watermarkMillis, path);
+                writtenWatermarkMillis = watermarkMillis;
+            } catch (IOException | RuntimeException e) {
+                log.error("Could not write profile snapshot {}", snapshotPath, e);
+            }
+        }
+    }
+
+    // Streams the table in (id_number, tag_id) order, which is already CSR order, so the builder
+    // arrays are sized once from the row count and never sorted or copied.
+    private UserTagMatrix loadMatrix() {
+        Timer.Sample sample = Timer.start();
+        TagIndex tagIndex = new TagIndex(tagRepository.findAllByOrderByTagIdAsc());
+        int expectedRows = (int) Math.min(bulkReadRepository.countUserTagWeights(), Integer.MAX_VALUE - 8);
+        UserTagMatrix.Builder builder = new UserTagMatrix.Builder(tagIndex, expectedRows);
+        bulkReadRepository.forEachUserTagWeight(builder::add);
+        UserTagMatrix matrix = builder.build();
+        sample.stop(Metrics.timer("soundhive.build", "structure", "user_tag_matrix"));
+        return matrix;
+    }
+
+    // Insertion sort; a profile has at most one entry per tag.
+    private static void sortByColumn(int[] cols, double[] weights, int n) {
+        for (int i = 1; i < n; i++) {
+            int col = cols[i];
+            double weight = weights[i];
+            int j = i - 1;
+            while (j >= 0 && cols[j] > col) {
+                cols[j + 1] = cols[j];
+                weights[j + 1] = weights[j];
+                j--;
+            }
+            cols[j + 1] = col;
+            weights[j + 1] = weight;
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.soundhiveapi.service;
+
+// Published by UserProfileStore after the whole matrix was (re)loaded from the database.
+public class UserProfilesReloadedEvent {
+}
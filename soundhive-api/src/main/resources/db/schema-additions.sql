@@ -0,0 +1,95 @@
+-- Tables and columns added on top of the original SoundHive MySQL schema (USERS, TAGS, SONGS,
+-- user_tagweights, user_playevents). Apply manually: spring.sql.init only runs for
+-- embedded databases.
+
+-- The 5 tags of each song, in order.
+CREATE TABLE IF NOT EXISTS song_tags (
+    song_id      INT     NOT NULL,
+    tag_position TINYINT NOT NULL,
+    tag_id       INT     NOT NULL,
+    PRIMARY KEY (song_id, tag_position),
+    KEY idx_song_tags_tag (tag_id)
+);
+
+-- Last time a weight was decayed or incremented by the online learner (TagWeightLearner).
+ALTER TABLE user_tagweights
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3);
+
+-- Bump updated_at on every write (not only the learner's), and index it for the snapshot
+-- delta catch-up in UserProfileStore.
+ALTER TABLE user_tagweights
+    MODIFY COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    ADD KEY idx_user_tagweights_updated (updated_at);
+
+-- Append-only log of every play, partitioned by the day it was written (log_day, epoch days UTC)
+-- so old days can be dropped with ALTER TABLE ... DROP PARTITION. PlayLogCompactionJob adds
+-- day partitions ahead of time by splitting p_future.
+CREATE TABLE IF NOT EXISTS play_log (
+    play_id   BIGINT       NOT NULL AUTO_INCREMENT,
+    log_day   INT          NOT NULL,
+    user_id   VARCHAR(20)  NOT NULL,
+    song_id   INT          NOT NULL,
+    play_time DATETIME(3)  NOT NULL,
+    play_day  INT          NOT NULL,
+    logged_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (play_id, log_day)
+)
+PARTITION BY RANGE (log_day) (
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
+
+-- Rollups maintained from play_log by PlayLogCompactionJob.
+CREATE TABLE IF NOT EXISTS user_song_plays (
+    user_id     VARCHAR(20) NOT NULL,
+    song_id     INT         NOT NULL,
+    play_count  BIGINT      NOT NULL,
+    last_played DATETIME(3) NOT NULL,
+    PRIMARY KEY (user_id, song_id)
+);
+
+CREATE TABLE IF NOT EXISTS song_daily_plays (
+    song_id    INT    NOT NULL,
+    play_day   INT    NOT NULL,
+    play_count BIGINT NOT NULL,
+    PRIMARY KEY (song_id, play_day)
+);
+
+-- Compaction watermark: every play_log row with play_id <= last_play_id is in the rollups.
+CREATE TABLE IF NOT EXISTS play_log_compaction (
+    id           TINYINT      NOT NULL PRIMARY KEY,
+    last_play_id BIGINT       NOT NULL,
+    last_log_day INT          NOT NULL,
+    compacted_at TIMESTAMP(3) NULL
+);
+INSERT IGNORE INTO play_log_compaction (id, last_play_id, last_log_day) VALUES (1, 0, 0);
+
+-- Plays recorded before the log existed count once each.
+INSERT IGNORE INTO user_song_plays (user_id, song_id, play_count, last_played)
+    SELECT user_id, song_id, 1, play_time FROM user_playevents WHERE play_time IS NOT NULL;
+-- play_day is days since 1970-01-01 as stored, like PlayLogRepository.epochDay(), whatever the
+-- session time zone; IGNORE keeps a re-run from counting the same plays again.
+INSERT IGNORE INTO song_daily_plays (song_id, play_day, play_count)
+    SELECT song_id, TO_DAYS(play_time) - TO_DAYS('1970-01-01'), COUNT(*) FROM user_playevents
+    WHERE play_time IS NOT NULL GROUP BY song_id, TO_DAYS(play_time) - TO_DAYS('1970-01-01');
+
+-- Batch export of every user's top recommendations (RecommendationExportJob, table sink).
+-- user_recommendation_parts records the partitions already written for the current export
+-- layout, so an interrupted export resumes instead of starting over.
+CREATE TABLE IF NOT EXISTS user_recommendations (
+    user_id  VARCHAR(20) NOT NULL,
+    rank_pos SMALLINT    NOT NULL,
+    song_id  INT         NOT NULL,
+    score    DOUBLE      NOT NULL,
+    PRIMARY KEY (user_id, rank_pos)
+);
+
+CREATE TABLE IF NOT EXISTS user_recommendation_parts (
+    part_no     INT          NOT NULL PRIMARY KEY,
+    layout      VARCHAR(200) NOT NULL,
+    users       INT          NOT NULL,
+    finished_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
+
+-- Recently active users for the recommendation cache refresh (RecommendationCache).
+ALTER TABLE user_playevents
+    ADD KEY idx_user_playevents_play_time (play_time);
@@ -0,0 +1,51 @@
+package com.example.soundhiveapi.controller;
+
+import com.example.soundhiveapi.service.RecommendationCache;
+import com.example.soundhiveapi.service.SimilarUsersService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserControllerTests {
+
+	private final RecommendationCache recommendationCache = mock(RecommendationCache.class);
+	private final SimilarUsersService similarUsersService = mock(SimilarUsersService.class);
+	private final UserController controller = new UserController();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(controller, "recommendationCache", recommendationCache);
+		ReflectionTestUtils.setField(controller, "similarUsersService", similarUsersService);
+		ReflectionTestUtils.setField(controller, "maxRecommendations", 200);
+		ReflectionTestUtils.setField(controller, "maxSimilarUsers", 100);
+		when(recommendationCache.get(anyString(), anyInt())).thenReturn(List.of());
+		when(similarUsersService.findSimilar(anyString(), anyInt())).thenReturn(List.of());
+	}
+
+	@Test
+	void recommendationCountIsBounded() {
+		assertEquals(HttpStatus.OK, controller.getRecommendations("u1", 200).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, controller.getRecommendations("u1", 201).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, controller.getRecommendations("u1", 1_000_000_000).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, controller.getRecommendations("u1", 0).getStatusCode());
+		verify(recommendationCache).get("u1", 200);
+		verifyNoMoreInteractions(recommendationCache);
+	}
+
+	@Test
+	void similarUserCountIsBounded() {
+		assertEquals(HttpStatus.OK, controller.getSimilarUsers("u1", 100).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, controller.getSimilarUsers("u1", 101).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, controller.getSimilarUsers("u1", Integer.MAX_VALUE).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, controller.getSimilarUsers("u1", 0).getStatusCode());
+		verify(similarUsersService).findSimilar("u1", 100);
+		verifyNoMoreInteractions(similarUsersService);
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.soundhiveapi.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImplicitAlsTrainerTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void choleskySolvesSymmetricSystem() {
+		// lower triangle of [[4, 2], [2, 3]]
+		double[] a = {4, 0, 2, 3};
+		double[] b = {10, 8};
+		ImplicitAlsTrainer.choleskySolve(a, b, 2);
+		assertEquals(1.75, b[0], 1e-9);
+		assertEquals(1.5, b[1], 1e-9);
+	}
+
+	@Test
+	void learnsTasteGroupsAndSurvivesRoundTrip() throws Exception {
+		// users 0-99 play songs 0-49, users 100-199 play songs 100-149; each user skips some songs
+		Random random = new Random(3);
+		InteractionMatrix.Builder builder = new InteractionMatrix.Builder();
+		for (int u = 0; u < 200; u++) {
+			int base = u < 100 ? 0 : 100;
+			for (int s = 0; s < 50; s++) {
+				if (random.nextDouble() < 0.6) {
+					builder.add("user" + u, base + s);
+				}
+			}
+		}
+		InteractionMatrix plays = builder.build();
+		assertEquals(200, plays.numUsers());
+
+		FactorModel model = new ImplicitAlsTrainer(8, 8, 0.1, 10, 1, 20).train(plays, new ForkJoinPool(4));
+
+		Path file = dir.resolve("factors.bin");
+		model.write(file);
+		FactorModel loaded = FactorModel.read(file);
+		assertEquals(model.numUsers(), loaded.numUsers());
+		assertEquals(model.numSongs(), loaded.numSongs());
+		assertEquals(20, loaded.getCandidatesPerUser());
+
+		int user = loaded.userRowOf("user0");
+		TopK top = new TopK(10);
+		loaded.topSongs(user, null, top);
+		assertEquals(10, top.size());
+		for (int i = 0; i < top.size(); i++) {
+			int pos = top.idAt(i);
+			assertTrue(loaded.songIdAt(pos) < 100, "user0 was recommended song " + loaded.songIdAt(pos));
+			// candidates leave out what the user already played
+			for (int p = plays.userStart(user); p < plays.userEnd(user); p++) {
+				assertNotEquals(pos, plays.userSongAt(p));
+			}
+		}
+
+		// songs excluded at request time fall out of the precomputed list
+		int best = loaded.songIdAt(top.idAt(0));
+		top.reset();
+		loaded.topSongs(user, new int[] {best}, top);
+		for (int i = 0; i < top.size(); i++) {
+			assertNotEquals(best, loaded.songIdAt(top.idAt(i)));
+		}
+		assertEquals(model.score(user, 3), loaded.score(user, 3), 1e-6);
+		assertEquals(-1, loaded.userRowOf("nobody"));
+	}
+
+	@Test
+	void prunedCandidatesMatchAFullScan() {
+		// skewed popularity, so song factor norms differ and the scan stops early
+		Random random = new Random(11);
+		InteractionMatrix.Builder builder = new InteractionMatrix.Builder();
+		for (int i = 0; i < 20_000; i++) {
+			builder.add("user" + random.nextInt(300), (int) (500 * Math.pow(random.nextDouble(), 2)));
+		}
+		InteractionMatrix plays = builder.build();
+		FactorModel model = new ImplicitAlsTrainer(8, 4, 0.1, 10, 1, 15).train(plays, new ForkJoinPool(4));
+
+		for (int user = 0; user < plays.numUsers(); user++) {
+			TopK expected = new TopK(15);
+			for (int pos = 0; pos < plays.numSongs(); pos++) {
+				boolean played = false;
+				for (int p = plays.userStart(user); p < plays.userEnd(user); p++) {
+					played |= plays.userSongAt(p) == pos;
+				}
+				if (!played) {
+					expected.offer(pos, model.score(user, pos));
+				}
+			}
+			expected.sortDescending();
+			TopK actual = new TopK(15);
+			model.topSongs(user, null, actual);
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.idAt(i), actual.idAt(i), "user " + user + " candidate " + i);
+			}
+		}
+	}
+}
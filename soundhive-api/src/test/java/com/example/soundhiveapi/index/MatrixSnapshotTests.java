@@ -0,0 +1,69 @@
+package com.example.soundhiveapi.index;
+
+import com.example.soundhiveapi.model.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatrixSnapshotTests {
+
+	private final TagIndex tags = new TagIndex(List.of(
+			new Tag(30, "rock"), new Tag(10, "pop"), new Tag(20, "jazz")));
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void mappedSnapshotMatchesTheMatrix() throws IOException {
+		UserTagMatrix.Builder builder = new UserTagMatrix.Builder(tags);
+		for (int u = 0; u < 500; u++) {
+			builder.add("user-" + u, 10 + 10 * (u % 3), u * 0.5);
+			builder.add("user-" + u, 30, 1.0);
+		}
+		builder.add("ünï", 20, 2.5);
+		UserTagMatrix matrix = builder.build();
+		Path path = dir.resolve("profiles.snap");
+
+		MatrixSnapshot.write(matrix, 1234L, path);
+		MatrixSnapshot snapshot = MatrixSnapshot.map(path, true);
+		UserTagMatrix mapped = snapshot.getMatrix();
+
+		assertEquals(1234L, snapshot.getWatermarkMillis());
+		assertEquals(matrix.numUsers(), mapped.numUsers());
+		assertEquals(matrix.nnz(), mapped.nnz());
+		assertEquals("jazz", mapped.getTags().tagNameAt(1));
+		assertEquals(2, mapped.getTags().columnOf(30));
+		for (int r = 0; r < matrix.numUsers(); r++) {
+			String id = matrix.userIdAt(r);
+			assertEquals(r, mapped.rowOf(id));
+			assertEquals(id, mapped.userIdAt(r));
+			assertArrayEquals(matrix.denseRow(r), mapped.denseRow(r));
+		}
+		assertEquals(2.5, mapped.get(mapped.rowOf("ünï"), 1));
+		assertEquals(-1, mapped.rowOf("nobody"));
+		assertFalse(Files.exists(dir.resolve("profiles.snap.tmp")));
+	}
+
+	@Test
+	void rejectsCorruptedSnapshots() throws IOException {
+		UserTagMatrix matrix = new UserTagMatrix.Builder(tags).add("a", 10, 1.0).add("b", 20, 2.0).build();
+		Path path = dir.resolve("profiles.snap");
+		MatrixSnapshot.write(matrix, 0L, path);
+
+		try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+			file.seek(file.length() - 1);
+			file.write(file.read() ^ 0x40);
+		}
+		assertThrows(IOException.class, () -> MatrixSnapshot.map(path, true));
+
+		Files.write(path, new byte[] {1, 2, 3});
+		assertThrows(IOException.class, () -> MatrixSnapshot.map(path, false));
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.soundhiveapi.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentSongsTests {
+
+	@Test
+	void keepsTheNewestEntriesFirst() {
+		RecentSongs recent = RecentSongs.of(3, new int[] {30, 20, 10});
+		recent.push(40);
+		assertArrayEquals(new int[] {40, 30, 20}, recent.toArray());
+		recent.push(50);
+		recent.push(60);
+		assertArrayEquals(new int[] {60, 50, 40}, recent.toArray());
+	}
+
+	@Test
+	void replayMovesTheSongToTheFront() {
+		RecentSongs recent = RecentSongs.of(4, new int[] {4, 3, 2, 1});
+		recent.push(2);
+		assertArrayEquals(new int[] {2, 4, 3, 1}, recent.toArray());
+		recent.push(2);
+		assertArrayEquals(new int[] {2, 4, 3, 1}, recent.toArray());
+		recent.push(1);
+		assertArrayEquals(new int[] {1, 2, 4, 3}, recent.toArray());
+	}
+
+	@Test
+	void startsEmpty() {
+		RecentSongs recent = new RecentSongs(20);
+		assertEquals(0, recent.toArray().length);
+		recent.push(7);
+		assertArrayEquals(new int[] {7}, recent.toArray());
+	}
+}
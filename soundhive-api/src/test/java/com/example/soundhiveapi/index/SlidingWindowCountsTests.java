@@ -0,0 +1,101 @@
+package com.example.soundhiveapi.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowCountsTests {
+
+	private static final long MINUTE = 60_000;
+
+	@Test
+	void countsWholeCompletedBucketsInTheWindow() {
+		SlidingWindowCounts counts = new SlidingWindowCounts(MINUTE, 60);
+		long now = 1_000 * MINUTE + 30_000;
+		counts.add(1, now - 90 * MINUTE, now); // older than the ring
+		counts.add(2, now - 30 * MINUTE, now);
+		counts.add(2, now - 30 * MINUTE, now);
+		counts.add(3, now - 2 * MINUTE, now);
+		counts.add(3, now - MINUTE, now);
+		counts.add(3, now - MINUTE, now);
+		counts.add(4, now, now); // current bucket, not complete yet
+		counts.add(4, now + 10 * MINUTE, now); // future plays count now
+
+		TopK top = new TopK(10);
+		assertEquals(5, counts.top(60, now, top));
+		top.sortDescending();
+		assertEquals(2, top.size());
+		assertEquals(3, top.idAt(0));
+		assertEquals(3.0, top.scoreAt(0));
+		assertEquals(2, top.idAt(1));
+
+		top.reset();
+		assertEquals(2, counts.top(1, now, top));
+
+		// an hour later everything but song 4 has left the window
+		top.reset();
+		counts.top(60, now + 60 * MINUTE, top);
+		assertEquals(1, top.size());
+		assertEquals(4, top.idAt(0));
+		assertEquals(2.0, top.scoreAt(0));
+		assertThrows(IllegalArgumentException.class, () -> counts.top(61, now, new TopK(1)));
+	}
+
+	@Test
+	void compactedBucketsKeepTheirCountsAndRejectLatePlays() {
+		SlidingWindowCounts counts = new SlidingWindowCounts(MINUTE, 10);
+		long now = 500 * MINUTE;
+		for (int i = 0; i < 1_000; i++) {
+			assertTrue(counts.add(i % 37, now - 3 * MINUTE, now));
+		}
+		assertTrue(counts.add(99, now - MINUTE, now));
+		assertEquals(1, counts.compact(now));
+
+		assertFalse(counts.add(5, now - 3 * MINUTE, now));
+		assertTrue(counts.add(99, now - MINUTE, now));
+		TopK top = new TopK(100);
+		assertEquals(1_002, counts.top(10, now, top));
+		top.sortDescending();
+		assertEquals(38, top.size());
+		assertEquals(0, top.idAt(0));
+		assertEquals(28.0, top.scoreAt(0));
+	}
+
+	@Test
+	void concurrentIncrementsAreAllCounted() throws Exception {
+		SlidingWindowCounts counts = new SlidingWindowCounts(MINUTE, 10);
+		long now = 500 * MINUTE;
+		int threads = 8;
+		int perThread = 100_000;
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int seed = t;
+			Thread worker = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < perThread; i++) {
+					// a few hot songs, a long tail, and plays spread over two buckets
+					int songId = i % 4 == 0 ? i % 3 : (i * 31 + seed) % 5_000;
+					counts.add(songId, now - MINUTE - (i & 1) * MINUTE, now);
+				}
+			});
+			worker.start();
+			workers.add(worker);
+		}
+		start.countDown();
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		TopK top = new TopK(5_000);
+		assertEquals((long) threads * perThread, counts.top(10, now, top));
+	}
+}
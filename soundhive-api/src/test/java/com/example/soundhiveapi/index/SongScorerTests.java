@@ -0,0 +1,50 @@
+package com.example.soundhiveapi.index;
+
+import com.example.soundhiveapi.model.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongScorerTests {
+
+	private final TagIndex tags = new TagIndex(List.of(new Tag(1, "pop"), new Tag(2, "rock"), new Tag(3, "jazz")));
+
+	private final SongTagIndex index = new SongTagIndex.Builder(tags)
+			.add(100, 1).add(100, 2)
+			.add(200, 2).add(200, 3)
+			.add(300, 1).add(300, 2).add(300, 3)
+			.add(400, 3)
+			.build();
+
+	@Test
+	void invertsSongTags() {
+		assertEquals(4, index.numSongs());
+		int rock = tags.columnOf(2);
+		assertEquals(3, index.postingEnd(rock) - index.postingStart(rock));
+		assertEquals(2, index.positionOf(300));
+		assertEquals(-1, index.positionOf(999));
+	}
+
+	@Test
+	void scoresByTagWeightsAndSkipsPlayedSongs() {
+		UserProfile profile = new UserProfile("u", 1, new int[] {0, 1}, new double[] {1.0, 0.5});
+		SongScorer scorer = new SongScorer(index);
+		TopK top = new TopK(3);
+
+		scorer.score(profile, tags, 10, new int[] {100}, top);
+
+		assertEquals(2, top.size());
+		assertEquals(300, index.songIdAt(top.idAt(0)));
+		assertEquals(1.5, top.scoreAt(0), 1e-6);
+		assertEquals(200, index.songIdAt(top.idAt(1)));
+
+		// scratch is clean for the next call
+		top.reset();
+		scorer.score(profile, tags, 1, null, top);
+		assertEquals(2, top.size());
+		assertEquals(1.0, top.scoreAt(0), 1e-6);
+		assertEquals(1.0, top.scoreAt(1), 1e-6);
+	}
+}
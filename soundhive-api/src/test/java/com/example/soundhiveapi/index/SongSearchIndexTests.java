@@ -0,0 +1,93 @@
+package com.example.soundhiveapi.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongSearchIndexTests {
+
+	@Test
+	void tokenizesToLowercaseWordsWithoutAccents() {
+		assertArrayEquals(new String[] {"beyonce", "crazy", "in", "love"},
+				SongSearchIndex.tokenize("Beyoncé - Crazy in Love!"));
+		assertArrayEquals(new String[0], SongSearchIndex.tokenize("  -- "));
+		assertArrayEquals(new String[0], SongSearchIndex.tokenize(null));
+	}
+
+	@Test
+	void tokenizingDoesNotDependOnTheDefaultLocale() {
+		Locale previous = Locale.getDefault();
+		// Turkish lowercases I to a dotless i
+		Locale.setDefault(Locale.forLanguageTag("tr"));
+		try {
+			assertArrayEquals(new String[] {"live", "in", "istanbul"}, SongSearchIndex.tokenize("LIVE IN ISTANBUL"));
+		} finally {
+			Locale.setDefault(previous);
+		}
+	}
+
+	@Test
+	void matchesEveryWordAsPrefixMostPlayedFirst() {
+		SongSearchIndex index = new SongSearchIndex.Builder()
+				.add(1, "Love Story", "Taylor Swift", 50)
+				.add(2, "Crazy in Love", "Beyoncé", 200)
+				.add(3, "Lovely", "Billie Eilish", 200)
+				.add(4, "Yesterday", "The Beatles", 1000)
+				.build();
+
+		assertArrayEquals(new int[] {2, 3, 1}, search(index, "lov", 10));
+		assertArrayEquals(new int[] {2}, search(index, "love bey", 10));
+		assertArrayEquals(new int[] {2}, search(index, "BEYONCE", 10));
+		assertArrayEquals(new int[] {2, 3}, search(index, "lov", 2));
+		assertArrayEquals(new int[0], search(index, "love beatles", 10));
+		assertArrayEquals(new int[0], search(index, "zzz", 10));
+	}
+
+	@Test
+	void bothSearchPathsAgree() {
+		SongSearchIndex.Builder builder = new SongSearchIndex.Builder();
+		for (int i = 0; i < 10_000; i++) {
+			// "common" is on every song, "rare" on every 1000th, "mid" on every 7th
+			String title = "common " + (i % 1000 == 0 ? "rare " : "") + (i % 7 == 0 ? "mid" : "other");
+			builder.add(i, title, "artist" + (i % 13), i % 100);
+		}
+		SongSearchIndex index = builder.build();
+
+		// rare prefix: gathers and sorts postings
+		int[] rare = search(index, "rare com", 20);
+		assertEquals(10, rare.length);
+		// common prefix: walks songs in popularity order
+		int[] common = search(index, "com mid", 20);
+		assertEquals(20, common.length);
+		assertEquals(99, common[0] % 100);
+		for (int songId : common) {
+			assertEquals(0, songId % 7);
+		}
+	}
+
+	@Test
+	void skipsExcludedSongs() {
+		SongSearchIndex index = new SongSearchIndex.Builder()
+				.add(1, "Hello", "Adele", 10)
+				.add(2, "Hello", "Lionel Richie", 5)
+				.build();
+		TopK top = new TopK(10);
+		index.search(SongSearchIndex.tokenize("hello"), 10, songId -> songId == 1, top);
+		assertEquals(1, top.size());
+		assertEquals(2, top.idAt(0));
+		assertTrue(SongSearchIndex.matches(SongSearchIndex.tokenize("Hello Adele"), SongSearchIndex.tokenize("ad he")));
+	}
+
+	private static int[] search(SongSearchIndex index, String query, int limit) {
+		TopK top = new TopK(limit);
+		index.search(SongSearchIndex.tokenize(query), limit, null, top);
+		top.sortDescending();
+		int[] ids = new int[top.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = top.idAt(i);
+		}
+		return ids;
+	}
+}
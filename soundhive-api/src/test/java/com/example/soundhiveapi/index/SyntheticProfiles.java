@@ -0,0 +1,41 @@
+package com.example.soundhiveapi.index;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Clustered user tag profiles, shared by UserSimilarityIndexTests and UserSimilarityBenchmark.
+public class SyntheticProfiles {
+
+	private SyntheticProfiles() {
+	}
+
+	// Each user follows one of `clusters` taste profiles with jittered weights plus a few random tags.
+	public static UserProfile[] clustered(int users, int tags, int clusters, Random random) {
+		int[][] centers = new int[clusters][];
+		for (int c = 0; c < clusters; c++) {
+			centers[c] = random.ints(0, tags).distinct().limit(12).sorted().toArray();
+		}
+		UserProfile[] profiles = new UserProfile[users];
+		for (int u = 0; u < users; u++) {
+			int[] center = centers[random.nextInt(clusters)];
+			double[] dense = new double[tags];
+			for (int col : center) {
+				dense[col] = 0.5 + random.nextDouble();
+			}
+			for (int i = 0; i < 3; i++) {
+				dense[random.nextInt(tags)] += random.nextDouble() * 0.5;
+			}
+			int n = 0;
+			int[] cols = new int[tags];
+			double[] weights = new double[tags];
+			for (int col = 0; col < tags; col++) {
+				if (dense[col] > 0) {
+					cols[n] = col;
+					weights[n++] = dense[col];
+				}
+			}
+			profiles[u] = new UserProfile("user" + u, 1, Arrays.copyOf(cols, n), Arrays.copyOf(weights, n));
+		}
+		return profiles;
+	}
+}
@@ -0,0 +1,89 @@
+package com.example.soundhiveapi.index;
+
+import com.example.soundhiveapi.model.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagCooccurrenceIndexTests {
+
+	private final TagIndex tags = new TagIndex(List.of(new Tag(1, "pop"), new Tag(2, "rock"), new Tag(3, "jazz"),
+			new Tag(4, "blues")));
+
+	@Test
+	void buildsInParallelWhatIncrementalUpdatesProduce() {
+		SongTagIndex.Builder songs = new SongTagIndex.Builder(tags);
+		TagCooccurrenceIndex expected = new TagCooccurrenceIndex(tags);
+		UserProfile[] profiles = new UserProfile[10_000];
+		for (int i = 0; i < 10_000; i++) {
+			int a = i % 4;
+			int b = (i / 4) % 4;
+			songs.add(i, tags.tagIdAt(a)).add(i, tags.tagIdAt(b));
+			expected.addSong(new int[] {a, b}, 1);
+			int lo = Math.min(a, b);
+			int hi = Math.max(a, b);
+			profiles[i] = lo == hi
+					? new UserProfile("u" + i, 1, new int[] {lo}, new double[] {0.5})
+					: new UserProfile("u" + i, 1, new int[] {lo, hi}, new double[] {1.0, i % 3});
+			expected.addProfile(profiles[i], 1);
+		}
+		TagCooccurrenceIndex.ProfileRows rows = new TagCooccurrenceIndex.ProfileRows() {
+			@Override
+			public int size() {
+				return profiles.length;
+			}
+
+			@Override
+			public UserProfile profileAt(int row) {
+				return profiles[row];
+			}
+		};
+
+		TagCooccurrenceIndex built = TagCooccurrenceIndex.build(tags, songs.build(), rows, new ForkJoinPool(4));
+
+		for (int a = 0; a < 4; a++) {
+			for (int b = 0; b < 4; b++) {
+				assertEquals(expected.songCount(a, b), built.songCount(a, b));
+				assertEquals(expected.weightDot(a, b), built.weightDot(a, b), 1e-6);
+			}
+		}
+		// a song with tags a == b counts once
+		assertEquals(625 * 7, built.songCount(0, 0));
+	}
+
+	@Test
+	void ranksByCosineAndFollowsChanges() {
+		TagCooccurrenceIndex index = new TagCooccurrenceIndex(tags);
+		index.addSong(new int[] {0, 1}, 1);
+		index.addSong(new int[] {0, 1}, 1);
+		index.addSong(new int[] {0, 2}, 1);
+		index.addSong(new int[] {3, 3, -1}, 1);
+
+		TopK top = new TopK(3);
+		index.related(0, 1.0, 1.0, top);
+		assertEquals(2, top.size());
+		assertEquals(1, top.idAt(0));
+		// 2 shared songs / sqrt(3 * 2)
+		assertEquals(2 / Math.sqrt(6), top.scoreAt(0), 1e-9);
+		assertEquals(2, top.idAt(1));
+		assertEquals(1, index.songCount(3, 3));
+
+		// retagging a song and a user who likes pop and jazz move jazz ahead
+		index.addSong(new int[] {0, 1}, -1);
+		index.addSong(new int[] {0, 2}, 1);
+		UserProfile before = UserProfile.empty("u");
+		UserProfile after = new UserProfile("u", 2, new int[] {0, 2}, new double[] {1.0, 1.0});
+		index.addProfile(before, -1);
+		index.addProfile(after, 1);
+		top.reset();
+		index.related(0, 1.0, 1.0, top);
+		assertEquals(2, top.idAt(0));
+		assertEquals(2 / Math.sqrt(6) + 1.0, top.scoreAt(0), 1e-9);
+
+		index.addProfile(after, -1);
+		assertEquals(0.0, index.weightDot(0, 2), 1e-12);
+	}
+}
@@ -0,0 +1,47 @@
+package com.example.soundhiveapi.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTests {
+
+	@Test
+	void keepsTheHighestScoresInDescendingOrder() {
+		double[] scores = new Random(7).doubles(10_000).toArray();
+		TopK top = new TopK(10);
+		for (int i = 0; i < scores.length; i++) {
+			top.offer(i, scores[i]);
+		}
+		top.sortDescending();
+
+		int[] expected = IntStream.range(0, scores.length).boxed()
+				.sorted((a, b) -> Double.compare(scores[b], scores[a]))
+				.limit(10).mapToInt(Integer::intValue).toArray();
+		assertEquals(10, top.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(expected[i], top.idAt(i));
+			assertEquals(scores[expected[i]], top.scoreAt(i));
+		}
+	}
+
+	@Test
+	void breaksTiesByLowerIdAndHandlesFewerThanK() {
+		TopK top = new TopK(3);
+		top.offer(5, 1.0);
+		top.offer(2, 1.0);
+		top.offer(9, 1.0);
+		top.offer(1, 1.0);
+		top.sortDescending();
+		assertArrayEquals(new int[] {1, 2, 5}, new int[] {top.idAt(0), top.idAt(1), top.idAt(2)});
+
+		top.reset();
+		top.offer(4, 0.5);
+		top.sortDescending();
+		assertEquals(1, top.size());
+		assertEquals(Double.NEGATIVE_INFINITY, top.threshold());
+	}
+}
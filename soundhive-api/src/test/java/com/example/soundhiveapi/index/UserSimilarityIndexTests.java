@@ -0,0 +1,89 @@
+package com.example.soundhiveapi.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSimilarityIndexTests {
+
+	private static final int TAGS = 200;
+
+	@Test
+	void findsNearestUsersAndSkipsTheQueryUser() {
+		UserSimilarityIndex index = new UserSimilarityIndex(3, 4, 8, 1);
+		index.put(new UserProfile("a", 1, new int[] {0, 1}, new double[] {1.0, 1.0}));
+		index.put(new UserProfile("b", 1, new int[] {0, 1}, new double[] {1.0, 0.9}));
+		index.put(new UserProfile("c", 1, new int[] {2}, new double[] {1.0}));
+
+		TopK top = new TopK(1);
+		index.query(new UserProfile("a", 1, new int[] {0, 1}, new double[] {1.0, 1.0}), true, top);
+
+		assertEquals(1, top.size());
+		assertEquals("b", index.idAt(top.idAt(0)));
+	}
+
+	@Test
+	void rehashesUpdatedUsersAndIgnoresStaleUpdates() {
+		UserSimilarityIndex index = new UserSimilarityIndex(3, 4, 8, 1);
+		index.put(new UserProfile("a", 1, new int[] {0}, new double[] {1.0}));
+		index.put(new UserProfile("b", 5, new int[] {0}, new double[] {1.0}));
+		index.put(new UserProfile("b", 6, new int[] {2}, new double[] {1.0}));
+		index.put(new UserProfile("b", 4, new int[] {0}, new double[] {1.0}));
+
+		TopK top = new TopK(2);
+		index.exactQuery(new UserProfile("q", 1, new int[] {2}, new double[] {1.0}), top);
+		assertEquals("b", index.idAt(top.idAt(0)));
+		assertEquals(1.0, top.scoreAt(0), 1e-9);
+
+		top.reset();
+		index.query(new UserProfile("q", 1, new int[] {0}, new double[] {1.0}), true, top);
+		assertEquals(1, top.size());
+		assertEquals("a", index.idAt(top.idAt(0)));
+	}
+
+	// Recall@10 of the default configuration against exact cosine search on clustered synthetic
+	// users. The sweep over configurations, with query times, is UserSimilarityBenchmark (src/jmh).
+	@Test
+	void defaultConfigurationHasHighRecall() {
+		int users = 2_000;
+		int queries = 50;
+		int k = 10;
+		UserProfile[] profiles = SyntheticProfiles.clustered(users, TAGS, 50, new Random(7));
+		UserSimilarityIndex index = new UserSimilarityIndex(TAGS, 8, 12, 42);
+		for (UserProfile p : profiles) {
+			index.put(p);
+		}
+
+		int hits = 0;
+		TopK exact = new TopK(k);
+		TopK approx = new TopK(k);
+		for (int q = 0; q < queries; q++) {
+			UserProfile query = profiles[q * (users / queries)];
+			exact.reset();
+			approx.reset();
+			index.exactQuery(query, exact);
+			index.query(query, true, approx);
+			hits += overlap(exact, approx);
+		}
+		double recall = hits / (double) (queries * k);
+		assertTrue(recall >= 0.8, "recall@10 of the default configuration was " + recall);
+	}
+
+	private static int overlap(TopK exact, TopK approx) {
+		int[] expected = new int[exact.size()];
+		for (int i = 0; i < exact.size(); i++) {
+			expected[i] = exact.idAt(i);
+		}
+		Arrays.sort(expected);
+		int hits = 0;
+		for (int i = 0; i < approx.size(); i++) {
+			if (Arrays.binarySearch(expected, approx.idAt(i)) >= 0) {
+				hits++;
+			}
+		}
+		return hits;
+	}
+}
@@ -0,0 +1,69 @@
+package com.example.soundhiveapi.index;
+
+import com.example.soundhiveapi.model.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserTagMatrixTests {
+
+	private final TagIndex tags = new TagIndex(List.of(
+			new Tag(30, "rock"), new Tag(10, "pop"), new Tag(20, "jazz")));
+
+	@Test
+	void tagColumnsFollowTagIdOrder() {
+		assertEquals(0, tags.columnOf(10));
+		assertEquals(1, tags.columnOf(20));
+		assertEquals(2, tags.columnOf(30));
+		assertEquals(-1, tags.columnOf(15));
+		assertEquals("rock", tags.tagNameAt(2));
+	}
+
+	@Test
+	void buildsFromUnorderedRows() {
+		UserTagMatrix matrix = new UserTagMatrix.Builder(tags)
+				.add("u2", 30, 3.0)
+				.add("u1", 20, 1.5)
+				.add("u2", 10, 2.0)
+				.add("u1", 99, 7.0) // unknown tag, ignored
+				.add("u3", 20, 0.5)
+				.build();
+
+		assertEquals(3, matrix.numUsers());
+		assertEquals(4, matrix.nnz());
+		assertArrayEquals(new double[] {2.0, 0.0, 3.0}, matrix.denseRow(matrix.rowOf("u2")));
+		assertArrayEquals(new double[] {0.0, 1.5, 0.0}, matrix.denseRow(matrix.rowOf("u1")));
+		assertEquals(0.5, matrix.get(matrix.rowOf("u3"), 1));
+		assertEquals(0.0, matrix.get(matrix.rowOf("u3"), 0));
+		assertEquals(-1, matrix.rowOf("nobody"));
+	}
+
+	@Test
+	void buildsFromRowsOrderedByUserAndTag() {
+		UserTagMatrix matrix = new UserTagMatrix.Builder(tags, 4)
+				.add("a", 10, 1.0)
+				.add("a", 30, 2.0)
+				.add("b", 20, 3.0)
+				.build();
+
+		int a = matrix.rowOf("a");
+		assertEquals(2, matrix.rowEnd(a) - matrix.rowStart(a));
+		assertEquals(2, matrix.colAt(matrix.rowStart(a) + 1));
+		assertEquals("b", matrix.userIdAt(matrix.rowOf("b")));
+		assertEquals(3.0, matrix.get(matrix.rowOf("b"), 1));
+	}
+
+	@Test
+	void internsManyIds() {
+		IdDictionary ids = new IdDictionary();
+		for (int i = 0; i < 100_000; i++) {
+			assertEquals(i, ids.intern("user-" + i));
+		}
+		assertEquals(4242, ids.intern("user-4242"));
+		assertEquals(99_999, ids.indexOf("user-99999"));
+		assertEquals(-1, ids.indexOf("user-100000"));
+		assertEquals(100_000, ids.size());
+	}
+}
@@ -0,0 +1,76 @@
+package com.example.soundhiveapi.metrics;
+
+import com.example.soundhiveapi.repository.BulkReadRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcMetricsTests {
+
+	private static SingleConnectionDataSource raw;
+	private static JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void createTable() {
+		raw = new SingleConnectionDataSource("jdbc:h2:mem:metrics;MODE=MySQL", true);
+		DataSource dataSource = JdbcMetrics.wrap(raw);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE user_tagweights (id_number VARCHAR(20) NOT NULL,"
+				+ " tag_id INT NOT NULL, weight DOUBLE NOT NULL, PRIMARY KEY (id_number, tag_id))");
+		jdbcTemplate.batchUpdate("INSERT INTO user_tagweights VALUES (?, ?, ?)", List.of(
+				new Object[] {"u1", 1, 0.5}, new Object[] {"u1", 2, 0.5}, new Object[] {"u2", 1, 0.5}));
+	}
+
+	@AfterAll
+	static void dropTable() {
+		raw.destroy();
+	}
+
+	@Test
+	void countsStatementsAndRowsOnTheCallingThread() throws Exception {
+		long statements = SqlActivity.statements();
+		long rows = SqlActivity.rows();
+
+		List<String> ids = jdbcTemplate.queryForList("SELECT id_number FROM user_tagweights", String.class);
+		jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_tagweights", Long.class);
+
+		assertEquals(3, ids.size());
+		assertEquals(2, SqlActivity.statements() - statements);
+		assertEquals(4, SqlActivity.rows() - rows);
+		assertTrue(jdbcTemplate.getDataSource().isWrapperFor(SingleConnectionDataSource.class));
+	}
+
+	@Test
+	void recordsRepositoryCalls() {
+		BulkReadRepository target = new BulkReadRepository();
+		ReflectionTestUtils.setField(target, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(target, "pageSize", 2);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RepositoryMetrics aspect = new RepositoryMetrics();
+		ReflectionTestUtils.setField(aspect, "meterRegistry", registry);
+		AspectJProxyFactory factory = new AspectJProxyFactory(target);
+		factory.addAspect(aspect);
+		BulkReadRepository repository = factory.getProxy();
+
+		assertEquals(3, repository.forEachUserTagWeight((id, tagId, weight) -> { }));
+
+		assertEquals(1, registry.get("soundhive.repository.invocations")
+				.tags("repository", "BulkReadRepository", "method", "forEachUserTagWeight").timer().count());
+		DistributionSummary statements = registry.get("soundhive.repository.statements").summary();
+		DistributionSummary rows = registry.get("soundhive.repository.rows").summary();
+		// pages of 2: [u1/1, u1/2], then the short page [u2/1] that ends the scan
+		assertEquals(2, statements.totalAmount());
+		assertEquals(3, rows.totalAmount());
+	}
+}
@@ -0,0 +1,139 @@
+package com.example.soundhiveapi.repository;
+
+import com.example.soundhiveapi.index.TagIndex;
+import com.example.soundhiveapi.index.UserTagMatrix;
+import com.example.soundhiveapi.model.Tag;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkReadRepositoryTests {
+
+	private static final int USERS = 5_000;
+	private static final int TAGS = 100;
+	private static final int PAGE_SIZE = 1_000;
+
+	// The finished matrix for 500k weights needs ~6 MB (int column + double value per row, plus
+	// the user dictionary); loading the same rows as entities needs several times that.
+	private static final long HEAP_BUDGET_BYTES = 16L * 1024 * 1024;
+
+	private static SingleConnectionDataSource dataSource;
+	private static JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void createTables() {
+		dataSource = new SingleConnectionDataSource("jdbc:h2:mem:bulk;MODE=MySQL", true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE user_tagweights (id_number VARCHAR(20) NOT NULL,"
+				+ " tag_id INT NOT NULL, weight DOUBLE NOT NULL, PRIMARY KEY (id_number, tag_id))");
+		jdbcTemplate.execute("CREATE TABLE user_playevents (user_id VARCHAR(20) NOT NULL,"
+				+ " song_id INT NOT NULL, play_time TIMESTAMP, song_title VARCHAR(100),"
+				+ " PRIMARY KEY (user_id, song_id))");
+		List<Object[]> batch = new ArrayList<>();
+		for (int u = 0; u < USERS; u++) {
+			for (int t = 1; t <= TAGS; t++) {
+				batch.add(new Object[] {String.format("%09d", u), t, (u * 31 + t) % 97 / 97.0});
+			}
+			if (batch.size() >= 10_000) {
+				jdbcTemplate.batchUpdate("INSERT INTO user_tagweights VALUES (?, ?, ?)", batch);
+				batch.clear();
+			}
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO user_tagweights VALUES (?, ?, ?)", batch);
+	}
+
+	@AfterAll
+	static void dropTables() {
+		dataSource.destroy();
+	}
+
+	private BulkReadRepository repository() {
+		BulkReadRepository repository = new BulkReadRepository();
+		ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(repository, "pageSize", PAGE_SIZE);
+		return repository;
+	}
+
+	@Test
+	void matrixBuildStaysWithinHeapBudget() {
+		BulkReadRepository repository = repository();
+		List<Tag> tags = new ArrayList<>();
+		for (int t = 1; t <= TAGS; t++) {
+			tags.add(new Tag(t, "tag" + t));
+		}
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		System.gc();
+		long baseline = memory.getHeapMemoryUsage().getUsed();
+		long[] peak = {0};
+		AtomicInteger seen = new AtomicInteger();
+
+		UserTagMatrix.Builder builder = new UserTagMatrix.Builder(new TagIndex(tags),
+				(int) repository.countUserTagWeights());
+		long rows = repository.forEachUserTagWeight((id, tagId, weight) -> {
+			builder.add(id, tagId, weight);
+			if (seen.incrementAndGet() % 50_000 == 0) {
+				System.gc();
+				peak[0] = Math.max(peak[0], memory.getHeapMemoryUsage().getUsed() - baseline);
+			}
+		});
+		UserTagMatrix matrix = builder.build();
+		System.gc();
+		peak[0] = Math.max(peak[0], memory.getHeapMemoryUsage().getUsed() - baseline);
+
+		assertEquals((long) USERS * TAGS, rows);
+		assertEquals(USERS, matrix.numUsers());
+		assertEquals(USERS * TAGS, matrix.nnz());
+		assertEquals((7 * 31 + 5) % 97 / 97.0, matrix.get(matrix.rowOf("000000007"), 4));
+		assertTrue(peak[0] < HEAP_BUDGET_BYTES, "peak retained heap " + peak[0] + " bytes");
+	}
+
+	@Test
+	void pagesResumeAfterTheLastKey() {
+		jdbcTemplate.update("DELETE FROM user_playevents");
+		for (int u = 0; u < 3; u++) {
+			for (int s = 0; s < 1_500; s++) {
+				jdbcTemplate.update("INSERT INTO user_playevents VALUES (?, ?, CURRENT_TIMESTAMP, NULL)", "p" + u, s);
+			}
+		}
+		List<String> keys = new ArrayList<>();
+		long rows = repository().forEachPlayEvent((userId, songId, playTime) -> {
+			keys.add(userId + ":" + songId);
+			assertTrue(playTime > 0);
+		});
+
+		assertEquals(4_500, rows);
+		assertEquals(4_500, keys.stream().distinct().count());
+		assertEquals("p0:0", keys.get(0));
+		assertEquals("p2:1499", keys.get(keys.size() - 1));
+	}
+
+	@Test
+	void songsArePagedBySongId() {
+		jdbcTemplate.execute("CREATE TABLE SONGS (song_id INT PRIMARY KEY, title VARCHAR(100), artist VARCHAR(100))");
+		for (int s = 2_500; s > 0; s--) {
+			jdbcTemplate.update("INSERT INTO SONGS VALUES (?, ?, ?)", s, "title" + s, "artist" + s);
+		}
+		List<Integer> ids = new ArrayList<>();
+		long rows = repository().forEachSong((songId, title, artist) -> {
+			ids.add(songId);
+			assertEquals("title" + songId, title);
+			assertEquals("artist" + songId, artist);
+		});
+
+		assertEquals(2_500, rows);
+		assertEquals(2_500, ids.stream().distinct().count());
+		assertEquals(1, ids.get(0));
+		assertEquals(2_500, ids.get(ids.size() - 1));
+	}
+}
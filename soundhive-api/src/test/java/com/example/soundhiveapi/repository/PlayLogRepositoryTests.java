@@ -0,0 +1,107 @@
+package com.example.soundhiveapi.repository;
+
+import com.example.soundhiveapi.repository.PlayLogRepository.SongDayPlays;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayLogRepositoryTests {
+
+	private static final long DAY = 86_400_000L;
+	private static final long MONDAY = LocalDate.of(2025, 3, 3).toEpochDay() * DAY;
+
+	private static SingleConnectionDataSource dataSource;
+	private static JdbcTemplate jdbcTemplate;
+	private static PlayEventBatchRepository writer;
+	private static PlayLogRepository playLog;
+
+	@BeforeAll
+	static void createTables() {
+		dataSource = new SingleConnectionDataSource("jdbc:h2:mem:playlog;MODE=MySQL", true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		// as in db/schema-additions.sql, without the partitioning clause
+		jdbcTemplate.execute("CREATE TABLE play_log (play_id BIGINT NOT NULL AUTO_INCREMENT, log_day INT NOT NULL,"
+				+ " user_id VARCHAR(20) NOT NULL, song_id INT NOT NULL, play_time DATETIME(3) NOT NULL,"
+				+ " play_day INT NOT NULL, logged_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),"
+				+ " PRIMARY KEY (play_id, log_day))");
+		jdbcTemplate.execute("CREATE TABLE user_song_plays (user_id VARCHAR(20) NOT NULL, song_id INT NOT NULL,"
+				+ " play_count BIGINT NOT NULL, last_played DATETIME(3) NOT NULL, PRIMARY KEY (user_id, song_id))");
+		jdbcTemplate.execute("CREATE TABLE song_daily_plays (song_id INT NOT NULL, play_day INT NOT NULL,"
+				+ " play_count BIGINT NOT NULL, PRIMARY KEY (song_id, play_day))");
+		jdbcTemplate.execute("CREATE TABLE play_log_compaction (id TINYINT NOT NULL PRIMARY KEY,"
+				+ " last_play_id BIGINT NOT NULL, last_log_day INT NOT NULL, compacted_at TIMESTAMP(3) NULL)");
+		jdbcTemplate.update("INSERT INTO play_log_compaction (id, last_play_id, last_log_day) VALUES (1, 0, 0)");
+		jdbcTemplate.execute("CREATE TABLE user_playevents (user_id VARCHAR(20) NOT NULL, song_id INT NOT NULL,"
+				+ " play_time TIMESTAMP, song_title VARCHAR(255), PRIMARY KEY (user_id, song_id))");
+		jdbcTemplate.execute("CREATE TABLE SONGS (song_id INT PRIMARY KEY, title VARCHAR(255), artist VARCHAR(255))");
+		jdbcTemplate.update("INSERT INTO SONGS VALUES (7, 'Seven', 'A'), (8, 'Eight', 'B')");
+
+		writer = new PlayEventBatchRepository();
+		ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(writer, "namedParameterJdbcTemplate", new NamedParameterJdbcTemplate(jdbcTemplate));
+		playLog = new PlayLogRepository();
+		ReflectionTestUtils.setField(playLog, "jdbcTemplate", jdbcTemplate);
+	}
+
+	@AfterAll
+	static void close() {
+		dataSource.destroy();
+	}
+
+	@Test
+	void replaysAreCountedAndCompactedExactlyOnce() {
+		writer.write(new String[] {"u1", "u1", "u2"}, new int[] {7, 7, 7},
+				new long[] {MONDAY + 1_000, MONDAY + DAY + 5_000, MONDAY + 2_000}, 3);
+		// user_playevents keeps one row per (user, song) with the latest play
+		assertEquals(2, count("SELECT COUNT(*) FROM user_playevents"));
+		assertEquals(3, count("SELECT COUNT(*) FROM play_log"));
+
+		assertEquals(2, playLog.compactNext(2, 0));
+		assertEquals(1, playLog.compactNext(2, 0));
+		assertEquals(0, playLog.compactNext(2, 0));
+		assertEquals(2, count("SELECT play_count FROM user_song_plays WHERE user_id = 'u1' AND song_id = 7"));
+
+		writer.write(new String[] {"u1", "u3"}, new int[] {7, 8}, new long[] {MONDAY + DAY + 9_000, MONDAY + 3_000}, 2);
+		assertEquals(2, playLog.compactNext(100, 0));
+		assertEquals(3, count("SELECT play_count FROM user_song_plays WHERE user_id = 'u1' AND song_id = 7"));
+		assertEquals(MONDAY + DAY + 9_000,
+				jdbcTemplate.queryForObject("SELECT last_played FROM user_song_plays WHERE user_id = 'u1' AND song_id = 7",
+						Timestamp.class).getTime());
+
+		int monday = PlayLogRepository.epochDay(MONDAY);
+		assertEquals(List.of(new SongDayPlays(LocalDate.of(2025, 3, 3), 2), new SongDayPlays(LocalDate.of(2025, 3, 4), 2)),
+				playLog.findSongDailyPlays(7, monday));
+		assertEquals(List.of(new SongDayPlays(LocalDate.of(2025, 3, 4), 2)), playLog.findSongDailyPlays(7, monday + 1));
+		assertEquals(PlayLogRepository.epochDay(System.currentTimeMillis()), playLog.compactedLogDay());
+	}
+
+	@Test
+	void rowsInsideTheLagAreLeftForLater() {
+		long before = count("SELECT last_play_id FROM play_log_compaction");
+		writer.write(new String[] {"u9"}, new int[] {8}, new long[] {MONDAY}, 1);
+		assertEquals(0, playLog.compactNext(100, 60_000));
+		// rows are logged on the day they are written, not the day they were played
+		assertEquals(PlayLogRepository.epochDay(System.currentTimeMillis()), playLog.findOldestLogDay());
+		assertEquals(before, count("SELECT last_play_id FROM play_log_compaction"));
+	}
+
+	@Test
+	void partitionNamesAreDays() {
+		assertEquals("p20250303", PlayLogRepository.partitionName(PlayLogRepository.epochDay(MONDAY)));
+		assertThrows(IllegalArgumentException.class, () -> playLog.dropPartition("p_future"));
+	}
+
+	private static long count(String sql) {
+		return jdbcTemplate.queryForObject(sql, Long.class);
+	}
+}
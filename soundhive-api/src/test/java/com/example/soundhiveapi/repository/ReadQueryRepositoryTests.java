@@ -0,0 +1,93 @@
+package com.example.soundhiveapi.repository;
+
+import com.example.soundhiveapi.model.Song;
+import com.example.soundhiveapi.repository.ReadQueryRepository.TagWeightRow;
+import com.example.soundhiveapi.repository.ReadQueryRepository.UserSummary;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadQueryRepositoryTests {
+
+	private static SingleConnectionDataSource dataSource;
+	private static ReadQueryRepository repository;
+
+	@BeforeAll
+	static void createTables() {
+		dataSource = new SingleConnectionDataSource("jdbc:h2:mem:readquery;MODE=MySQL", true);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE user_tagweights (id_number VARCHAR(20) NOT NULL,"
+				+ " tag_id INT NOT NULL, weight DOUBLE NOT NULL, PRIMARY KEY (id_number, tag_id))");
+		jdbcTemplate.execute("CREATE TABLE user_playevents (user_id VARCHAR(20) NOT NULL, song_id INT NOT NULL,"
+				+ " play_time TIMESTAMP NOT NULL, song_title VARCHAR(255), PRIMARY KEY (user_id, song_id))");
+		jdbcTemplate.execute("CREATE TABLE SONGS (song_id INT PRIMARY KEY, title VARCHAR(255), artist VARCHAR(255))");
+		jdbcTemplate.execute("CREATE TABLE USERS (id_number VARCHAR(20) PRIMARY KEY, username VARCHAR(255),"
+				+ " email VARCHAR(255), password VARCHAR(255))");
+		jdbcTemplate.batchUpdate("INSERT INTO user_tagweights VALUES (?, ?, ?)", List.of(
+				new Object[] {"u1", 3, 0.5}, new Object[] {"u1", 1, 0.25}, new Object[] {"u2", 2, 1.0}));
+		jdbcTemplate.batchUpdate("INSERT INTO user_playevents VALUES (?, ?, ?, NULL)", List.of(
+				new Object[] {"u1", 10, "2025-01-01 10:00:00"}, new Object[] {"u1", 30, "2025-01-01 12:00:00"},
+				new Object[] {"u1", 20, "2025-01-01 11:00:00"}));
+		List<Object[]> songs = new ArrayList<>();
+		for (int songId = 1; songId <= ReadQueryRepository.BATCH_SIZE + 5; songId++) {
+			songs.add(new Object[] {songId, "title " + songId, "artist " + songId});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO SONGS VALUES (?, ?, ?)", songs);
+		jdbcTemplate.update("INSERT INTO USERS VALUES ('u1', 'dana', 'd@x.com', 'secret')");
+		repository = new ReadQueryRepository();
+		ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(repository, "namedParameterJdbcTemplate", new NamedParameterJdbcTemplate(jdbcTemplate));
+	}
+
+	@AfterAll
+	static void close() {
+		dataSource.destroy();
+	}
+
+	@Test
+	void readsTagWeightRows() {
+		assertEquals(List.of(new TagWeightRow("u1", 1, 0.25), new TagWeightRow("u1", 3, 0.5)),
+				repository.findTagWeights("u1"));
+		assertEquals(3, repository.findTagWeights(List.of("u1", "u2", "nobody")).size());
+		assertEquals(List.of("u1", "u2"), repository.findDistinctTagWeightUserIds().stream().sorted().toList());
+	}
+
+	@Test
+	void readsPlayedSongIds() {
+		assertArrayEquals(new int[] {30, 20}, repository.findRecentSongIds("u1", 2));
+		assertArrayEquals(new int[] {10, 20, 30}, repository.findPlayedSongIds("u1"));
+		assertArrayEquals(new int[0], repository.findPlayedSongIds("nobody"));
+	}
+
+	@Test
+	void readsSongsAcrossBatches() {
+		List<Integer> ids = new ArrayList<>();
+		for (int songId = 1; songId <= ReadQueryRepository.BATCH_SIZE + 5; songId++) {
+			ids.add(songId);
+		}
+		ids.add(99_999);
+		Map<Integer, Song> songs = repository.findSongs(ids);
+
+		assertEquals(ReadQueryRepository.BATCH_SIZE + 5, songs.size());
+		assertEquals("title 1003", songs.get(1003).getTitle());
+		assertEquals("artist 7", songs.get(7).getArtist());
+		assertNull(songs.get(99_999));
+	}
+
+	@Test
+	void readsUserSummaries() {
+		assertEquals(new UserSummary("u1", "dana", "d@x.com"), repository.findUserSummary("u1"));
+		assertNull(repository.findUserSummary("nobody"));
+		assertEquals(Map.of("u1", "dana"), repository.findUsernames(List.of("u1", "nobody")));
+	}
+}
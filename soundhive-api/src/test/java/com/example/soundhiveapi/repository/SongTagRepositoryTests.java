@@ -0,0 +1,62 @@
+package com.example.soundhiveapi.repository;
+
+import com.example.soundhiveapi.index.PackedSongTags;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SongTagRepositoryTests {
+
+	private static SingleConnectionDataSource dataSource;
+	private static SongTagRepository repository;
+
+	@BeforeAll
+	static void createTable() {
+		dataSource = new SingleConnectionDataSource("jdbc:h2:mem:songtags;MODE=MySQL", true);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE song_tags (song_id INT NOT NULL, tag_position TINYINT NOT NULL,"
+				+ " tag_id INT NOT NULL, PRIMARY KEY (song_id, tag_position))");
+		repository = new SongTagRepository();
+		ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(repository, "namedParameterJdbcTemplate", new NamedParameterJdbcTemplate(jdbcTemplate));
+	}
+
+	@AfterAll
+	static void close() {
+		dataSource.destroy();
+	}
+
+	@Test
+	void loadsTagsAcrossSeveralBatches() {
+		int songs = SongTagRepository.BATCH_SIZE * 2 + 17;
+		for (int songId = 1; songId <= songs; songId++) {
+			repository.saveTagIds(songId, new int[] {songId % 7 + 1, 10, 11, 12, 13});
+		}
+		// song 3 only has 4 tags
+		new JdbcTemplate(dataSource).update("DELETE FROM song_tags WHERE song_id = 3 AND tag_position = 4");
+
+		List<Integer> ids = new ArrayList<>();
+		for (int songId = songs; songId >= 1; songId--) {
+			ids.add(songId);
+		}
+		ids.add(99_999);
+		PackedSongTags packed = repository.findTagIds(ids);
+
+		assertEquals(songs + 1, packed.size());
+		assertTrue(packed.isComplete(songs));
+		assertEquals(songs % 7 + 1, packed.tagIdAt(songs, 0));
+		assertEquals(13, packed.tagIdAt(1500, 4));
+		assertFalse(packed.isComplete(3));
+		assertFalse(packed.isComplete(99_999));
+		assertEquals(PackedSongTags.MISSING, packed.tagIdAt(99_999, 0));
+	}
+}
@@ -0,0 +1,57 @@
+package com.example.soundhiveapi.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagWeightUpdateRepositoryTests {
+
+	private static SingleConnectionDataSource dataSource;
+	private static JdbcTemplate jdbcTemplate;
+	private static TagWeightUpdateRepository repository;
+
+	@BeforeAll
+	static void createTables() {
+		dataSource = new SingleConnectionDataSource("jdbc:h2:mem:tagweights;MODE=MySQL", true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		// a session time zone far from UTC: timestamps written by the database must still agree
+		jdbcTemplate.execute("SET TIME ZONE 'America/Los_Angeles'");
+		jdbcTemplate.execute("CREATE TABLE user_tagweights (id_number VARCHAR(20) NOT NULL, tag_id INT NOT NULL,"
+				+ " weight DOUBLE NOT NULL, updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),"
+				+ " PRIMARY KEY (id_number, tag_id))");
+		repository = new TagWeightUpdateRepository();
+		ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+	}
+
+	@AfterAll
+	static void close() {
+		dataSource.destroy();
+	}
+
+	@Test
+	void decaysByDatabaseTimeSinceTheLastWrite() {
+		jdbcTemplate.update("INSERT INTO user_tagweights VALUES ('u1', 1, 8.0, DATEADD(DAY, -30, CURRENT_TIMESTAMP(3))),"
+				+ " ('u1', 2, 4.0, CURRENT_TIMESTAMP(3))");
+		double decayPerSecond = Math.log(2) / (30 * 24 * 60 * 60);
+
+		repository.decayAndAdd(List.of("u1"), new String[] {"u1", "u1"}, new int[] {2, 3}, new double[] {1.0, 1.0},
+				2, decayPerSecond);
+
+		List<Double> weights = jdbcTemplate.queryForList(
+				"SELECT weight FROM user_tagweights WHERE id_number = 'u1' ORDER BY tag_id", Double.class);
+		assertEquals(4.0, weights.get(0), 1e-3);
+		assertEquals(5.0, weights.get(1), 1e-3);
+		assertEquals(1.0, weights.get(2), 1e-9);
+		// every row now carries the database's own time
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_tagweights"
+				+ " WHERE updated_at > CURRENT_TIMESTAMP(3) OR updated_at < DATEADD(MINUTE, -1, CURRENT_TIMESTAMP(3))",
+				Integer.class));
+	}
+}
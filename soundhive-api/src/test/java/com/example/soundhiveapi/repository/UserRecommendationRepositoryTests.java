@@ -0,0 +1,61 @@
+package com.example.soundhiveapi.repository;
+
+import com.example.soundhiveapi.repository.UserRecommendationRepository.Partition;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserRecommendationRepositoryTests {
+
+	private static SingleConnectionDataSource dataSource;
+	private static UserRecommendationRepository repository;
+
+	@BeforeAll
+	static void createTables() {
+		dataSource = new SingleConnectionDataSource("jdbc:h2:mem:recommendations;MODE=MySQL", true);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE user_recommendations (user_id VARCHAR(20) NOT NULL,"
+				+ " rank_pos SMALLINT NOT NULL, song_id INT NOT NULL, score DOUBLE NOT NULL,"
+				+ " PRIMARY KEY (user_id, rank_pos))");
+		jdbcTemplate.execute("CREATE TABLE user_recommendation_parts (part_no INT NOT NULL PRIMARY KEY,"
+				+ " layout VARCHAR(200) NOT NULL, users INT NOT NULL,"
+				+ " finished_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3))");
+		repository = new UserRecommendationRepository();
+		ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+	}
+
+	@AfterAll
+	static void close() {
+		dataSource.destroy();
+	}
+
+	@Test
+	void replacesRecommendationsAndTracksPartitionsPerLayout() {
+		repository.writePartition("a", new Partition(0, new String[] {"u1", "u2"}, 2, 3,
+				new int[] {3, 1}, new int[] {10, 11, 12, 20, 0, 0}, new double[] {3, 2, 1, 5, 0, 0}));
+		assertEquals(List.of(10, 11, 12), repository.findSongIds("u1"));
+		assertEquals(List.of(20), repository.findSongIds("u2"));
+		assertEquals(Set.of(0), repository.findCompletedPartitions("a"));
+
+		// a new layout forgets the old parts; rewriting a user drops its surplus ranks
+		assertEquals(Set.of(), repository.findCompletedPartitions("b"));
+		repository.writePartition("b", new Partition(0, new String[] {"u1"}, 1, 3,
+				new int[] {2}, new int[] {12, 10, 0}, new double[] {4, 3, 0}));
+		assertEquals(List.of(12, 10), repository.findSongIds("u1"));
+		assertEquals(Set.of(0), repository.findCompletedPartitions("b"));
+
+		// the same partition can be written again
+		repository.writePartition("b", new Partition(0, new String[] {"u1"}, 1, 3,
+				new int[] {1}, new int[] {11, 0, 0}, new double[] {2, 0, 0}));
+		assertEquals(List.of(11), repository.findSongIds("u1"));
+		assertEquals(Set.of(0), repository.findCompletedPartitions("b"));
+	}
+}
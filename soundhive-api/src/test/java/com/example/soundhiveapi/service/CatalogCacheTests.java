@@ -0,0 +1,110 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.model.Song;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogCacheTests {
+
+	private final CatalogCache cache = new CatalogCache(100, Duration.ofMinutes(1), 100, Duration.ofMinutes(1),
+			Duration.ofMinutes(1), Duration.ofSeconds(30));
+
+	@Test
+	void cachesHitsAndMisses() {
+		AtomicInteger loads = new AtomicInteger();
+		for (int i = 0; i < 5; i++) {
+			assertNotNull(cache.getSong(1, id -> { loads.incrementAndGet(); return new Song(); }));
+			assertNull(cache.getSong(2, id -> { loads.incrementAndGet(); return null; }));
+		}
+		assertEquals(2, loads.get());
+		assertEquals(8L, cache.stats().get("songs").get("hits"));
+
+		cache.invalidateSong(1);
+		cache.getSong(1, id -> { loads.incrementAndGet(); return new Song(); });
+		assertEquals(3, loads.get());
+	}
+
+	@Test
+	void loadsOnlyMissingSongsInOneCall() {
+		cache.getSong(1, id -> new Song());
+		AtomicInteger calls = new AtomicInteger();
+		Map<Integer, Song> found = cache.getSongs(List.of(1, 2, 3), missing -> {
+			calls.incrementAndGet();
+			assertEquals(2, missing.size());
+			Map<Integer, Song> loaded = new HashMap<>();
+			loaded.put(2, new Song());
+			return loaded;
+		});
+		assertEquals(1, calls.get());
+		assertEquals(2, found.size());
+		assertFalse(found.containsKey(3));
+
+		// the missing ID is now a cached miss
+		cache.getSongs(List.of(2, 3), missing -> fail("should not load " + missing));
+	}
+
+	@Test
+	void concurrentMissesShareOneQuery() throws Exception {
+		AtomicInteger songQueries = new AtomicInteger();
+		AtomicInteger tagQueries = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(32);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < 32; t++) {
+				int n = t;
+				results.add(executor.submit(() -> {
+					start.await();
+					if (n % 3 == 0) {
+						return cache.getSongs(List.of(5), ids -> {
+							songQueries.incrementAndGet();
+							sleep();
+							return Map.of(5, new Song());
+						});
+					}
+					if (n % 3 == 1) {
+						return cache.getSong(5, id -> {
+							songQueries.incrementAndGet();
+							sleep();
+							return new Song();
+						});
+					}
+					return cache.getTags(() -> {
+						tagQueries.incrementAndGet();
+						sleep();
+						return List.of();
+					});
+				}));
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				assertNotNull(result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, songQueries.get());
+		assertEquals(1, tagQueries.get());
+	}
+
+	private static void sleep() {
+		try {
+			Thread.sleep(200);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import com.example.soundhiveapi.repository.ReadQueryRepository.UserSummary;
+import com.example.soundhiveapi.service.HomeService.HomeScreen;
+import com.example.soundhiveapi.service.MyJdbcService.TagWeight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HomeServiceTests {
+
+	private final MyJdbcService myJdbcService = mock(MyJdbcService.class);
+	private final RecommendationCache recommendationCache = mock(RecommendationCache.class);
+	private final ReadQueryRepository readQueryRepository = mock(ReadQueryRepository.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private final HomeService homeService = new HomeService();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(homeService, "myJdbcService", myJdbcService);
+		ReflectionTestUtils.setField(homeService, "recommendationCache", recommendationCache);
+		ReflectionTestUtils.setField(homeService, "readQueryRepository", readQueryRepository);
+		ReflectionTestUtils.setField(homeService, "branchTimeoutMillis", 200L);
+		ReflectionTestUtils.setField(homeService, "topTags", 5);
+		ReflectionTestUtils.setField(homeService, "recommendations", 10);
+		ReflectionTestUtils.setField(homeService, "transactionManager", transactionManager);
+		homeService.init();
+		when(readQueryRepository.findUserSummary("u1")).thenReturn(new UserSummary("u1", "dana", "d@x.com"));
+		when(myJdbcService.getUserTopTags("u1", 5)).thenReturn(List.of(new TagWeight(1, "pop", 2.0)));
+	}
+
+	@AfterEach
+	void tearDown() {
+		homeService.shutdown();
+	}
+
+	@Test
+	void returnsWhatArrivedInTimeAndCancelsTheSlowBranch() throws Exception {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		when(recommendationCache.get("u1", 10)).thenAnswer(inv -> {
+			try {
+				Thread.sleep(10_000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return List.of();
+		});
+		when(myJdbcService.getUserPlayEvents("u1")).thenThrow(new IllegalStateException("down"));
+
+		long start = System.nanoTime();
+		HomeScreen home = homeService.getHome("u1");
+		long millis = (System.nanoTime() - start) / 1_000_000;
+
+		assertEquals("dana", home.getProfile().username());
+		assertEquals(1, home.getTopTags().size());
+		assertTrue(home.getRecentPlays().isEmpty());
+		assertEquals(List.of("recentPlays", "recommendations"), home.getMissing());
+		assertTrue(millis < 2_000, "took " + millis + " ms");
+		assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void everyBranchRunsInAReadOnlyTransactionBoundedByTheTimeout() {
+		when(myJdbcService.getUserPlayEvents("u1")).thenReturn(List.of());
+		when(recommendationCache.get("u1", 10)).thenReturn(List.of());
+
+		assertTrue(homeService.getHome("u1").getMissing().isEmpty());
+		// 200 ms rounds up to the one-second granularity of JDBC query timeouts
+		verify(transactionManager, times(4)).getTransaction(argThat(def -> def.isReadOnly() && def.getTimeout() == 1));
+	}
+
+	@Test
+	void unknownUserHasNoHomeScreen() {
+		when(readQueryRepository.findUserSummary("nobody")).thenReturn(null);
+		assertNull(homeService.getHome("nobody"));
+	}
+}
@@ -0,0 +1,158 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.PackedSongTags;
+import com.example.soundhiveapi.model.Song;
+import com.example.soundhiveapi.model.Tag;
+import com.example.soundhiveapi.model.UserTagWeight;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import com.example.soundhiveapi.repository.SongRepository;
+import com.example.soundhiveapi.repository.SongTagRepository;
+import com.example.soundhiveapi.repository.TagRepository;
+import com.example.soundhiveapi.repository.UserTagWeightRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MyJdbcServiceTests {
+
+	private final SongRepository songRepository = mock(SongRepository.class);
+	private final SongTagRepository songTagRepository = mock(SongTagRepository.class);
+	private final UserTagWeightRepository userTagWeightRepository = mock(UserTagWeightRepository.class);
+	private final UserProfileStore userProfileStore = mock(UserProfileStore.class);
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+	private final TagRepository tagRepository = mock(TagRepository.class);
+	private final ReadQueryRepository readQueryRepository = mock(ReadQueryRepository.class);
+	private final CatalogCache catalogCache = new CatalogCache(100, Duration.ofMinutes(1), 100, Duration.ofMinutes(1),
+			Duration.ofHours(1), Duration.ofSeconds(30));
+	private final MyJdbcService service = new MyJdbcService();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(service, "songRepository", songRepository);
+		ReflectionTestUtils.setField(service, "songTagRepository", songTagRepository);
+		ReflectionTestUtils.setField(service, "userTagWeightRepository", userTagWeightRepository);
+		ReflectionTestUtils.setField(service, "userProfileStore", userProfileStore);
+		ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+		ReflectionTestUtils.setField(service, "tagRepository", tagRepository);
+		ReflectionTestUtils.setField(service, "readQueryRepository", readQueryRepository);
+		ReflectionTestUtils.setField(service, "catalogCache", catalogCache);
+	}
+
+	@Test
+	void songsWithoutExactlyFiveTagsAreRejectedBeforeAnyWrite() {
+		Song untagged = new Song();
+		untagged.setSongId(1);
+		assertThrows(IllegalArgumentException.class, () -> service.saveSong(untagged));
+
+		Song tooFew = new Song();
+		tooFew.setSongId(2);
+		// Song.setTags checks the count too, so go around it
+		ReflectionTestUtils.setField(tooFew, "tags", new Tag[] {new Tag(1, "pop")});
+		assertThrows(IllegalArgumentException.class, () -> service.saveSong(tooFew));
+
+		Song withNull = new Song();
+		withNull.setSongId(3);
+		withNull.setTags(new Tag[] {new Tag(1, "pop"), new Tag(2, "rock"), null, new Tag(4, "jazz"), new Tag(5, "folk")});
+		assertThrows(IllegalArgumentException.class, () -> service.saveSong(withNull));
+
+		verifyNoInteractions(songRepository, songTagRepository);
+	}
+
+	@Test
+	void tagWeightWritesPatchTheProfileOnlyThroughTheCommitEvent() {
+		service.updateUserTagWeight("u1", 3, 0.5);
+
+		verify(userTagWeightRepository).save(any(UserTagWeight.class));
+		verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof TagWeightSavedEvent
+				&& ((TagWeightSavedEvent) e).getIdNumber().equals("u1") && ((TagWeightSavedEvent) e).getTagId() == 3));
+		verifyNoInteractions(userProfileStore);
+	}
+
+	@Test
+	void songsPickUpTagsAddedAfterTheDictionaryWasBuilt() {
+		List<Tag> fiveTags = List.of(new Tag(1, "pop"), new Tag(2, "rock"), new Tag(3, "jazz"), new Tag(4, "folk"),
+				new Tag(5, "soul"));
+		List<Tag> sixTags = new ArrayList<>(fiveTags);
+		sixTags.add(new Tag(6, "funk"));
+		when(tagRepository.findAllByOrderByTagIdAsc()).thenReturn(fiveTags, sixTags);
+		when(readQueryRepository.findSongs(any())).thenAnswer(inv -> {
+			Map<Integer, Song> byId = new HashMap<>();
+			for (Integer songId : inv.<Collection<Integer>>getArgument(0)) {
+				Song song = new Song();
+				song.setSongId(songId);
+				byId.put(songId, song);
+			}
+			return byId;
+		});
+		when(songTagRepository.findTagIds(any())).thenAnswer(inv -> {
+			List<Integer> ids = inv.getArgument(0);
+			PackedSongTags packed = new PackedSongTags(ids.stream().mapToInt(Integer::intValue).toArray());
+			for (int songId : ids) {
+				for (int p = 0; p < PackedSongTags.TAGS_PER_SONG; p++) {
+					packed.set(songId, p, songId == 1 ? p + 1 : p + 2);
+				}
+			}
+			return packed;
+		});
+
+		assertNotNull(service.getSongById(1).getTags());
+		// song 2 uses tag 6, which the dictionary does not know yet
+		assertNull(service.getSongById(2).getTags());
+
+		catalogCache.invalidateTags();
+		catalogCache.invalidateSong(2);
+		assertEquals("funk", service.getSongById(2).getTags()[4].getTagName());
+	}
+
+	@Test
+	void aSongReadBeforeTheSaveCommitsIsNotServedAfterIt() {
+		List<Tag> tags = List.of(new Tag(1, "pop"), new Tag(2, "rock"), new Tag(3, "jazz"), new Tag(4, "folk"),
+				new Tag(5, "soul"));
+		when(tagRepository.findAllByOrderByTagIdAsc()).thenReturn(tags);
+		// what other connections see
+		AtomicReference<String> committedTitle = new AtomicReference<>("Old");
+		when(readQueryRepository.findSongs(any())).thenAnswer(inv -> {
+			Song song = new Song();
+			song.setSongId(7);
+			song.setTitle(committedTitle.get());
+			return Map.of(7, song);
+		});
+		when(songTagRepository.findTagIds(any())).thenAnswer(inv -> {
+			PackedSongTags packed = new PackedSongTags(new int[] {7});
+			for (int p = 0; p < PackedSongTags.TAGS_PER_SONG; p++) {
+				packed.set(7, p, p + 1);
+			}
+			return packed;
+		});
+		when(songRepository.save(any(Song.class))).thenAnswer(inv -> inv.getArgument(0));
+		assertEquals("Old", service.getSongById(7).getTitle());
+
+		Song edited = new Song();
+		edited.setSongId(7);
+		edited.setTitle("New");
+		edited.setTags(tags.toArray(new Tag[0]));
+		service.saveSong(edited);
+		// a read between the write and the commit still sees the old row
+		assertEquals("Old", service.getSongById(7).getTitle());
+
+		committedTitle.set("New");
+		ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		catalogCache.onSongSaved((SongSavedEvent) event.getValue());
+		assertEquals("New", service.getSongById(7).getTitle());
+	}
+}
@@ -0,0 +1,174 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.repository.PlayEventBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PlayEventIngestorTests {
+
+	private final PlayEventBatchRepository repository = mock(PlayEventBatchRepository.class);
+
+	private PlayEventIngestor ingestor(int capacity, int batchSize, PlayEventListener listener) {
+		PlayEventIngestor ingestor = new PlayEventIngestor();
+		ReflectionTestUtils.setField(ingestor, "playEventBatchRepository", repository);
+		ReflectionTestUtils.setField(ingestor, "listeners", List.of(listener));
+		ReflectionTestUtils.setField(ingestor, "queueCapacity", capacity);
+		ReflectionTestUtils.setField(ingestor, "batchSize", batchSize);
+		ReflectionTestUtils.setField(ingestor, "flushIntervalMillis", 50L);
+		ReflectionTestUtils.setField(ingestor, "retryBackoffMillis", 1L);
+		ingestor.start();
+		return ingestor;
+	}
+
+	@Test
+	void writesQueuedPlaysInBatchesAndFlushesOnStop() throws Exception {
+		AtomicInteger written = new AtomicInteger();
+		List<Integer> batchSizes = new ArrayList<>();
+		doAnswer(inv -> {
+			int count = inv.getArgument(3);
+			synchronized (batchSizes) {
+				batchSizes.add(count);
+			}
+			written.addAndGet(count);
+			return null;
+		}).when(repository).write(any(), any(), any(), anyInt());
+		List<String> heard = new ArrayList<>();
+		PlayEventIngestor ingestor = ingestor(10_000, 100, (user, song, time) -> heard.add(user + ":" + song));
+
+		for (int i = 0; i < 1_000; i++) {
+			assertTrue(ingestor.offer("u" + (i % 10), i, 1_000L + i));
+		}
+		ingestor.stop();
+
+		assertEquals(1_000, written.get());
+		assertTrue(batchSizes.stream().allMatch(n -> n <= 100));
+		assertEquals(1_000, heard.size());
+		assertFalse(ingestor.offer("late", 1, 1L));
+	}
+
+	@Test
+	void rejectsPlaysWhenTheQueueIsFull() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch writing = new CountDownLatch(1);
+		doAnswer(inv -> {
+			writing.countDown();
+			release.await();
+			return null;
+		}).when(repository).write(any(), any(), any(), anyInt());
+		PlayEventIngestor ingestor = ingestor(5, 1, (user, song, time) -> { });
+
+		assertTrue(ingestor.offer("u", 0, 1L));
+		writing.await(); // the writer is now stuck on the first play
+		for (int i = 1; i <= 5; i++) {
+			assertTrue(ingestor.offer("u", i, 1L));
+		}
+		assertFalse(ingestor.offer("u", 6, 1L));
+		assertEquals(5, ingestor.queuedCount());
+
+		release.countDown();
+		ingestor.stop();
+		verify(repository, times(6)).write(any(), any(), any(), eq(1));
+	}
+
+	@Test
+	void aBadRowOnlyLosesItself() throws Exception {
+		List<Integer> written = new ArrayList<>();
+		doAnswer(inv -> {
+			int[] songIds = inv.getArgument(1);
+			int count = inv.getArgument(3);
+			for (int i = 0; i < count; i++) {
+				if (songIds[i] == 13) {
+					throw new IllegalStateException("foreign key");
+				}
+			}
+			synchronized (written) {
+				for (int i = 0; i < count; i++) {
+					written.add(songIds[i]);
+				}
+			}
+			return null;
+		}).when(repository).write(any(), any(), any(), anyInt());
+		PlayEventIngestor ingestor = ingestor(100, 100, (user, song, time) -> { });
+
+		for (int i = 10; i < 20; i++) {
+			assertTrue(ingestor.offer("u", i, 1L));
+		}
+		ingestor.stop();
+
+		assertEquals(List.of(10, 11, 12, 14, 15, 16, 17, 18, 19), written);
+	}
+
+	@Test
+	void transientFailuresAreRetriedWhileTheQueuePushesBack() throws Exception {
+		AtomicInteger failures = new AtomicInteger();
+		CountDownLatch databaseBack = new CountDownLatch(1);
+		List<Integer> written = new ArrayList<>();
+		doAnswer(inv -> {
+			if (databaseBack.getCount() > 0) {
+				failures.incrementAndGet();
+				throw new TransientDataAccessResourceException("connection lost");
+			}
+			int[] songIds = inv.getArgument(1);
+			int count = inv.getArgument(3);
+			synchronized (written) {
+				for (int i = 0; i < count; i++) {
+					written.add(songIds[i]);
+				}
+			}
+			return null;
+		}).when(repository).write(any(), any(), any(), anyInt());
+		PlayEventIngestor ingestor = ingestor(3, 10, (user, song, time) -> { });
+		ReflectionTestUtils.setField(ingestor, "maxRetryBackoffMillis", 5L);
+
+		int accepted = 0;
+		while (ingestor.offer("u", accepted, 1L)) {
+			accepted++;
+			// give the writer time to take a batch off the queue while the database is down
+			Thread.sleep(20);
+		}
+		assertTrue(accepted >= 3);
+		// the outage outlasts many retries
+		while (failures.get() < 20) {
+			Thread.sleep(5);
+		}
+		databaseBack.countDown();
+		ingestor.stop();
+
+		assertEquals(accepted, written.size());
+		// never fell back to single rows
+		verify(repository, never()).write(any(), any(), any(), eq(1));
+	}
+
+	@Test
+	void everyPlayAcceptedDuringShutdownIsWritten() throws Exception {
+		AtomicInteger written = new AtomicInteger();
+		doAnswer(inv -> written.addAndGet(inv.getArgument(3))).when(repository).write(any(), any(), any(), anyInt());
+		PlayEventIngestor ingestor = ingestor(100_000, 100, (user, song, time) -> { });
+		AtomicInteger accepted = new AtomicInteger();
+		List<Thread> producers = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			producers.add(Thread.ofPlatform().start(() -> {
+				while (ingestor.offer("u", 1, 1L)) {
+					accepted.incrementAndGet();
+				}
+			}));
+		}
+		Thread.sleep(20);
+		ingestor.stop();
+		for (Thread producer : producers) {
+			producer.join();
+		}
+
+		assertEquals(accepted.get(), written.get());
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.repository.PlayLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.TreeMap;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PlayLogCompactionJobTests {
+
+	private final PlayLogRepository playLogRepository = mock(PlayLogRepository.class);
+	private final PlayLogCompactionJob job = new PlayLogCompactionJob();
+	private final int today = PlayLogRepository.epochDay(System.currentTimeMillis());
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(job, "playLogRepository", playLogRepository);
+		ReflectionTestUtils.setField(job, "retentionDays", 90);
+		ReflectionTestUtils.setField(job, "partitionsAheadDays", 7);
+		ReflectionTestUtils.setField(job, "managePartitions", true);
+		when(playLogRepository.compactedLogDay()).thenReturn(today);
+	}
+
+	@Test
+	void freshInstallSplitsTheCatchAllFromTheOldestRow() {
+		when(playLogRepository.findPartitions()).thenReturn(new TreeMap<>());
+		when(playLogRepository.hasCatchAllPartition()).thenReturn(true);
+		when(playLogRepository.findOldestLogDay()).thenReturn(today - 3);
+
+		job.maintainPartitions();
+
+		verify(playLogRepository).addPartitions(today - 3, today + 8);
+		verify(playLogRepository, never()).dropPartition(anyString());
+	}
+
+	@Test
+	void freshInstallWithoutPlaysStartsToday() {
+		when(playLogRepository.findPartitions()).thenReturn(new TreeMap<>());
+		when(playLogRepository.hasCatchAllPartition()).thenReturn(true);
+		when(playLogRepository.findOldestLogDay()).thenReturn(null);
+
+		job.maintainPartitions();
+
+		verify(playLogRepository).addPartitions(today, today + 8);
+	}
+
+	@Test
+	void existingPartitionsAreExtendedAndExpiredOnesDropped() {
+		TreeMap<Integer, String> partitions = new TreeMap<>();
+		partitions.put(today - 95, "p_old");
+		partitions.put(today + 2, "p_recent");
+		when(playLogRepository.findPartitions()).thenReturn(partitions);
+
+		job.maintainPartitions();
+
+		verify(playLogRepository).addPartitions(today + 2, today + 8);
+		verify(playLogRepository).dropPartition("p_old");
+		verify(playLogRepository, never()).dropPartition("p_recent");
+		verify(playLogRepository, never()).hasCatchAllPartition();
+	}
+
+	@Test
+	void unpartitionedTableIsLeftAlone() {
+		when(playLogRepository.findPartitions()).thenReturn(new TreeMap<>());
+
+		job.maintainPartitions();
+
+		verify(playLogRepository, never()).addPartitions(anyInt(), anyInt());
+	}
+}
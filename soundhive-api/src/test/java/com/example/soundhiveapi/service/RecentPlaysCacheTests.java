@@ -0,0 +1,57 @@
+package com.example.soundhiveapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentPlaysCacheTests {
+
+	@Test
+	void playsNotWrittenYetAreLaidOverTheLoadedList() {
+		RecentPlaysCache cache = new RecentPlaysCache(10, 10);
+		// accepted, but the database read below does not see it yet
+		cache.record("u1", 7);
+		assertNull(cache.get("u1"));
+		// still visible to callers that only need the plays accepted so far
+		assertArrayEquals(new int[] {7}, cache.recorded("u1"));
+		assertNull(cache.recorded("u2"));
+
+		assertArrayEquals(new int[] {7, 3, 2}, cache.put("u1", new int[] {3, 2}));
+		assertArrayEquals(new int[] {7, 3, 2}, cache.get("u1"));
+
+		// a later load does not replace the ring, and replays move to the front
+		cache.record("u1", 3);
+		assertArrayEquals(new int[] {3, 7, 2}, cache.put("u1", new int[] {2}));
+	}
+
+	@Test
+	void writtenPlaysAreNotDuplicated() {
+		RecentPlaysCache cache = new RecentPlaysCache(10, 10);
+		cache.record("u1", 5);
+		cache.record("u1", 6);
+		// the read already sees both plays
+		assertArrayEquals(new int[] {6, 5, 1}, cache.put("u1", new int[] {6, 5, 1}));
+	}
+
+	@Test
+	void playsFromUnreadUsersDoNotEvictLoadedRings() {
+		RecentPlaysCache cache = new RecentPlaysCache(2, 3);
+		cache.put("u1", new int[] {1});
+		cache.put("u2", new int[] {2});
+		// many users play without anyone reading their lists
+		for (int i = 0; i < 100; i++) {
+			cache.record("anon" + i, i);
+			if (i % 10 == 0) {
+				cache.record("u1", 100 + i);
+			}
+		}
+		assertArrayEquals(new int[] {190, 180, 170, 160, 150, 140, 130, 120, 110, 100, 1}, cache.get("u1"));
+		assertArrayEquals(new int[] {2}, cache.get("u2"));
+
+		// only the most recent unloaded rings are kept
+		assertNull(cache.recorded("anon0"));
+		assertArrayEquals(new int[] {99}, cache.recorded("anon99"));
+		assertArrayEquals(new int[] {99, 5}, cache.put("anon99", new int[] {5}));
+		assertArrayEquals(new int[] {99, 5}, cache.get("anon99"));
+	}
+}
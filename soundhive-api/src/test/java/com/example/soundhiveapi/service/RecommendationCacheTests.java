@@ -0,0 +1,144 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.UserProfile;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import com.example.soundhiveapi.service.RecommendationService.Recommendation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RecommendationCacheTests {
+
+	private final RecommendationService recommendationService = mock(RecommendationService.class);
+	private final UserProfileStore userProfileStore = mock(UserProfileStore.class);
+	private final ReadQueryRepository readQueryRepository = mock(ReadQueryRepository.class);
+	private final RecentPlaysCache recentPlaysCache = new RecentPlaysCache(100, 100);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RecommendationCache cache = new RecommendationCache(100, 3, Duration.ofMinutes(30), 2);
+	private final AtomicLong version = new AtomicLong(1);
+	private final AtomicInteger computations = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(cache, "recommendationService", recommendationService);
+		ReflectionTestUtils.setField(cache, "userProfileStore", userProfileStore);
+		ReflectionTestUtils.setField(cache, "readQueryRepository", readQueryRepository);
+		ReflectionTestUtils.setField(cache, "refreshUsers", 10);
+		ReflectionTestUtils.setField(cache, "activeWindow", Duration.ofHours(1));
+		ReflectionTestUtils.setField(cache, "recentPlaysCache", recentPlaysCache);
+		ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+		cache.registerMetrics();
+		when(userProfileStore.getProfile(anyString()))
+				.thenAnswer(inv -> new UserProfile(inv.getArgument(0), version.get(), new int[0], new double[0]));
+		// the n-th computation recommends songs n, n + 1, n + 2
+		when(recommendationService.recommend(anyString(), eq(3))).thenAnswer(inv -> {
+			int n = computations.incrementAndGet();
+			return List.of(song(n), song(n + 1), song(n + 2));
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		cache.shutdown();
+	}
+
+	@Test
+	void servesFromCacheUntilTheProfileChanges() throws Exception {
+		assertEquals(List.of(1, 2), ids(cache.get("u1", 2)));
+		assertEquals(List.of(1, 2, 3), ids(cache.get("u1", 3)));
+		assertEquals(1, computations.get());
+
+		// the stale result is served at once while the new one is computed in the background
+		version.set(2);
+		assertEquals(List.of(1, 2), ids(cache.get("u1", 2)));
+		assertTrue(waitFor(() -> computations.get() == 2));
+		assertTrue(waitFor(() -> ids(cache.get("u1", 1)).equals(List.of(2))));
+		assertEquals(2, computations.get());
+		assertEquals(1.0, meterRegistry.counter("soundhive.recommend.cache.stale").count());
+
+		// more than max-k songs bypass the cache
+		when(recommendationService.recommend("u1", 5)).thenReturn(List.of(song(9)));
+		assertEquals(List.of(9), ids(cache.get("u1", 5)));
+	}
+
+	@Test
+	void songsPlayedSinceTheEntryWasComputedAreNotServed() throws Exception {
+		assertEquals(List.of(1, 2), ids(cache.get("u1", 2)));
+
+		// accepted, not written yet: the recompute still recommends it, so it is filtered on every read
+		recentPlaysCache.onPlay("u1", 1, System.currentTimeMillis());
+		when(recommendationService.recommend(anyString(), eq(3))).thenAnswer(inv -> {
+			computations.incrementAndGet();
+			return List.of(song(1), song(5), song(6));
+		});
+		assertEquals(List.of(2, 3), ids(cache.get("u1", 2)));
+		assertTrue(waitFor(() -> computations.get() == 2));
+		assertTrue(waitFor(() -> ids(cache.get("u1", 3)).equals(List.of(5, 6))));
+		assertNotNull(meterRegistry.find("cache.gets").tag("cache", "recommendations").functionCounter());
+	}
+
+	@Test
+	void staleReadsShareOneRecompute() throws Exception {
+		cache.get("u1", 3);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger started = new AtomicInteger();
+		doAnswer(inv -> {
+			started.incrementAndGet();
+			release.await(5, TimeUnit.SECONDS);
+			return List.of(song(computations.incrementAndGet()));
+		}).when(recommendationService).recommend(anyString(), eq(3));
+		version.set(2);
+		for (int i = 0; i < 50; i++) {
+			assertEquals(List.of(1, 2, 3), ids(cache.get("u1", 3)));
+		}
+		assertTrue(waitFor(() -> started.get() == 1));
+		Thread.sleep(50);
+		assertEquals(1, started.get());
+
+		release.countDown();
+		assertTrue(waitFor(() -> cache.get("u1", 3).size() == 1));
+	}
+
+	@Test
+	void refreshesActiveUsersThatAreMissingOrStale() throws Exception {
+		cache.get("u1", 3);
+		when(readQueryRepository.findRecentlyActiveUserIds(anyLong(), eq(10))).thenReturn(List.of("u2", "u1"));
+
+		assertEquals(1, cache.refreshActiveUsers());
+		// nothing is queued again once the refreshed entry is in place
+		assertTrue(waitFor(() -> cache.refreshActiveUsers() == 0));
+		assertEquals(List.of(2, 3, 4), ids(cache.get("u2", 3)));
+		assertEquals(2, computations.get());
+	}
+
+	private static Recommendation song(int id) {
+		return new Recommendation(id, "t" + id, "a", 1.0 / id);
+	}
+
+	private static List<Integer> ids(List<Recommendation> recommendations) {
+		return recommendations.stream().map(Recommendation::getSongId).toList();
+	}
+
+	private static boolean waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (System.nanoTime() < deadline) {
+			if (condition.getAsBoolean()) {
+				return true;
+			}
+			Thread.sleep(5);
+		}
+		return false;
+	}
+}
@@ -0,0 +1,162 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.model.Tag;
+import com.example.soundhiveapi.repository.BulkReadRepository;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import com.example.soundhiveapi.repository.TagRepository;
+import com.example.soundhiveapi.repository.UserRecommendationRepository.Partition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RecommendationExportJobTests {
+
+	private static final int USERS = 25;
+
+	@TempDir
+	Path dir;
+
+	private final RecommendationExportJob job = new RecommendationExportJob();
+
+	@BeforeEach
+	void setUp() {
+		TagRepository tagRepository = mock(TagRepository.class);
+		when(tagRepository.findAllByOrderByTagIdAsc())
+				.thenReturn(List.of(new Tag(1, "pop"), new Tag(2, "rock"), new Tag(3, "jazz")));
+		BulkReadRepository bulkReadRepository = mock(BulkReadRepository.class);
+		// user uNN likes pop with weight NN and rock with weight 1
+		when(bulkReadRepository.forEachUserTagWeight(any())).thenAnswer(inv -> {
+			BulkReadRepository.TagWeightRowHandler handler = inv.getArgument(0);
+			for (int u = 0; u < USERS; u++) {
+				handler.accept(String.format("u%02d", u), 1, u + 1);
+				handler.accept(String.format("u%02d", u), 2, 1);
+			}
+			return 2L * USERS;
+		});
+		// songs 100 (pop), 200 (rock), 300 (pop, rock), 400 (jazz)
+		when(bulkReadRepository.forEachSongTag(any())).thenAnswer(inv -> {
+			BulkReadRepository.SongTagRowHandler handler = inv.getArgument(0);
+			handler.accept(100, 1);
+			handler.accept(200, 2);
+			handler.accept(300, 1);
+			handler.accept(300, 2);
+			handler.accept(400, 3);
+			return 5L;
+		});
+		// every user has played 300
+		ReadQueryRepository readQueryRepository = mock(ReadQueryRepository.class);
+		when(readQueryRepository.findPlayedSongIds(anyCollection())).thenAnswer(inv -> {
+			Map<String, int[]> played = new HashMap<>();
+			Collection<String> userIds = inv.getArgument(0);
+			for (String userId : userIds) {
+				played.put(userId, new int[] {300});
+			}
+			return played;
+		});
+
+		UserProfileStore store = new UserProfileStore();
+		ReflectionTestUtils.setField(store, "tagRepository", tagRepository);
+		ReflectionTestUtils.setField(store, "readQueryRepository", readQueryRepository);
+		ReflectionTestUtils.setField(store, "bulkReadRepository", bulkReadRepository);
+		ReflectionTestUtils.setField(store, "eventPublisher", mock(ApplicationEventPublisher.class));
+
+		RecommendationService recommendations = new RecommendationService();
+		ReflectionTestUtils.setField(recommendations, "userProfileStore", store);
+		ReflectionTestUtils.setField(recommendations, "tagRepository", tagRepository);
+		ReflectionTestUtils.setField(recommendations, "bulkReadRepository", bulkReadRepository);
+		ReflectionTestUtils.setField(recommendations, "readQueryRepository", readQueryRepository);
+		ReflectionTestUtils.setField(recommendations, "maxQueryTags", 10);
+
+		ReflectionTestUtils.setField(job, "userProfileStore", store);
+		ReflectionTestUtils.setField(job, "recommendationService", recommendations);
+		ReflectionTestUtils.setField(job, "readQueryRepository", readQueryRepository);
+		ReflectionTestUtils.setField(job, "topN", 2);
+		ReflectionTestUtils.setField(job, "partitionUsers", 10);
+		ReflectionTestUtils.setField(job, "parallelism", 2);
+		ReflectionTestUtils.setField(job, "progressIntervalMillis", 10L);
+	}
+
+	@Test
+	void writesEveryUsersTopSongsInPartitions() throws Exception {
+		RecommendationExportJob.Result result = job.export(new FileRecommendationSink(dir));
+
+		assertEquals(USERS, result.users());
+		assertEquals(3, result.partitions());
+		assertEquals(0, result.skipped());
+		assertEquals(2L * USERS, result.recommendations());
+		List<String> lines = Files.readAllLines(dir.resolve("part-00001.tsv"));
+		assertEquals(20, lines.size());
+		// played song 300 is left out; pop (weight 11) beats rock (weight 1)
+		assertEquals("u10\t0\t100\t11.0", lines.get(0));
+		assertEquals("u10\t1\t200\t1.0", lines.get(1));
+		assertEquals(10, Files.readAllLines(dir.resolve("part-00002.tsv")).size());
+	}
+
+	@Test
+	void usersAddedSinceTheMatrixLoadGetTheirOwnPartition() throws Exception {
+		UserProfileStore store = (UserProfileStore) ReflectionTestUtils.getField(job, "userProfileStore");
+		store.applyWeight("new1", 2, 5.0);
+
+		RecommendationExportJob.Result result = job.export(new FileRecommendationSink(dir));
+		assertEquals(USERS + 1, result.users());
+		assertEquals(4, result.partitions());
+		assertEquals(List.of("new1\t0\t200\t5.0"), Files.readAllLines(dir.resolve("part-00003.tsv")));
+
+		// a resumed run writes the overlay partition again, with whoever has been added since
+		store.applyWeight("new2", 1, 3.0);
+		result = job.export(new FileRecommendationSink(dir));
+		assertEquals(3, result.skipped());
+		assertEquals(2, result.users());
+		assertEquals(2, Files.readAllLines(dir.resolve("part-00003.tsv")).size());
+	}
+
+	@Test
+	void resumesWithTheMissingPartitions() throws Exception {
+		RecommendationExportJob.Sink failing = new FileRecommendationSink(dir) {
+			@Override
+			public void write(String layout, Partition partition) {
+				if (partition.number() == 1) {
+					throw new IllegalStateException("disk full");
+				}
+				super.write(layout, partition);
+			}
+		};
+		// one worker runs partition 0 first
+		ReflectionTestUtils.setField(job, "parallelism", 1);
+		assertThrows(IllegalStateException.class, () -> job.export(failing));
+		assertTrue(Files.exists(dir.resolve("part-00000.tsv")));
+		assertFalse(Files.exists(dir.resolve("part-00001.tsv")));
+
+		RecommendationExportJob.Result result = job.export(new FileRecommendationSink(dir));
+		// partition 2 may or may not have been written before the failure stopped the pool
+		assertTrue(result.skipped() >= 1);
+		assertEquals(USERS - 10 - 10 * (result.skipped() - 1), result.users());
+		assertTrue(Files.exists(dir.resolve("part-00001.tsv")));
+	}
+
+	@Test
+	void startsOverWhenTheLayoutChanges() throws Exception {
+		FileRecommendationSink sink = new FileRecommendationSink(dir);
+		job.export(sink);
+		ReflectionTestUtils.setField(job, "partitionUsers", 20);
+
+		RecommendationExportJob.Result result = job.export(sink);
+		assertEquals(0, result.skipped());
+		assertEquals(2, result.partitions());
+		assertFalse(Files.exists(dir.resolve("part-00002.tsv")));
+		assertEquals(Set.of(0, 1), sink.completed(Files.readString(dir.resolve("LAYOUT"))));
+	}
+}
@@ -0,0 +1,58 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.SongTagIndex;
+import com.example.soundhiveapi.model.Tag;
+import com.example.soundhiveapi.repository.BulkReadRepository;
+import com.example.soundhiveapi.repository.BulkReadRepository.SongTagRowHandler;
+import com.example.soundhiveapi.repository.TagRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RecommendationServiceTests {
+
+	private final BulkReadRepository bulkReadRepository = mock(BulkReadRepository.class);
+	private final TagRepository tagRepository = mock(TagRepository.class);
+	private final RecommendationService service = new RecommendationService();
+	private final List<int[]> songTags = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(service, "bulkReadRepository", bulkReadRepository);
+		ReflectionTestUtils.setField(service, "tagRepository", tagRepository);
+		when(tagRepository.findAllByOrderByTagIdAsc()).thenReturn(List.of(new Tag(1, "pop"), new Tag(2, "rock")));
+		doAnswer(inv -> {
+			SongTagRowHandler handler = inv.getArgument(0);
+			for (int[] row : songTags) {
+				handler.accept(row[0], row[1]);
+			}
+			return (long) songTags.size();
+		}).when(bulkReadRepository).forEachSongTag(any());
+		songTags.add(new int[] {10, 1});
+	}
+
+	@Test
+	void savedSongsAreIndexedOnTheNextRefresh() {
+		// nothing to refresh before the index is first used
+		service.refreshIndex();
+		verify(bulkReadRepository, never()).forEachSongTag(any());
+
+		SongTagIndex first = service.getIndex();
+		assertEquals(-1, first.positionOf(20));
+		service.refreshIndex();
+		assertSame(first, service.getIndex());
+
+		songTags.add(new int[] {20, 2});
+		service.onSongSaved(new SongSavedEvent(null, new int[0], new int[] {2}));
+		service.refreshIndex();
+		assertEquals(1, service.getIndex().positionOf(20));
+		verify(bulkReadRepository, times(2)).forEachSongTag(any());
+	}
+}
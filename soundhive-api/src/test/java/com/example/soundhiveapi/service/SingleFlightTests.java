@@ -0,0 +1,114 @@
+package com.example.soundhiveapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTests {
+
+	private static final int THREADS = 64;
+
+	private final SingleFlight<Integer, String> flight = new SingleFlight<>();
+	private final Map<Integer, AtomicInteger> queries = new ConcurrentHashMap<>();
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final AtomicInteger arrived = new AtomicInteger();
+
+	@Test
+	void burstOfSingleAndBulkLookupsRunsOneQueryPerKey() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int n = t;
+				results.add(executor.submit(() -> {
+					arrived.incrementAndGet();
+					if (n % 2 == 0) {
+						return flight.load(n % 4, this::query);
+					}
+					Map<Integer, String> all = flight.loadAll(List.of(0, 1, 2, 3), this::queryAll);
+					return all.get(n % 4);
+				}));
+			}
+			while (arrived.get() < THREADS) {
+				Thread.sleep(1);
+			}
+			// give the last arrivals time to join the pending loads
+			Thread.sleep(100);
+			release.countDown();
+			for (int t = 0; t < THREADS; t++) {
+				assertEquals("v" + (t % 4), results.get(t).get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(Set.of(0, 1, 2, 3), queries.keySet());
+		queries.forEach((key, count) -> assertEquals(1, count.get(), "queries for key " + key));
+		assertEquals(0, flight.inFlight());
+	}
+
+	@Test
+	void failuresReachEveryWaiterAndTheNextCallRetries() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				results.add(executor.submit(() -> {
+					arrived.incrementAndGet();
+					return flight.load(7, key -> {
+						await();
+						throw new IllegalStateException("db down");
+					});
+				}));
+			}
+			while (arrived.get() < 8) {
+				Thread.sleep(1);
+			}
+			Thread.sleep(100);
+			release.countDown();
+			for (Future<String> result : results) {
+				Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+				assertInstanceOf(IllegalStateException.class, e.getCause());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals("v7", flight.load(7, this::query));
+	}
+
+	private String query(int key) {
+		queries.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+		await();
+		return "v" + key;
+	}
+
+	private Map<Integer, String> queryAll(Set<Integer> keys) {
+		Map<Integer, String> values = new HashMap<>();
+		for (Integer key : keys) {
+			queries.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+			values.put(key, "v" + key);
+		}
+		await();
+		return values;
+	}
+
+	private void await() {
+		try {
+			assertTrue(release.await(5, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.model.Song;
+import com.example.soundhiveapi.repository.BulkReadRepository;
+import com.example.soundhiveapi.repository.BulkReadRepository.SongRowHandler;
+import com.example.soundhiveapi.repository.PlayLogRepository;
+import com.example.soundhiveapi.repository.PlayLogRepository.SongPlayCountHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SongSearchServiceTests {
+
+	private final BulkReadRepository bulkReadRepository = mock(BulkReadRepository.class);
+	private final PlayLogRepository playLogRepository = mock(PlayLogRepository.class);
+	private final MyJdbcService myJdbcService = mock(MyJdbcService.class);
+	private final SongSearchService service = new SongSearchService();
+	private final List<Song> songs = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(service, "bulkReadRepository", bulkReadRepository);
+		ReflectionTestUtils.setField(service, "playLogRepository", playLogRepository);
+		ReflectionTestUtils.setField(service, "myJdbcService", myJdbcService);
+		ReflectionTestUtils.setField(service, "popularityDays", 30);
+		songs.add(song(1, "Hello", "Adele"));
+		songs.add(song(2, "Hello", "Lionel Richie"));
+		doAnswer(inv -> {
+			SongRowHandler handler = inv.getArgument(0);
+			for (Song song : songs) {
+				handler.accept(song.getSongId(), song.getTitle(), song.getArtist());
+			}
+			return (long) songs.size();
+		}).when(bulkReadRepository).forEachSong(any());
+		doAnswer(inv -> {
+			SongPlayCountHandler handler = inv.getArgument(1);
+			handler.accept(2, 40);
+			handler.accept(3, 100);
+			return null;
+		}).when(playLogRepository).forEachSongPlayCount(anyInt(), any());
+		when(playLogRepository.countSongPlays(eq(3), anyInt())).thenReturn(100L);
+		when(myJdbcService.getSongsByIds(anyList())).thenAnswer(inv -> {
+			List<Integer> ids = inv.getArgument(0);
+			return ids.stream().map(id -> song(id, "", "")).toList();
+		});
+	}
+
+	@Test
+	void ranksByPlaysAndServesSavedSongsBeforeTheRebuild() {
+		assertEquals(List.of(2, 1), ids(service.search("hel", 10)));
+		assertEquals(List.of(), service.search("  ", 10));
+
+		// a new song and a renamed one
+		Song added = song(3, "Hello from the Other Side", "Adele");
+		Song renamed = song(1, "Someone Like You", "Adele");
+		service.onSongSaved(new SongSavedEvent(added, new int[0], new int[5]));
+		service.onSongSaved(new SongSavedEvent(renamed, new int[5], new int[5]));
+		assertEquals(List.of(3, 2), ids(service.search("hello", 10)));
+		assertEquals(List.of(3, 1), ids(service.search("adele", 10)));
+
+		songs.set(0, renamed);
+		songs.add(added);
+		service.rebuild();
+		assertEquals(List.of(3, 2), ids(service.search("hello", 10)));
+		assertEquals(List.of(1), ids(service.search("someone", 10)));
+		verify(bulkReadRepository, times(2)).forEachSong(any());
+	}
+
+	private static Song song(int id, String title, String artist) {
+		Song song = new Song();
+		song.setSongId(id);
+		song.setTitle(title);
+		song.setArtist(artist);
+		return song;
+	}
+
+	private static List<Integer> ids(List<Song> songs) {
+		return songs.stream().map(Song::getSongId).toList();
+	}
+}
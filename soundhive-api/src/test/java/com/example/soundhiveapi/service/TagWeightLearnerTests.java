@@ -0,0 +1,160 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.SongTagIndex;
+import com.example.soundhiveapi.index.TagIndex;
+import com.example.soundhiveapi.model.Tag;
+import com.example.soundhiveapi.repository.TagWeightUpdateRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TagWeightLearnerTests {
+
+	private final RecommendationService recommendationService = mock(RecommendationService.class);
+	private final TagWeightUpdateRepository repository = mock(TagWeightUpdateRepository.class);
+	private final UserProfileStore store = mock(UserProfileStore.class);
+	private final TagWeightLearner learner = new TagWeightLearner();
+
+	TagWeightLearnerTests() {
+		TagIndex tags = new TagIndex(List.of(new Tag(1, "pop"), new Tag(2, "rock"), new Tag(3, "jazz")));
+		SongTagIndex index = new SongTagIndex.Builder(tags)
+				.add(10, 1).add(10, 2)
+				.add(20, 2).add(20, 3)
+				.build();
+		when(recommendationService.peekIndex()).thenReturn(index);
+		ReflectionTestUtils.setField(learner, "recommendationService", recommendationService);
+		ReflectionTestUtils.setField(learner, "tagWeightUpdateRepository", repository);
+		ReflectionTestUtils.setField(learner, "userProfileStore", store);
+		ReflectionTestUtils.setField(learner, "playIncrement", 1.0);
+		ReflectionTestUtils.setField(learner, "halfLifeDays", 30.0);
+		ReflectionTestUtils.setField(learner, "maxAttempts", 3);
+		ReflectionTestUtils.setField(learner, "maxPendingUsers", 100);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void coalescesPlaysPerUserAndTag() {
+		for (int i = 0; i < 100; i++) {
+			learner.onPlay("hot", i % 2 == 0 ? 10 : 20, i);
+		}
+		learner.onPlay("cold", 10, 0);
+		learner.onPlay("cold", 999, 0); // unknown song, ignored
+
+		learner.flush();
+
+		ArgumentCaptor<List<String>> users = ArgumentCaptor.forClass(List.class);
+		ArgumentCaptor<String[]> rowUsers = ArgumentCaptor.forClass(String[].class);
+		ArgumentCaptor<int[]> rowTags = ArgumentCaptor.forClass(int[].class);
+		ArgumentCaptor<double[]> increments = ArgumentCaptor.forClass(double[].class);
+		verify(repository).decayAndAdd(users.capture(), rowUsers.capture(), rowTags.capture(),
+				increments.capture(), eq(5), doubleThat(d -> d > 0));
+
+		assertEquals(Set.of("hot", "cold"), Set.copyOf(users.getValue()));
+		Map<String, Double> rows = new HashMap<>();
+		for (int i = 0; i < 5; i++) {
+			rows.put(rowUsers.getValue()[i] + ":" + rowTags.getValue()[i], increments.getValue()[i]);
+		}
+		assertEquals(Map.of("hot:1", 50.0, "hot:2", 100.0, "hot:3", 50.0, "cold:1", 1.0, "cold:2", 1.0), rows);
+		verify(store).reloadUsers(users.getValue());
+		assertEquals(0, learner.pendingUserCount());
+
+		learner.flush();
+		verifyNoMoreInteractions(repository);
+	}
+
+	@Test
+	void playsBeforeTheIndexIsBuiltAreSkippedWithoutBuildingIt() {
+		when(recommendationService.peekIndex()).thenReturn(null);
+		learner.onPlay("early", 10, 0);
+		assertEquals(0, learner.pendingUserCount());
+		verify(recommendationService, never()).getIndex();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void failedWritesAreRetriedOnTheNextFlush() {
+		doThrow(new IllegalStateException("down")).doNothing()
+				.when(repository).decayAndAdd(any(), any(), any(), any(), anyInt(), anyDouble());
+		learner.onPlay("u", 10, 0);
+		learner.flush();
+		assertEquals(1, learner.pendingUserCount());
+		verify(store, never()).reloadUsers(any());
+
+		learner.onPlay("u", 20, 1);
+		learner.flush();
+
+		ArgumentCaptor<int[]> rowTags = ArgumentCaptor.forClass(int[].class);
+		ArgumentCaptor<double[]> increments = ArgumentCaptor.forClass(double[].class);
+		verify(repository, times(2)).decayAndAdd(any(), any(), rowTags.capture(), increments.capture(), anyInt(),
+				anyDouble());
+		Map<Integer, Double> rows = new HashMap<>();
+		for (int i = 0; i < 3; i++) {
+			rows.put(rowTags.getValue()[i], increments.getValue()[i]);
+		}
+		assertEquals(Map.of(1, 1.0, 2, 2.0, 3, 1.0), rows);
+		assertEquals(0, learner.pendingUserCount());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void aUserWhoseUpdatesKeepFailingIsIsolatedAndDropped() {
+		doAnswer(inv -> {
+			if (((List<String>) inv.getArgument(0)).contains("bad")) {
+				throw new DataIntegrityViolationException("bad row");
+			}
+			return null;
+		}).when(repository).decayAndAdd(any(), any(), any(), any(), anyInt(), anyDouble());
+		for (int u = 0; u < 8; u++) {
+			learner.onPlay(u == 5 ? "bad" : "u" + u, 10, 0);
+		}
+
+		learner.flush();
+		// every other user is written in the first flush
+		List<String> written = new ArrayList<>();
+		ArgumentCaptor<List<String>> reloaded = ArgumentCaptor.forClass(List.class);
+		verify(store, atLeastOnce()).reloadUsers(reloaded.capture());
+		reloaded.getAllValues().forEach(written::addAll);
+		assertEquals(7, written.size());
+		assertFalse(written.contains("bad"));
+		assertEquals(1, learner.pendingUserCount());
+
+		learner.flush();
+		assertEquals(1, learner.pendingUserCount());
+		learner.flush();
+		assertEquals(0, learner.pendingUserCount());
+		clearInvocations(repository);
+		learner.flush();
+		verifyNoInteractions(repository);
+	}
+
+	@Test
+	void transientFailuresKeepEveryUserButNewUsersAreCapped() {
+		ReflectionTestUtils.setField(learner, "maxPendingUsers", 2);
+		doThrow(new TransientDataAccessResourceException("down"))
+				.when(repository).decayAndAdd(any(), any(), any(), any(), anyInt(), anyDouble());
+		learner.onPlay("a", 10, 0);
+		learner.onPlay("b", 10, 0);
+		for (int i = 0; i < 5; i++) {
+			learner.flush();
+		}
+		// not split and not dropped
+		verify(repository, times(5)).decayAndAdd(any(), any(), any(), any(), anyInt(), anyDouble());
+		assertEquals(2, learner.pendingUserCount());
+
+		learner.onPlay("c", 10, 0);
+		learner.onPlay("a", 20, 0);
+		assertEquals(2, learner.pendingUserCount());
+	}
+}
@@ -0,0 +1,150 @@
+package com.example.soundhiveapi.service;
+
+import com.example.soundhiveapi.index.MatrixSnapshot;
+import com.example.soundhiveapi.index.UserProfile;
+import com.example.soundhiveapi.index.UserTagMatrix;
+import com.example.soundhiveapi.model.Tag;
+import com.example.soundhiveapi.model.UserTagWeight;
+import com.example.soundhiveapi.repository.BulkReadRepository;
+import com.example.soundhiveapi.repository.ReadQueryRepository;
+import com.example.soundhiveapi.repository.TagRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserProfileStoreTests {
+
+	private final TagRepository tagRepository = mock(TagRepository.class);
+	private final ReadQueryRepository readQueryRepository = mock(ReadQueryRepository.class);
+	private final BulkReadRepository bulkReadRepository = mock(BulkReadRepository.class);
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+	private final List<UserTagWeight> rows = new ArrayList<>();
+	private final UserProfileStore store = new UserProfileStore();
+
+	@TempDir
+	Path dir;
+
+	@BeforeEach
+	void setUp() {
+		when(tagRepository.findAllByOrderByTagIdAsc()).thenReturn(List.of(new Tag(1, "pop"), new Tag(2, "rock")));
+		when(bulkReadRepository.forEachUserTagWeight(any())).thenAnswer(inv -> {
+			BulkReadRepository.TagWeightRowHandler handler = inv.getArgument(0);
+			rows.forEach(w -> handler.accept(w.getIdNumber(), w.getTagId(), w.getWeight()));
+			return (long) rows.size();
+		});
+		ReflectionTestUtils.setField(store, "tagRepository", tagRepository);
+		ReflectionTestUtils.setField(store, "readQueryRepository", readQueryRepository);
+		ReflectionTestUtils.setField(store, "bulkReadRepository", bulkReadRepository);
+		ReflectionTestUtils.setField(store, "eventPublisher", eventPublisher);
+		rows.add(new UserTagWeight("u1", 1, 0.5));
+		rows.add(new UserTagWeight("u1", 2, 0.25));
+	}
+
+	@Test
+	void loadsOnceAndPatchesSingleUsers() {
+		UserProfile before = store.getProfile("u1");
+		assertArrayEquals(new double[] {0.5, 0.25}, before.toDense(2));
+
+		UserProfile after = store.applyWeight("u1", 2, 0.75);
+		assertTrue(after.getVersion() > before.getVersion());
+		assertArrayEquals(new double[] {0.5, 0.75}, store.getProfile("u1").toDense(2));
+		// the old snapshot is unchanged
+		assertArrayEquals(new double[] {0.5, 0.25}, before.toDense(2));
+
+		verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof UserProfileChangedEvent
+				&& ((UserProfileChangedEvent) e).getPrevious().getVersion() == before.getVersion()
+				&& ((UserProfileChangedEvent) e).getCurrent().getVersion() == after.getVersion()));
+
+		store.applyWeight("u2", 1, 1.0);
+		assertArrayEquals(new double[] {1.0, 0.0}, store.getProfile("u2").toDense(2));
+		verify(bulkReadRepository, times(1)).forEachUserTagWeight(any());
+	}
+
+	@Test
+	void currentMatrixIncludesPatchesAndNewUsers() {
+		store.onTagWeightSaved(new TagWeightSavedEvent("u1", 2, 0.75));
+		store.applyWeight("u3", 1, 2.0);
+
+		UserTagMatrix current = store.getCurrentMatrix();
+		assertEquals(3, current.nnz());
+		assertEquals(0.75, current.get(current.rowOf("u1"), 1));
+		assertEquals(2.0, current.get(current.rowOf("u3"), 0));
+		// the base matrix is untouched
+		assertEquals(0.25, store.getBaseMatrix().get(store.getBaseMatrix().rowOf("u1"), 1));
+	}
+
+	@Test
+	void resyncDropsPatchesOlderThanTheReload() {
+		store.applyWeight("u1", 1, 9.0);
+		rows.set(0, new UserTagWeight("u1", 1, 9.0));
+		store.resync();
+
+		assertEquals(9.0, store.getProfile("u1").toDense(2)[0]);
+		assertEquals(2, store.getBaseMatrix().nnz());
+		verify(bulkReadRepository, times(2)).forEachUserTagWeight(any());
+	}
+
+	@Test
+	void concurrentSnapshotWritesKeepTheNewestIntactFile() throws Exception {
+		Path path = dir.resolve("profiles.snap");
+		ReflectionTestUtils.setField(store, "snapshotPath", path.toString());
+		for (int u = 0; u < 2000; u++) {
+			rows.add(new UserTagWeight("user" + u, 1 + u % 2, u));
+		}
+		AtomicLong clock = new AtomicLong(1000);
+		when(bulkReadRepository.databaseTimeMillis()).thenAnswer(inv -> clock.incrementAndGet());
+		store.getProfile("u1");
+
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				int n = t;
+				results.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < 5; i++) {
+						if (n == 0) {
+							store.resync();
+						} else {
+							store.snapshot();
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		// resync() writes on its own thread; the last write carries the newest watermark
+		long newest = clock.get();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (MatrixSnapshot.map(path, true).getWatermarkMillis() != newest && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		MatrixSnapshot snapshot = MatrixSnapshot.map(path, true);
+		assertEquals(newest, snapshot.getWatermarkMillis());
+		assertEquals(2002, snapshot.getMatrix().nnz());
+		assertFalse(Files.exists(dir.resolve("profiles.snap.tmp")));
+	}
+}
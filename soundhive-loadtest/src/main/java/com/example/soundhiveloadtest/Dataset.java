@@ -0,0 +1,140 @@
+package com.example.soundhiveloadtest;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Shape of the seeded dataset. Every row is derived from (seed, user) or (seed, song), so the
+// seeder and the request generator agree on which IDs, emails and passwords exist without
+// sharing any state. Tag and song popularity are skewed (squared uniform), like real listening.
+public class Dataset {
+
+    public static final int TAGS_PER_SONG = 5;
+
+    static final long BASE_TIME_MILLIS = 1_700_000_000_000L;
+
+    private final int users;
+    private final int tags;
+    private final int songs;
+    private final int tagsPerUser;
+    private final int playsPerUser;
+    private final long seed;
+
+    public Dataset(int users, int tags, int songs, int tagsPerUser, int playsPerUser, long seed) {
+        this.users = users;
+        this.tags = tags;
+        this.songs = songs;
+        this.tagsPerUser = Math.min(tagsPerUser, tags);
+        this.playsPerUser = Math.min(playsPerUser, songs);
+        this.seed = seed;
+    }
+
+    public static Dataset fromOptions(Options options) {
+        return new Dataset(
+                options.getInt("users", 1_000_000),
+                options.getInt("tags", 200),
+                options.getInt("songs", 500_000),
+                options.getInt("tags-per-user", 20),
+                options.getInt("plays-per-user", 30),
+                options.getLong("seed", 1));
+    }
+
+    public int numUsers() {
+        return users;
+    }
+
+    public int numTags() {
+        return tags;
+    }
+
+    public int numSongs() {
+        return songs;
+    }
+
+    public int tagsPerUser() {
+        return tagsPerUser;
+    }
+
+    public int playsPerUser() {
+        return playsPerUser;
+    }
+
+    // Users are 0..users-1; tag and song IDs are 1..tags and 1..songs.
+    public String userId(int user) {
+        return String.format("%09d", user);
+    }
+
+    public String username(int user) {
+        return "listener" + user;
+    }
+
+    public String email(int user) {
+        return "listener" + user + "@loadtest.soundhive";
+    }
+
+    public String password(int user) {
+        return "pw-" + Long.toHexString(seed * 1_000_003L + user);
+    }
+
+    public String tagName(int tagId) {
+        return "tag" + tagId;
+    }
+
+    public String songTitle(int songId) {
+        return "Song " + songId;
+    }
+
+    public String songArtist(int songId) {
+        return "Artist " + (songId % 9_973);
+    }
+
+    // The user's tag IDs, ascending; weights are drawn from the same stream in the same order.
+    public SplittableRandom weightRandom(int user) {
+        return new SplittableRandom(seed * 31 + user);
+    }
+
+    public SplittableRandom playRandom(int user) {
+        return new SplittableRandom(seed * 17 + user);
+    }
+
+    public int[] songTagIds(int songId) {
+        SplittableRandom random = new SplittableRandom(seed * 13 + songId);
+        int[] ids = new int[TAGS_PER_SONG];
+        int n = 0;
+        while (n < TAGS_PER_SONG) {
+            int tagId = skewed(random, tags) + 1;
+            boolean seen = false;
+            for (int i = 0; i < n; i++) {
+                seen |= ids[i] == tagId;
+            }
+            if (!seen) {
+                ids[n++] = tagId;
+            }
+        }
+        return ids;
+    }
+
+    // count distinct values in 1..max, popular (low) values more likely, ascending.
+    // Counts are small (tens), so duplicates are found with a linear scan.
+    static int[] distinctSorted(SplittableRandom random, int count, int max) {
+        int[] values = new int[count];
+        int n = 0;
+        while (n < count) {
+            int value = skewed(random, max) + 1;
+            boolean seen = false;
+            for (int i = 0; i < n && !seen; i++) {
+                seen = values[i] == value;
+            }
+            if (!seen) {
+                values[n++] = value;
+            }
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
+    // 0..bound-1, low values more likely.
+    static int skewed(SplittableRandom random, int bound) {
+        double u = random.nextDouble();
+        return (int) (u * u * bound);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.soundhiveloadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fills a database with a Dataset: the SoundHive tables are created if missing, then written
+// with batched inserts (multi-row statements with rewriteBatchedStatements=true on MySQL).
+// Users are split into ranges that are written in parallel, each on its own connection and
+// committed once per range, so a 1M user seed finishes in minutes rather than hours.
+public class DatasetSeeder {
+
+    static final int USERS_PER_RANGE = 10_000;
+    private static final int BATCH_SIZE = 5_000;
+
+    private final Dataset dataset;
+    private final String jdbcUrl;
+    private final String user;
+    private final String password;
+    private final int threads;
+
+    private final AtomicLong rows = new AtomicLong();
+
+    public DatasetSeeder(Dataset dataset, String jdbcUrl, String user, String password, int threads) {
+        this.dataset = dataset;
+        this.jdbcUrl = jdbcUrl;
+        this.user = user;
+        this.password = password;
+        this.threads = threads;
+    }
+
+    // Creates the tables, optionally empties them, and writes the whole dataset; returns the
+    // number of rows written.
+    public long seed(boolean truncate) throws Exception {
+        try (Connection connection = connect()) {
+            createTables(connection, truncate);
+            connection.setAutoCommit(false);
+            writeTags(connection);
+            writeSongs(connection, 1, dataset.numSongs());
+            connection.commit();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> ranges = new ArrayList<>();
+            for (int from = 0; from < dataset.numUsers(); from += USERS_PER_RANGE) {
+                int start = from;
+                int end = Math.min(dataset.numUsers(), from + USERS_PER_RANGE);
+                ranges.add(executor.submit(() -> {
+                    try (Connection connection = connect()) {
+                        connection.setAutoCommit(false);
+                        writeUsers(connection, start, end);
+                        connection.commit();
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < ranges.size(); i++) {
+                ranges.get(i).get();
+                if ((i + 1) % 10 == 0 || i + 1 == ranges.size()) {
+                    System.out.printf("seeded %d of %d user ranges, %d rows%n", i + 1, ranges.size(), rows.get());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return rows.get();
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(jdbcUrl, user, password);
+    }
+
+    // Matches the JPA mappings in soundhive-api plus db/schema-additions.sql.
+    private void createTables(Connection connection, boolean truncate) throws SQLException {
+        String[] tables = {"USERS", "TAGS", "SONGS", "song_tags", "user_tagweights", "user_playevents"};
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS USERS (id_number VARCHAR(20) PRIMARY KEY,"
+                    + " username VARCHAR(255), email VARCHAR(255), password VARCHAR(255), KEY idx_users_email (email))");
+            statement.execute("CREATE TABLE IF NOT EXISTS TAGS (tag_id INT PRIMARY KEY, tag_name VARCHAR(255))");
+            statement.execute("CREATE TABLE IF NOT EXISTS SONGS (song_id INT PRIMARY KEY,"
+                    + " title VARCHAR(255), artist VARCHAR(255))");
+            statement.execute("CREATE TABLE IF NOT EXISTS song_tags (song_id INT NOT NULL,"
+                    + " tag_position TINYINT NOT NULL, tag_id INT NOT NULL, PRIMARY KEY (song_id, tag_position))");
+            statement.execute("CREATE TABLE IF NOT EXISTS user_tagweights (id_number VARCHAR(20) NOT NULL,"
+                    + " tag_id INT NOT NULL, weight DOUBLE NOT NULL,"
+                    + " updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),"
+                    + " PRIMARY KEY (id_number, tag_id))");
+            statement.execute("CREATE TABLE IF NOT EXISTS user_playevents (user_id VARCHAR(20) NOT NULL,"
+                    + " song_id INT NOT NULL, play_time TIMESTAMP NULL, song_title VARCHAR(255),"
+                    + " PRIMARY KEY (user_id, song_id))");
+            if (truncate) {
+                for (String table : tables) {
+                    statement.execute("TRUNCATE TABLE " + table);
+                }
+            }
+        }
+    }
+
+    private void writeTags(Connection connection) throws SQLException {
+        try (Batch tags = new Batch(connection, "INSERT INTO TAGS VALUES (?, ?)")) {
+            for (int tagId = 1; tagId <= dataset.numTags(); tagId++) {
+                tags.add(tagId, dataset.tagName(tagId));
+            }
+        }
+    }
+
+    private void writeSongs(Connection connection, int first, int last) throws SQLException {
+        try (Batch songs = new Batch(connection, "INSERT INTO SONGS VALUES (?, ?, ?)");
+             Batch songTags = new Batch(connection, "INSERT INTO song_tags VALUES (?, ?, ?)")) {
+            for (int songId = first; songId <= last; songId++) {
+                songs.add(songId, dataset.songTitle(songId), dataset.songArtist(songId));
+                int[] tagIds = dataset.songTagIds(songId);
+                for (int p = 0; p < tagIds.length; p++) {
+                    songTags.add(songId, p, tagIds[p]);
+                }
+            }
+        }
+    }
+
+    // Users [from, to) with their tag weights and plays.
+    private void writeUsers(Connection connection, int from, int to) throws SQLException {
+        try (Batch users = new Batch(connection, "INSERT INTO USERS VALUES (?, ?, ?, ?)");
+             Batch weights = new Batch(connection, "INSERT INTO user_tagweights (id_number, tag_id, weight) VALUES (?, ?, ?)");
+             Batch plays = new Batch(connection, "INSERT INTO user_playevents VALUES (?, ?, ?, ?)")) {
+            for (int u = from; u < to; u++) {
+                String id = dataset.userId(u);
+                users.add(id, dataset.username(u), dataset.email(u), dataset.password(u));
+
+                SplittableRandom weightRandom = dataset.weightRandom(u);
+                for (int tagId : Dataset.distinctSorted(weightRandom, dataset.tagsPerUser(), dataset.numTags())) {
+                    weights.add(id, tagId, weightRandom.nextDouble() * 10);
+                }
+                SplittableRandom playRandom = dataset.playRandom(u);
+                for (int songId : Dataset.distinctSorted(playRandom, dataset.playsPerUser(), dataset.numSongs())) {
+                    long time = Dataset.BASE_TIME_MILLIS + playRandom.nextInt(30 * 24 * 3600) * 1000L;
+                    plays.add(id, songId, new Timestamp(time), dataset.songTitle(songId));
+                }
+            }
+        }
+    }
+
+    // A prepared statement that is executed every BATCH_SIZE rows and once more on close.
+    private class Batch implements AutoCloseable {
+        private final PreparedStatement statement;
+        private int pending;
+
+        Batch(Connection connection, String sql) throws SQLException {
+            this.statement = connection.prepareStatement(sql);
+        }
+
+        void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+            if (++pending == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (pending > 0) {
+                statement.executeBatch();
+                rows.addAndGet(pending);
+                pending = 0;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+            } finally {
+                statement.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.soundhiveloadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+// The soundhive-api endpoints the generator can call, each with the request it builds for a
+// randomly chosen user or song of the dataset. Users and songs are picked with the same skew
+// as the seeded data, so popular rows are hot in caches the way they would be in production.
+public enum Endpoint {
+
+    LOGIN("login") {
+        @Override
+        HttpRequest.Builder request(URI base, Dataset dataset, SplittableRandom random) {
+            int user = randomUser(dataset, random);
+            String body = "{\"email\":\"" + dataset.email(user) + "\",\"password\":\"" + dataset.password(user) + "\"}";
+            return HttpRequest.newBuilder(base.resolve("/api/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+    },
+    TAGS("tags") {
+        @Override
+        HttpRequest.Builder request(URI base, Dataset dataset, SplittableRandom random) {
+            return HttpRequest.newBuilder(base.resolve("/api/tags"));
+        }
+    },
+    SONG("song") {
+        @Override
+        HttpRequest.Builder request(URI base, Dataset dataset, SplittableRandom random) {
+            int songId = Dataset.skewed(random, dataset.numSongs()) + 1;
+            return HttpRequest.newBuilder(base.resolve("/api/songs/" + songId));
+        }
+    },
+    TOP_TAGS("top-tags") {
+        @Override
+        HttpRequest.Builder request(URI base, Dataset dataset, SplittableRandom random) {
+            return userRequest(base, dataset, random, "/top-tags?k=5");
+        }
+    },
+    RECENT("recent") {
+        @Override
+        HttpRequest.Builder request(URI base, Dataset dataset, SplittableRandom random) {
+            return userRequest(base, dataset, random, "/recent");
+        }
+    },
+    RECOMMENDATIONS("recommendations") {
+        @Override
+        HttpRequest.Builder request(URI base, Dataset dataset, SplittableRandom random) {
+            return userRequest(base, dataset, random, "/recommendations?k=10");
+        }
+    },
+    HOME("home") {
+        @Override
+        HttpRequest.Builder request(URI base, Dataset dataset, SplittableRandom random) {
+            return userRequest(base, dataset, random, "/home");
+        }
+    },
+    SIMILAR("similar") {
+        @Override
+        HttpRequest.Builder request(URI base, Dataset dataset, SplittableRandom random) {
+            return userRequest(base, dataset, random, "/similar?k=10");
+        }
+    };
+
+    private final String key;
+
+    Endpoint(String key) {
+        this.key = key;
+    }
+
+    // Name used in the request mix option and the report.
+    public String key() {
+        return key;
+    }
+
+    public HttpRequest build(URI base, Dataset dataset, SplittableRandom random, Duration timeout) {
+        return request(base, dataset, random).timeout(timeout).build();
+    }
+
+    abstract HttpRequest.Builder request(URI base, Dataset dataset, SplittableRandom random);
+
+    public static Endpoint ofKey(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint " + key);
+    }
+
+    private static int randomUser(Dataset dataset, SplittableRandom random) {
+        return Dataset.skewed(random, dataset.numUsers());
+    }
+
+    private static HttpRequest.Builder userRequest(URI base, Dataset dataset, SplittableRandom random, String path) {
+        return HttpRequest.newBuilder(base.resolve("/api/users/" + dataset.userId(randomUser(dataset, random)) + path));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.soundhiveloadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+// Machine-readable result of one run. Field order and names are stable so reports from two
+// versions of the API can be diffed directly. Latencies are in milliseconds and measured from
+// the intended start of each request (see OpenLoadDriver), so a stalled server shows up as
+// queueing time instead of being hidden by the generator slowing down.
+public record LoadReport(
+        String startedAt,
+        Map<String, String> options,
+        Map<String, Double> mix,
+        double targetRatePerSecond,
+        double measuredSeconds,
+        EndpointResult total,
+        Map<String, EndpointResult> endpoints) {
+
+    public record EndpointResult(
+            long requests,
+            long ok,
+            long errors,
+            long dropped,
+            double throughputPerSecond,
+            Latency latencyMillis,
+            Map<String, Long> statuses) { }
+
+    public record Latency(double p50, double p90, double p99, double p999, double max, double mean) {
+
+        // From a histogram of microseconds.
+        static Latency of(Histogram micros) {
+            if (micros.getTotalCount() == 0) {
+                return new Latency(0, 0, 0, 0, 0, 0);
+            }
+            return new Latency(
+                    millis(micros.getValueAtPercentile(50)),
+                    millis(micros.getValueAtPercentile(90)),
+                    millis(micros.getValueAtPercentile(99)),
+                    millis(micros.getValueAtPercentile(99.9)),
+                    millis(micros.getMaxValue()),
+                    Math.round(micros.getMean()) / 1000.0);
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), this);
+    }
+}
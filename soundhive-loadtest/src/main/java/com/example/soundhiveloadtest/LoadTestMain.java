@@ -0,0 +1,82 @@
+package com.example.soundhiveloadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// Entry point: "seed" fills a database with the dataset, "run" drives a running soundhive-api.
+// Both take the dataset options, so a run only asks for users, songs and credentials that the
+// seed created.
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+        Options options = new Options(args, 1);
+        switch (args[0]) {
+            case "seed" -> seed(options);
+            case "run" -> run(options);
+            default -> usage();
+        }
+    }
+
+    private static void seed(Options options) throws Exception {
+        Dataset dataset = Dataset.fromOptions(options);
+        DatasetSeeder seeder = new DatasetSeeder(dataset,
+                options.get("jdbc-url", "jdbc:mysql://localhost:3306/soundhive?rewriteBatchedStatements=true"),
+                options.get("user", "root"),
+                options.get("password", ""),
+                options.getInt("threads", 8));
+        boolean truncate = Boolean.parseBoolean(options.get("truncate", "false"));
+        warnUnused(options);
+        long start = System.nanoTime();
+        long rows = seeder.seed(truncate);
+        System.out.printf("seeded %d rows in %d s%n", rows, Duration.ofNanos(System.nanoTime() - start).toSeconds());
+    }
+
+    private static void run(Options options) throws Exception {
+        Dataset dataset = Dataset.fromOptions(options);
+        OpenLoadDriver driver = new OpenLoadDriver(
+                URI.create(options.get("base-url", "http://localhost:8080")),
+                dataset,
+                RequestMix.parse(options.get("mix", RequestMix.DEFAULT)),
+                options.getDouble("rate", 200),
+                Duration.ofSeconds(options.getLong("warmup", 30)),
+                Duration.ofSeconds(options.getLong("duration", 120)),
+                options.getInt("max-in-flight", 2_000),
+                Duration.ofMillis(options.getLong("timeout-ms", 10_000)),
+                options.getLong("request-seed", 7));
+        Path reportPath = Path.of(options.get("report", "loadtest-report.json"));
+        warnUnused(options);
+
+        LoadReport report = driver.run(options.effective());
+        report.write(reportPath);
+        LoadReport.EndpointResult total = report.total();
+        System.out.printf("%d requests, %d errors, %d dropped, %.1f ok/s, p50 %.2f ms, p99 %.2f ms, p999 %.2f ms%n",
+                total.requests(), total.errors(), total.dropped(), total.throughputPerSecond(),
+                total.latencyMillis().p50(), total.latencyMillis().p99(), total.latencyMillis().p999());
+        System.out.println("report written to " + reportPath.toAbsolutePath());
+    }
+
+    private static void warnUnused(Options options) {
+        options.unused().forEach((key, value) -> System.out.println("ignoring unknown option " + key + "=" + value));
+    }
+
+    private static void usage() {
+        System.out.println("""
+                usage: seed|run [key=value ...]
+
+                dataset (seed and run):
+                  users=1000000 tags=200 songs=500000 tags-per-user=20 plays-per-user=30 seed=1
+                seed:
+                  jdbc-url=jdbc:mysql://localhost:3306/soundhive?rewriteBatchedStatements=true
+                  user=root password= threads=8 truncate=false
+                run:
+                  base-url=http://localhost:8080 rate=200 (requests/s) warmup=30 duration=120 (s)
+                  mix=%s
+                  max-in-flight=2000 timeout-ms=10000 request-seed=7 report=loadtest-report.json
+                """.formatted(RequestMix.DEFAULT));
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.soundhiveloadtest;
+
+import com.example.soundhiveloadtest.LoadReport.EndpointResult;
+import com.example.soundhiveloadtest.LoadReport.Latency;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-model load: requests are started on a fixed schedule (one every 1/rate seconds) whether
+// or not earlier ones have finished, the way independent users arrive. Each request runs on its
+// own virtual thread. Latency is measured from the request's scheduled start, not from when it
+// was actually sent, so time spent waiting behind a slow server is counted (no coordinated
+// omission). The number of requests in flight is capped to protect the generator itself;
+// arrivals beyond the cap are counted as dropped rather than delayed.
+public class OpenLoadDriver {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final URI baseUrl;
+    private final Dataset dataset;
+    private final RequestMix mix;
+    private final double ratePerSecond;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int maxInFlight;
+    private final Duration requestTimeout;
+    private final long seed;
+
+    private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+
+    public OpenLoadDriver(URI baseUrl, Dataset dataset, RequestMix mix, double ratePerSecond, Duration warmup,
+                          Duration duration, int maxInFlight, Duration requestTimeout, long seed) {
+        this.baseUrl = baseUrl;
+        this.dataset = dataset;
+        this.mix = mix;
+        this.ratePerSecond = ratePerSecond;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.maxInFlight = maxInFlight;
+        this.requestTimeout = requestTimeout;
+        this.seed = seed;
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats());
+        }
+    }
+
+    // Runs the warmup and then the measured period; only the measured period is reported.
+    public LoadReport run(Map<String, String> options) throws InterruptedException {
+        String startedAt = Instant.now().toString();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(requestTimeout)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        SplittableRandom random = new SplittableRandom(seed);
+        long interval = Math.max(1, Math.round(1e9 / ratePerSecond));
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long nextProgress = start + TimeUnit.SECONDS.toNanos(10);
+
+        try {
+            for (long i = 0; ; i++) {
+                long intended = start + i * interval;
+                if (intended >= end) {
+                    break;
+                }
+                sleepUntil(intended);
+                Endpoint endpoint = mix.next(random);
+                HttpRequest request = endpoint.build(baseUrl, dataset, random, requestTimeout);
+                boolean measured = intended >= measureFrom;
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        stats.get(endpoint).dropped.increment();
+                    }
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        send(client, endpoint, request, intended, measured);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                if (intended >= nextProgress) {
+                    printProgress(intended - start);
+                    nextProgress += TimeUnit.SECONDS.toNanos(10);
+                }
+            }
+            // let the last requests finish (or time out) before reading the histograms
+            if (!inFlight.tryAcquire(maxInFlight, requestTimeout.toMillis() + 1_000, TimeUnit.MILLISECONDS)) {
+                System.out.println("some requests were still running at the end of the run");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return report(startedAt, options, duration.toNanos() / 1e9);
+    }
+
+    private void send(HttpClient client, Endpoint endpoint, HttpRequest request, long intended, boolean measured) {
+        Stats endpointStats = stats.get(endpoint);
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            status = -1;
+        }
+        if (!measured) {
+            return;
+        }
+        long micros = Math.min(MAX_LATENCY_MICROS, Math.max(1, (System.nanoTime() - intended) / 1_000));
+        endpointStats.latency.recordValue(micros);
+        endpointStats.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    private void printProgress(long elapsedNanos) {
+        long requests = 0;
+        long dropped = 0;
+        for (Stats s : stats.values()) {
+            for (LongAdder count : s.statuses.values()) {
+                requests += count.sum();
+            }
+            dropped += s.dropped.sum();
+        }
+        System.out.printf("%4ds  %d measured requests done, %d dropped%n",
+                TimeUnit.NANOSECONDS.toSeconds(elapsedNanos), requests, dropped);
+    }
+
+    private LoadReport report(String startedAt, Map<String, String> options, double seconds) {
+        Histogram all = newHistogram();
+        Map<String, EndpointResult> endpoints = new LinkedHashMap<>();
+        Map<String, Long> allStatuses = new TreeMap<>();
+        long dropped = 0;
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            Histogram histogram = s.latency.getIntervalHistogram();
+            Map<String, Long> statuses = s.statusCounts();
+            if (histogram.getTotalCount() == 0 && s.dropped.sum() == 0) {
+                continue;
+            }
+            all.add(histogram);
+            statuses.forEach((status, count) -> allStatuses.merge(status, count, Long::sum));
+            dropped += s.dropped.sum();
+            endpoints.put(entry.getKey().key(), result(histogram, statuses, s.dropped.sum(), seconds));
+        }
+        return new LoadReport(startedAt, options, mix.shares(), ratePerSecond, seconds,
+                result(all, allStatuses, dropped, seconds), endpoints);
+    }
+
+    private static EndpointResult result(Histogram histogram, Map<String, Long> statuses, long dropped, double seconds) {
+        long ok = 0;
+        for (Map.Entry<String, Long> status : statuses.entrySet()) {
+            if (status.getKey().startsWith("2")) {
+                ok += status.getValue();
+            }
+        }
+        long requests = histogram.getTotalCount();
+        return new EndpointResult(requests, ok, requests - ok, dropped,
+                Math.round(ok / seconds * 10) / 10.0, Latency.of(histogram), statuses);
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(MAX_LATENCY_MICROS, 3);
+    }
+
+    // Per-endpoint results of the measured period. Recorder allows concurrent recording.
+    private static class Stats {
+        final Recorder latency = new Recorder(MAX_LATENCY_MICROS, 3);
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final LongAdder dropped = new LongAdder();
+
+        // HTTP status -> count; "error" for requests that failed without a response.
+        Map<String, Long> statusCounts() {
+            Map<String, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status < 0 ? "error" : status.toString(), count.sum()));
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.soundhiveloadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// key=value command-line options. Every lookup records its default, so the effective
+// configuration of a run (given and defaulted values) can be written into the report.
+public class Options {
+
+    private final Map<String, String> given = new LinkedHashMap<>();
+    private final Map<String, String> effective = new TreeMap<>();
+
+    public Options(String[] args, int from) {
+        for (int i = from; i < args.length; i++) {
+            int eq = args[i].indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + args[i]);
+            }
+            given.put(args[i].substring(0, eq), args[i].substring(eq + 1));
+        }
+    }
+
+    public String get(String key, String defaultValue) {
+        String value = given.getOrDefault(key, defaultValue);
+        effective.put(key, key.contains("password") ? "***" : value);
+        return value;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return Integer.parseInt(get(key, Integer.toString(defaultValue)));
+    }
+
+    public long getLong(String key, long defaultValue) {
+        return Long.parseLong(get(key, Long.toString(defaultValue)));
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        return Double.parseDouble(get(key, Double.toString(defaultValue)));
+    }
+
+    // Options that were read, with passwords masked.
+    public Map<String, String> effective() {
+        return effective;
+    }
+
+    // Options that were given but never read; usually a typo.
+    public Map<String, String> unused() {
+        Map<String, String> unused = new LinkedHashMap<>(given);
+        unused.keySet().removeAll(effective.keySet());
+        return unused;
+    }
+}
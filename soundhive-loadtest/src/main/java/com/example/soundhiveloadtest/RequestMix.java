@@ -0,0 +1,75 @@
+package com.example.soundhiveloadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Weighted choice of endpoints, parsed from "login:5,tags:10,song:30,...".
+public class RequestMix {
+
+    public static final String DEFAULT =
+            "login:5,tags:5,song:30,top-tags:15,recent:15,recommendations:15,home:10,similar:5";
+
+    private final Endpoint[] endpoints;
+    private final double[] cumulative;
+
+    private RequestMix(Endpoint[] endpoints, double[] cumulative) {
+        this.endpoints = endpoints;
+        this.cumulative = cumulative;
+    }
+
+    public static RequestMix parse(String spec) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        double total = 0;
+        for (String part : spec.split(",")) {
+            String[] keyAndWeight = part.trim().split(":");
+            if (keyAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint:weight, got " + part);
+            }
+            double weight = Double.parseDouble(keyAndWeight[1]);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in " + part);
+            }
+            if (weight > 0) {
+                endpoints.add(Endpoint.ofKey(keyAndWeight[0]));
+                weights.add(weight);
+                total += weight;
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Request mix " + spec + " has no positive weight");
+        }
+        double[] cumulative = new double[weights.size()];
+        double sum = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            sum += weights.get(i) / total;
+            cumulative[i] = sum;
+        }
+        cumulative[cumulative.length - 1] = 1.0;
+        return new RequestMix(endpoints.toArray(new Endpoint[0]), cumulative);
+    }
+
+    public Endpoint next(SplittableRandom random) {
+        double u = random.nextDouble();
+        for (int i = 0; i < cumulative.length; i++) {
+            if (u < cumulative[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    // Share of each endpoint, for the report.
+    public Map<String, Double> shares() {
+        Map<String, Double> shares = new LinkedHashMap<>();
+        double previous = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            shares.merge(endpoints[i].key(), cumulative[i] - previous, Double::sum);
+            previous = cumulative[i];
+        }
+        return shares;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.soundhiveloadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetSeederTests {
+
+	@Test
+	void seedsEveryTableConsistentlyWithTheRequestGenerator() throws Exception {
+		String url = "jdbc:h2:mem:seed;MODE=MySQL;DB_CLOSE_DELAY=-1";
+		Dataset dataset = new Dataset(DatasetSeeder.USERS_PER_RANGE + 50, 20, 300, 6, 8, 1);
+		DatasetSeeder seeder = new DatasetSeeder(dataset, url, "sa", "", 2);
+
+		long rows = seeder.seed(false);
+
+		long users = dataset.numUsers();
+		assertEquals(20 + 300 * 6 + users * (1 + 6 + 8), rows);
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			assertEquals(users, count(statement, "SELECT COUNT(*) FROM USERS"));
+			assertEquals(users * 6, count(statement, "SELECT COUNT(*) FROM user_tagweights"));
+			assertEquals(users * 8, count(statement, "SELECT COUNT(*) FROM user_playevents"));
+			assertEquals(300 * 5, count(statement, "SELECT COUNT(*) FROM song_tags"));
+			// the credentials the generator logs in with
+			try (ResultSet rs = statement.executeQuery("SELECT password FROM USERS WHERE email = '"
+					+ dataset.email(12) + "'")) {
+				assertTrue(rs.next());
+				assertEquals(dataset.password(12), rs.getString(1));
+			}
+
+			seeder.seed(true);
+			assertEquals(users, count(statement, "SELECT COUNT(*) FROM USERS"));
+		}
+	}
+
+	private static long count(Statement statement, String sql) throws Exception {
+		try (ResultSet rs = statement.executeQuery(sql)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.soundhiveloadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenLoadDriverTests {
+
+	private HttpServer server;
+	private URI baseUrl;
+
+	@TempDir
+	Path dir;
+
+	@BeforeEach
+	void startServer() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		server.createContext("/api/tags", exchange -> {
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+		});
+		// songs answer after 50 ms
+		server.createContext("/api/songs", exchange -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+		});
+		server.start();
+		baseUrl = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+	}
+
+	@AfterEach
+	void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void sendsAtTheTargetRateAndReportsPercentiles() throws Exception {
+		OpenLoadDriver driver = new OpenLoadDriver(baseUrl, new Dataset(100, 10, 100, 5, 5, 1),
+				RequestMix.parse("tags:1,song:1,home:1"), 50, Duration.ofSeconds(1), Duration.ofSeconds(2),
+				1000, Duration.ofSeconds(5), 3);
+
+		LoadReport report = driver.run(Map.of("rate", "50"));
+
+		// 2 s at 50/s; the warmup is not reported
+		assertEquals(100, report.total().requests() + report.total().dropped());
+		assertEquals(0, report.total().dropped());
+		LoadReport.EndpointResult songs = report.endpoints().get("song");
+		assertEquals(songs.requests(), songs.ok());
+		assertTrue(songs.latencyMillis().p50() >= 50, "p50 " + songs.latencyMillis().p50());
+		// /api/users/... is not served: every home request is a 404
+		LoadReport.EndpointResult home = report.endpoints().get("home");
+		assertEquals(0, home.ok());
+		assertEquals(home.requests(), home.statuses().get("404"));
+
+		Path path = dir.resolve("report.json");
+		report.write(path);
+		JsonNode json = new ObjectMapper().readTree(path.toFile());
+		assertEquals(50.0, json.get("targetRatePerSecond").asDouble());
+		assertTrue(json.at("/endpoints/song/latencyMillis/p999").asDouble() >= 50);
+	}
+
+	@Test
+	void parsesTheRequestMix() {
+		Map<String, Double> shares = RequestMix.parse("song:3, tags:1, login:0").shares();
+		assertEquals(Map.of("song", 0.75, "tags", 0.25), shares);
+		assertThrows(IllegalArgumentException.class, () -> RequestMix.parse("nope:1"));
+		assertThrows(IllegalArgumentException.class, () -> RequestMix.parse("song:0"));
+	}
+}